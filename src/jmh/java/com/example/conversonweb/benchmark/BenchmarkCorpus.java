@@ -0,0 +1,178 @@
+package com.example.conversonweb.benchmark;
+
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.WordprocessingML.MainDocumentPart;
+import org.docx4j.wml.Br;
+import org.docx4j.wml.ObjectFactory;
+import org.docx4j.wml.P;
+import org.docx4j.wml.R;
+import org.docx4j.wml.STBrType;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Generated input files for the converter benchmarks.
+ * Files are created on first use under benchmark.corpus.dir (default: a
+ * directory in java.io.tmpdir) and reused by later forks and runs. The content
+ * is seeded, so every machine benchmarks the same bytes.
+ */
+public final class BenchmarkCorpus {
+
+    public enum ImageSize {
+        SMALL(800, 600),
+        MEDIUM(2400, 1800),
+        LARGE(4000, 3000);
+
+        final int width;
+        final int height;
+
+        ImageSize(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private static final String LOREM = "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do "
+            + "eiusmod tempor incididunt ut labore et dolore magna aliqua. Ut enim ad minim veniam, quis "
+            + "nostrud exercitation ullamco laboris nisi ut aliquip ex ea commodo consequat. Duis aute irure "
+            + "dolor in reprehenderit in voluptate velit esse cillum dolore eu fugiat nulla pariatur.";
+
+    private static final int PARAGRAPHS_PER_PAGE = 6;
+
+    private BenchmarkCorpus() {
+    }
+
+    public static Path directory() throws IOException {
+        String configured = System.getProperty("benchmark.corpus.dir");
+        Path directory = configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("java.io.tmpdir"), "conversonweb-benchmark-corpus");
+        return Files.createDirectories(directory);
+    }
+
+    /**
+     * Image of the given size, encoded in the given ImageIO format (jpg, png, bmp, gif, tif)
+     */
+    public static synchronized File image(ImageSize size, String format) throws IOException {
+        Path file = directory().resolve("image-" + size.name().toLowerCase() + "." + format);
+        if (Files.exists(file)) {
+            return file.toFile();
+        }
+
+        BufferedImage image = drawImage(size.width, size.height, size.ordinal());
+        String writerFormat = format.equals("tif") ? "tiff" : format;
+        writeAtomically(file, tempFile -> {
+            if (!ImageIO.write(image, writerFormat, tempFile.toFile())) {
+                throw new IOException("No ImageIO writer for " + format);
+            }
+        });
+        return file.toFile();
+    }
+
+    /**
+     * Word document with the given number of pages of text, one explicit page break per page
+     */
+    public static synchronized File document(int pages) throws Exception {
+        Path file = directory().resolve("document-" + pages + "p.docx");
+        if (Files.exists(file)) {
+            return file.toFile();
+        }
+
+        WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.createPackage();
+        MainDocumentPart mainDocumentPart = wordMLPackage.getMainDocumentPart();
+        ObjectFactory factory = new ObjectFactory();
+
+        for (int page = 1; page <= pages; page++) {
+            mainDocumentPart.addStyledParagraphOfText("Heading1", "Página " + page);
+            for (int paragraph = 0; paragraph < PARAGRAPHS_PER_PAGE; paragraph++) {
+                mainDocumentPart.addParagraphOfText(LOREM);
+            }
+            if (page < pages) {
+                mainDocumentPart.getContent().add(pageBreak(factory));
+            }
+        }
+
+        writeAtomically(file, tempFile -> {
+            try {
+                wordMLPackage.save(tempFile.toFile());
+            } catch (Exception e) {
+                throw new IOException("Could not save benchmark document", e);
+            }
+        });
+        return file.toFile();
+    }
+
+    private static P pageBreak(ObjectFactory factory) {
+        Br br = factory.createBr();
+        br.setType(STBrType.PAGE);
+        R run = factory.createR();
+        run.getContent().add(br);
+        P paragraph = factory.createP();
+        paragraph.getContent().add(run);
+        return paragraph;
+    }
+
+    /**
+     * Gradient background with shapes and text, so encoders see realistic
+     * edges rather than a trivially compressible flat image
+     */
+    private static BufferedImage drawImage(int width, int height, long seed) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setPaint(new GradientPaint(0, 0, new Color(30, 60, 120), width, height, new Color(240, 200, 90)));
+            g.fillRect(0, 0, width, height);
+
+            Random random = new Random(seed);
+            g.setStroke(new BasicStroke(Math.max(2, width / 400f)));
+            for (int i = 0; i < 200; i++) {
+                g.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256), 160));
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                int w = random.nextInt(width / 6) + 10;
+                int h = random.nextInt(height / 6) + 10;
+                if (i % 2 == 0) {
+                    g.fillOval(x, y, w, h);
+                } else {
+                    g.drawRect(x, y, w, h);
+                }
+            }
+
+            g.setColor(Color.WHITE);
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, height / 12));
+            g.drawString("ConversonWeb " + width + "x" + height, width / 20, height / 2);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static void writeAtomically(Path file, FileWriter writer) throws IOException {
+        Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            writer.write(tempFile);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileWriter {
+        void write(Path tempFile) throws IOException;
+    }
+}
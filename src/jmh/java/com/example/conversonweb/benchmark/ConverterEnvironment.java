@@ -0,0 +1,75 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.infrastructure.converter.PdfMemoryPolicy;
+import com.example.conversonweb.infrastructure.rendering.FontIndex;
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * The collaborators Spring would inject into the converters, wired by hand with
+ * the default configuration so benchmarks run without an application context
+ */
+final class ConverterEnvironment implements AutoCloseable {
+
+    private static final long MERGE_MAX_MAIN_MEMORY_BYTES = 32L * 1024 * 1024;
+
+    final ConversionConfig conversionConfig = new ConversionConfig();
+    final Path workDir;
+    private ConversionScheduler scheduler;
+    private WordRenderingEngine renderingEngine;
+
+    ConverterEnvironment() throws IOException {
+        this.workDir = Files.createTempDirectory("conversonweb-benchmark-");
+        conversionConfig.getFonts().setIndexFile(
+                BenchmarkCorpus.directory().resolve("font-index.cache").toString());
+    }
+
+    ConversionScheduler scheduler() {
+        if (scheduler == null) {
+            scheduler = new ConversionScheduler(conversionConfig);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Rendering engine after the same startup phase as the application:
+     * font index loaded and, when warm, the engine warmed up
+     */
+    WordRenderingEngine renderingEngine(boolean warm) {
+        if (renderingEngine == null) {
+            FontIndex fontIndex = new FontIndex(conversionConfig);
+            fontIndex.load();
+            renderingEngine = new WordRenderingEngine(conversionConfig, fontIndex);
+            if (warm) {
+                renderingEngine.warmUp();
+            }
+        }
+        return renderingEngine;
+    }
+
+    PdfMemoryPolicy memoryPolicy() {
+        return new PdfMemoryPolicy(MERGE_MAX_MAIN_MEMORY_BYTES, workDir.resolve("scratch").toFile());
+    }
+
+    File outputFile(String name) {
+        return workDir.resolve(name).toFile();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.converter.ImageToPdfConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single image to PDF, per image size and source format
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageToPdfBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "LARGE"})
+    public BenchmarkCorpus.ImageSize size;
+
+    @Param({"jpg", "png", "bmp", "gif", "tif"})
+    public String format;
+
+    private ConverterEnvironment environment;
+    private ImageToPdfConverter converter;
+    private File sourceFile;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new ConverterEnvironment();
+        converter = new ImageToPdfConverter();
+        sourceFile = BenchmarkCorpus.image(size, format);
+        outputFile = environment.outputFile("image.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public File convert() throws ConversionException {
+        converter.convertToPdf(sourceFile, outputFile);
+        return outputFile;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.converter.MergeImagesToPdfConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many images merged into one PDF, with formats mixed as in a real upload
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergeImagesToPdfBenchmark {
+
+    private static final String[] FORMATS = {"jpg", "png", "bmp", "gif", "tif"};
+
+    @Param({"10", "50"})
+    public int images;
+
+    @Param({"SMALL", "MEDIUM"})
+    public BenchmarkCorpus.ImageSize size;
+
+    private ConverterEnvironment environment;
+    private MergeImagesToPdfConverter converter;
+    private List<File> sourceFiles;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new ConverterEnvironment();
+        converter = new MergeImagesToPdfConverter(environment.scheduler(),
+                environment.conversionConfig.getMergeWindowSize(), environment.memoryPolicy());
+
+        sourceFiles = new ArrayList<>();
+        for (int i = 0; i < images; i++) {
+            sourceFiles.add(BenchmarkCorpus.image(size, FORMATS[i % FORMATS.length]));
+        }
+        outputFile = environment.outputFile("merged-images.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public File merge() throws ConversionException {
+        converter.convertMultipleToPdf(sourceFiles, outputFile, "benchmark");
+        return outputFile;
+    }
+}
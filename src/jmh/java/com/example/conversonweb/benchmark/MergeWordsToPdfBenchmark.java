@@ -0,0 +1,65 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.converter.MergeWordsToPdfConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Several Word documents rendered in parallel and merged into one PDF
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergeWordsToPdfBenchmark {
+
+    @Param({"5"})
+    public int documents;
+
+    @Param({"1", "10"})
+    public int pages;
+
+    private ConverterEnvironment environment;
+    private MergeWordsToPdfConverter converter;
+    private List<File> sourceFiles;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new ConverterEnvironment();
+        converter = new MergeWordsToPdfConverter(environment.scheduler(), environment.memoryPolicy(),
+                environment.renderingEngine(true));
+        sourceFiles = Collections.nCopies(documents, BenchmarkCorpus.document(pages));
+        outputFile = environment.outputFile("merged-documents.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public File merge() throws ConversionException {
+        converter.convertMultipleToPdf(sourceFiles, outputFile, "benchmark");
+        return outputFile;
+    }
+}
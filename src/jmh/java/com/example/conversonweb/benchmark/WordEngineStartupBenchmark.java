@@ -0,0 +1,62 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.converter.WordToPdfConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to the first Word conversion in a fresh JVM: the latency of the first
+ * request after a deploy. "cold" skips the engine warm-up (only the font index
+ * is loaded, as at startup); "warm" runs the warm-up first, outside the
+ * measurement, as the application does once it is ready.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+@State(Scope.Benchmark)
+public class WordEngineStartupBenchmark {
+
+    @Param({"cold", "warm"})
+    public String engine;
+
+    private ConverterEnvironment environment;
+    private WordToPdfConverter converter;
+    private File sourceFile;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new ConverterEnvironment();
+        converter = new WordToPdfConverter(environment.renderingEngine(engine.equals("warm")));
+        sourceFile = BenchmarkCorpus.document(1);
+        outputFile = environment.outputFile("first.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public File firstConversion() throws ConversionException {
+        converter.convertToPdf(sourceFile, outputFile);
+        return outputFile;
+    }
+}
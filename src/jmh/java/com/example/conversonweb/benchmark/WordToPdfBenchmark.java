@@ -0,0 +1,59 @@
+package com.example.conversonweb.benchmark;
+
+import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.converter.WordToPdfConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single Word document to PDF on a warmed rendering engine, per page count
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WordToPdfBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int pages;
+
+    private ConverterEnvironment environment;
+    private WordToPdfConverter converter;
+    private File sourceFile;
+    private File outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        environment = new ConverterEnvironment();
+        converter = new WordToPdfConverter(environment.renderingEngine(true));
+        sourceFile = BenchmarkCorpus.document(pages);
+        outputFile = environment.outputFile("document.pdf");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        environment.close();
+    }
+
+    @Benchmark
+    public File convert() throws ConversionException {
+        converter.convertToPdf(sourceFile, outputFile);
+        return outputFile;
+    }
+}
@@ -1,15 +1,18 @@
 package com.example.conversonweb;
 
+import com.example.conversonweb.infrastructure.rendering.FontIndex;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Spring Boot Application
  * Conversor de Archivos a PDF - Versión Web
  */
 @SpringBootApplication
-@EnableAsync
+@EnableScheduling
 public class ConversonWebApplication {
 
     public static void main(String[] args) {
@@ -20,4 +23,13 @@ public class ConversonWebApplication {
         System.out.println("  URL: http://localhost:8080");
         System.out.println("========================================\n");
     }
+
+    /**
+     * Startup phase: builds the font index once all beans exist but before the
+     * web server accepts requests, so no conversion pays for the font scan
+     */
+    @Bean
+    public SmartInitializingSingleton fontIndexLoader(FontIndex fontIndex) {
+        return fontIndex::load;
+    }
 }
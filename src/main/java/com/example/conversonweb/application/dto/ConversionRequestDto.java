@@ -1,8 +1,13 @@
 package com.example.conversonweb.application.dto;
 
 import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.ImageOptions;
 import lombok.Data;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import java.util.List;
@@ -18,4 +23,22 @@ public class ConversionRequestDto {
 
     @NotNull(message = "Conversion type is required")
     private ConversionType conversionType;
+
+    // Image optimisation (image conversions only, all optional)
+
+    @Min(value = 36, message = "Target DPI must be at least 36")
+    @Max(value = 1200, message = "Target DPI must be at most 1200")
+    private Integer targetDpi;
+
+    @DecimalMin(value = "0.05", message = "JPEG quality must be between 0.05 and 1.0")
+    @DecimalMax(value = "1.0", message = "JPEG quality must be between 0.05 and 1.0")
+    private Float jpegQuality;
+
+    private boolean detectGrayscale;
+
+    private boolean detectBilevel;
+
+    public ImageOptions toImageOptions() {
+        return new ImageOptions(targetDpi, jpegQuality, detectGrayscale, detectBilevel);
+    }
 }
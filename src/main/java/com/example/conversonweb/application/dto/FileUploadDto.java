@@ -18,4 +18,6 @@ public class FileUploadDto {
     private long size;
     private String contentType;
     private String storedPath;
+    private String sha256;
+    private boolean deduplicated;
 }
@@ -0,0 +1,305 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of converted PDFs.
+ * Keys are a SHA-256 of the conversion type, converter options and the
+ * source bytes, so a repeated upload of the same file becomes a hard link
+ * (or copy) instead of a full conversion.
+ * Entries live under {output-dir}/.cache and are evicted least recently used
+ * first when the cache exceeds its size budget or an entry exceeds its max age.
+ *
+ * Recency is kept in memory only. Restored outputs are hard links to the entry's
+ * file, so touching it would also change their modification time, and with it the
+ * ETag and Last-Modified their downloads are validated against. After a restart an
+ * entry counts as last used when it was stored.
+ *
+ * Published as conversion.cache.gets (result hit or miss), conversion.cache.evictions,
+ * conversion.cache.size (entries) and conversion.cache.bytes.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ConversionCacheService implements MeterBinder {
+
+    private static final String CACHE_DIR_NAME = ".cache";
+    private static final String ENTRY_SUFFIX = ".pdf";
+
+    private final FileStorageService fileStorageService;
+    private final ConversionConfig conversionConfig;
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private Path cacheLocation;
+    private long totalBytes;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("conversion.cache.gets", hits, AtomicLong::get)
+                .description("Conversions served from the cache")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("conversion.cache.gets", misses, AtomicLong::get)
+                .description("Conversions not found in the cache")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("conversion.cache.evictions", evictions, AtomicLong::get)
+                .description("Cache entries evicted by age or size budget")
+                .register(registry);
+        Gauge.builder("conversion.cache.size", this, cache -> cache.getStats().entries())
+                .description("Entries in the conversion cache")
+                .register(registry);
+        Gauge.builder("conversion.cache.bytes", this, cache -> cache.getStats().bytes())
+                .description("Bytes in the conversion cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            log.info("Conversion cache disabled");
+            return;
+        }
+
+        try {
+            cacheLocation = fileStorageService.getOutputLocation().resolve(CACHE_DIR_NAME);
+            Files.createDirectories(cacheLocation);
+            loadExistingEntries();
+            log.info("Conversion cache at {} ({} entries, {} MB)",
+                    cacheLocation, entries.size(), totalBytes / (1024 * 1024));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize conversion cache", e);
+        }
+    }
+
+    /**
+     * Computes the cache key for a conversion, or null when caching is disabled
+     * or the sources cannot be read
+     */
+    public String cacheKey(ConversionType conversionType, String options, List<File> sourceFiles) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = newSha256();
+            digest.update(conversionType.name().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update((options != null ? options : "").getBytes(StandardCharsets.UTF_8));
+            for (File sourceFile : sourceFiles) {
+                digest.update((byte) 0);
+                digest.update(HexFormat.of().parseHex(fileStorageService.sha256(sourceFile)));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            log.warn("Could not hash sources for conversion cache: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Materializes a cached result at outputFile.
+     *
+     * @return true on a cache hit, false if the conversion must run
+     */
+    public boolean restore(String key, File outputFile) {
+        if (key == null) {
+            return false;
+        }
+
+        Path cachedFile = entryPath(key);
+        synchronized (this) {
+            CacheEntry entry = entries.get(key);
+            if (entry == null || !Files.exists(cachedFile)) {
+                misses.incrementAndGet();
+                return false;
+            }
+            if (isExpired(entry)) {
+                evict(key);
+                misses.incrementAndGet();
+                return false;
+            }
+            entry.lastAccess = System.currentTimeMillis();
+        }
+
+        try {
+            linkOrCopy(cachedFile, outputFile.toPath());
+            hits.incrementAndGet();
+            log.debug("Conversion cache hit {} -> {}", key, outputFile.getName());
+            return true;
+        } catch (IOException e) {
+            log.warn("Could not restore cached conversion {}: {}", key, e.getMessage());
+            misses.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Stores a freshly converted output under the given key
+     */
+    public void store(String key, File outputFile) {
+        if (key == null || !outputFile.exists()) {
+            return;
+        }
+
+        Path cachedFile = entryPath(key);
+        try {
+            // Write under a temp name and move into place so readers never see partial files
+            Path tempFile = Files.createTempFile(cacheLocation, key, ".tmp");
+            try {
+                Files.copy(outputFile.toPath(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tempFile, cachedFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+
+            long size = Files.size(cachedFile);
+            synchronized (this) {
+                CacheEntry previous = entries.put(key, new CacheEntry(size, System.currentTimeMillis()));
+                if (previous != null) {
+                    totalBytes -= previous.size;
+                }
+                totalBytes += size;
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Could not store conversion {} in cache: {}", key, e.getMessage());
+        }
+    }
+
+    public synchronized CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get(), entries.size(), totalBytes);
+    }
+
+    private boolean isEnabled() {
+        return conversionConfig.getCache().isEnabled();
+    }
+
+    private Path entryPath(String key) {
+        return cacheLocation.resolve(key + ENTRY_SUFFIX);
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        long maxAgeMillis = conversionConfig.getCache().getMaxAgeHours() * 3600_000L;
+        return System.currentTimeMillis() - entry.lastAccess > maxAgeMillis;
+    }
+
+    /**
+     * Drops expired entries, then least recently used ones until under the size budget.
+     * Caller must hold the lock.
+     */
+    private void evictIfNeeded() {
+        long maxBytes = conversionConfig.getCache().getMaxSizeMb() * 1024 * 1024;
+
+        List<String> victims = new ArrayList<>();
+        long remaining = totalBytes;
+        Iterator<Map.Entry<String, CacheEntry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, CacheEntry> candidate = it.next();
+            if (remaining <= maxBytes && !isExpired(candidate.getValue())) {
+                break;
+            }
+            victims.add(candidate.getKey());
+            remaining -= candidate.getValue().size;
+        }
+
+        victims.forEach(this::evict);
+    }
+
+    private void evict(String key) {
+        CacheEntry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        totalBytes -= entry.size;
+        evictions.incrementAndGet();
+        try {
+            Files.deleteIfExists(entryPath(key));
+        } catch (IOException e) {
+            log.warn("Could not delete evicted cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void loadExistingEntries() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheLocation, "*" + ENTRY_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+
+        // Insert oldest first so the access order follows the time each entry was stored
+        files.sort((a, b) -> a.toFile().lastModified() < b.toFile().lastModified() ? -1 : 1);
+        synchronized (this) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String key = name.substring(0, name.length() - ENTRY_SUFFIX.length());
+                long size = Files.size(file);
+                entries.put(key, new CacheEntry(size, file.toFile().lastModified()));
+                totalBytes += size;
+            }
+            evictIfNeeded();
+        }
+    }
+
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static class CacheEntry {
+        final long size;
+        long lastAccess;
+
+        CacheEntry(long size, long lastAccess) {
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    public record CacheStats(long hits, long misses, long evictions, int entries, long bytes) {
+    }
+}
@@ -1,87 +1,218 @@
 package com.example.conversonweb.application.service;
 
+import com.example.conversonweb.config.ConversionConfig;
 import com.example.conversonweb.domain.exception.ConversionException;
 import com.example.conversonweb.domain.model.ConversionResult;
 import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.ImageOptions;
 import com.example.conversonweb.domain.service.FileConverter;
 import com.example.conversonweb.infrastructure.converter.MergeImagesToPdfConverter;
+import com.example.conversonweb.infrastructure.converter.MergeProgressListener;
 import com.example.conversonweb.infrastructure.converter.MergeWordsToPdfConverter;
 import com.example.conversonweb.infrastructure.factory.ConverterFactory;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.JobTraces;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import com.example.conversonweb.infrastructure.scheduling.JobScheduler;
+import com.example.conversonweb.infrastructure.scheduling.SchedulerSaturatedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main conversion service with async support and WebSocket progress updates
  * Supports both individual conversions and merge operations
+ * Jobs run on the {@link JobScheduler}, which orders them by estimated cost and client
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ConversionService {
 
+    // Rough single-thread cost of converting one file: fixed overhead plus a rate per MB
+    private static final long WORD_FILE_COST_MS = 400;
+    private static final long WORD_MB_COST_MS = 600;
+    private static final long IMAGE_FILE_COST_MS = 30;
+    private static final long IMAGE_MB_COST_MS = 80;
+
+    // How often a file waiting for a free slot of its job checks whether the job was cancelled
+    private static final long JOB_SLOT_POLL_MILLIS = 200;
+
     private final ConverterFactory converterFactory;
     private final FileStorageService fileStorageService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final ConversionScheduler conversionScheduler;
+    private final ConversionConfig conversionConfig;
+    private final ConversionCacheService conversionCache;
+    private final JobScheduler jobScheduler;
+    private final ConversionMetrics conversionMetrics;
+    private final JobTraces jobTraces;
 
     /**
      * Converts files asynchronously with progress updates via WebSocket
-     * Handles both individual and merge operations
+     * Handles both individual and merge operations; image options only apply to image conversions
+     *
+     * @param clientId who submitted the job, for fair sharing between clients
+     * @throws SchedulerSaturatedException if the job queue is full; nothing has started then
      */
-    @Async
     public CompletableFuture<ConversionResult> convertFilesAsync(
             List<File> sourceFiles,
             ConversionType conversionType,
-            String jobId) {
-
-        log.info("Starting async conversion job {} with {} files (type: {})",
-                jobId, sourceFiles.size(), conversionType);
-
-        try {
-            File outputDir = fileStorageService.getOutputDirectory(jobId);
-
-            // Check if it's a merge operation
-            if (conversionType.isMergeOperation()) {
-                return CompletableFuture.completedFuture(
-                        executeMergeConversion(sourceFiles, conversionType, outputDir, jobId));
-            } else {
-                return CompletableFuture.completedFuture(
-                        executeIndividualConversion(sourceFiles, conversionType, outputDir, jobId));
+            ImageOptions imageOptions,
+            String jobId,
+            String clientId) {
+
+        long costMs = estimateCostMs(conversionType, sourceFiles);
+        log.info("Queueing conversion job {} with {} files (type: {}, estimated {} ms)",
+                jobId, sourceFiles.size(), conversionType, costMs);
+
+        jobTraces.start(jobId, conversionType);
+        long queuedAt = System.nanoTime();
+        return jobScheduler.submit(jobId, clientId, costMs, () -> {
+            log.info("Starting conversion job {}", jobId);
+            conversionMetrics.recordStage(conversionType, jobId, ConversionStage.QUEUE_WAIT, null, queuedAt);
+            try {
+                File outputDir = fileStorageService.getOutputDirectory(jobId);
+
+                // Check if it's a merge operation
+                ConversionResult result = conversionType.isMergeOperation()
+                        ? executeMergeConversion(sourceFiles, conversionType, imageOptions, outputDir, jobId)
+                        : executeIndividualConversion(sourceFiles, conversionType, imageOptions, outputDir, jobId);
+                countBytes(conversionType, sourceFiles, result);
+                return result;
+
+            } catch (Exception e) {
+                logJobFailure(jobId, e);
+                throw e;
+            } finally {
+                jobTraces.finish(jobId);
+                discardIfCancelled(jobId);
             }
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Error in conversion job {}", jobId, e);
-            return CompletableFuture.failedFuture(e);
+    /**
+     * Cancels a queued or running job. Queued jobs never start; running ones stop at
+     * their next cancellation check, between files or pages, and their partial output
+     * is deleted. The job's future completes with a CancellationException.
+     *
+     * @return false if the job is not queued or running here, e.g. already finished
+     */
+    public boolean cancelJob(String jobId) {
+        // The conversion scheduler is the one record of cancelled jobs. It is marked
+        // before the runner is interrupted, so the job knows why it was stopped;
+        // streaming uploads also convert files before the job itself is queued
+        if (!jobScheduler.cancel(jobId, () -> conversionScheduler.cancelJob(jobId))) {
+            return false;
         }
+        deleteOutputs(jobId);
+
+        messagingTemplate.convertAndSend("/topic/completion/" + jobId,
+                new CompletionMessage(jobId, "Conversión cancelada", 0, 0));
+        log.info("Cancelled conversion job {}", jobId);
+        return true;
+    }
+
+    /**
+     * Completes once nothing of a job reads its source files any more: its runner has
+     * returned and its conversion tasks have stopped. The future of a cancelled or
+     * failed job completes earlier, while interrupted work may still be reading them.
+     */
+    public CompletableFuture<Void> whenStopped(String jobId) {
+        return jobScheduler.whenStopped(jobId).thenCompose(stopped -> conversionScheduler.whenDrained(jobId));
+    }
+
+    /**
+     * Whether the job was cancelled, including jobs that have since stopped
+     */
+    public boolean isCancelled(String jobId) {
+        return conversionScheduler.isCancelled(jobId);
+    }
+
+    /**
+     * Starts a conversion whose source files are not all known yet, e.g. while they
+     * are still being uploaded. Individual conversions start as soon as each file is
+     * added; merges need the complete, ordered file list and run when finished.
+     * The job's place in the job queue is reserved right away, so it cannot be
+     * turned away once the upload is complete.
+     *
+     * @throws SchedulerSaturatedException if the job queue is full
+     */
+    public StreamingConversion startStreamingConversion(ConversionType conversionType, String jobId,
+            String clientId) throws IOException {
+        File outputDir = fileStorageService.getOutputDirectory(jobId);
+        JobScheduler.Reservation reservation = jobScheduler.reserve(jobId, clientId);
+        jobTraces.start(jobId, conversionType);
+        log.info("Starting streaming conversion job {} (type: {})", jobId, conversionType);
+        return new StreamingConversion(conversionType, ImageOptions.ORIGINAL, outputDir, jobId, reservation);
+    }
+
+    /**
+     * Completes a streaming conversion once its last file has been added
+     */
+    public CompletableFuture<ConversionResult> finishStreamingConversionAsync(StreamingConversion conversion) {
+        long costMs = estimateCostMs(conversion.conversionType, conversion.sourceFiles);
+        long queuedAt = System.nanoTime();
+        return conversion.reservation.submit(costMs, () -> {
+            conversionMetrics.recordStage(conversion.conversionType, conversion.jobId, ConversionStage.QUEUE_WAIT,
+                    null, queuedAt);
+            try {
+                ConversionResult result = conversion.finish();
+                countBytes(conversion.conversionType, conversion.sourceFiles, result);
+                return result;
+            } catch (Exception e) {
+                logJobFailure(conversion.jobId, e);
+                throw e;
+            } finally {
+                jobTraces.finish(conversion.jobId);
+                discardIfCancelled(conversion.jobId);
+            }
+        });
     }
 
     /**
      * Executes merge conversion: multiple files -> ONE PDF
      */
     private ConversionResult executeMergeConversion(List<File> sourceFiles, ConversionType conversionType,
-            File outputDir, String jobId) {
+            ImageOptions imageOptions, File outputDir, String jobId) {
         try {
             String outputFileName = "merged_" + System.currentTimeMillis() + ".pdf";
             File outputFile = new File(outputDir, outputFileName);
 
             sendProgressUpdate(jobId, 0, sourceFiles.size(), "Iniciando combinación...", "processing");
 
-            // Use appropriate merge converter
-            if (conversionType == ConversionType.MERGE_IMAGES_TO_PDF) {
+            // Repeated merges of the same files in the same order are served from the cache
+            String cacheKey = conversionCache.cacheKey(conversionType, cacheOptions(conversionType, imageOptions),
+                    sourceFiles);
+            if (conversionCache.restore(cacheKey, outputFile)) {
+                log.info("Merge of {} files served from conversion cache", sourceFiles.size());
+            } else if (conversionType == ConversionType.MERGE_IMAGES_TO_PDF) {
+                // Use appropriate merge converter
                 log.info("Merging {} images into single PDF", sourceFiles.size());
-                MergeImagesToPdfConverter converter = new MergeImagesToPdfConverter();
-                converter.convertMultipleToPdf(sourceFiles, outputFile);
+                MergeImagesToPdfConverter converter = converterFactory.createImageMergeConverter(imageOptions,
+                        jobId);
+                converter.convertMultipleToPdf(sourceFiles, outputFile, jobId, mergeProgress(jobId));
+                conversionCache.store(cacheKey, outputFile);
             } else if (conversionType == ConversionType.MERGE_WORDS_TO_PDF) {
                 log.info("Merging {} Word documents into single PDF", sourceFiles.size());
-                MergeWordsToPdfConverter converter = new MergeWordsToPdfConverter();
-                converter.convertMultipleToPdf(sourceFiles, outputFile);
+                MergeWordsToPdfConverter converter = converterFactory.createWordMergeConverter(jobId);
+                converter.convertMultipleToPdf(sourceFiles, outputFile, jobId, mergeProgress(jobId));
+                conversionCache.store(cacheKey, outputFile);
             }
 
             sendProgressUpdate(jobId, sourceFiles.size(), sourceFiles.size(),
@@ -99,6 +230,9 @@ public class ConversionService {
             return result;
 
         } catch (Exception e) {
+            if (conversionScheduler.isCancelled(jobId)) {
+                throw new CancellationException("Job cancelled: " + jobId);
+            }
             log.error("Error in merge conversion", e);
             ConversionResult result = ConversionResult.builder()
                     .success(false)
@@ -114,82 +248,372 @@ public class ConversionService {
 
     /**
      * Executes individual conversion: multiple files -> multiple PDFs
+     * Files are fanned out on the conversion scheduler, at most parallel-files-per-job at a time
      */
     private ConversionResult executeIndividualConversion(List<File> sourceFiles, ConversionType conversionType,
-            File outputDir, String jobId) {
-        FileConverter converter = converterFactory.createConverter(conversionType);
-
-        int successCount = 0;
-        int failureCount = 0;
-        List<File> convertedFiles = new ArrayList<>();
-        List<String> errors = new ArrayList<>();
+            ImageOptions imageOptions, File outputDir, String jobId) throws InterruptedException {
+        IndividualConversion conversion = new IndividualConversion(conversionType, imageOptions, outputDir, jobId,
+                sourceFiles.size());
+        try {
+            for (File sourceFile : sourceFiles) {
+                conversion.submit(sourceFile);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            conversion.cancel();
+            throw e;
+        }
+        return conversion.collect();
+    }
 
-        for (int i = 0; i < sourceFiles.size(); i++) {
-            File sourceFile = sourceFiles.get(i);
-            String fileName = sourceFile.getName();
+    private FileOutcome convertSingleFile(FileConverter converter, ConversionType conversionType,
+            String cacheOptions, File sourceFile, File outputFile, JobProgress progress)
+            throws InterruptedException {
+        String fileName = sourceFile.getName();
 
-            // Send progress update via WebSocket
-            sendProgressUpdate(jobId, i + 1, sourceFiles.size(), fileName, "processing");
+        // Files still queued when their job is cancelled stop here
+        ConversionScheduler.checkCancelled();
 
-            try {
-                String outputFileName = generateOutputFileName(fileName);
-                File outputFile = new File(outputDir, outputFileName);
+        // Send progress update via WebSocket
+        progress.started(fileName);
 
+        try {
+            String cacheKey = conversionCache.cacheKey(conversionType, cacheOptions, List.of(sourceFile));
+            if (!conversionCache.restore(cacheKey, outputFile)) {
                 converter.convertToPdf(sourceFile, outputFile);
+                conversionCache.store(cacheKey, outputFile);
+            }
 
-                successCount++;
-                convertedFiles.add(outputFile);
-
-                sendProgressUpdate(jobId, i + 1, sourceFiles.size(), fileName, "success");
-                log.info("Successfully converted: {}", fileName);
+            progress.finished(fileName, "success");
+            log.info("Successfully converted: {}", fileName);
+            return FileOutcome.converted(outputFile);
 
-            } catch (ConversionException e) {
-                failureCount++;
-                String errorMsg = String.format("%s: %s", fileName, e.getMessage());
-                errors.add(errorMsg);
+        } catch (ConversionException e) {
+            progress.finished(fileName, "failed");
+            log.error("Failed to convert: {}", fileName, e);
+            return FileOutcome.failed(String.format("%s: %s", fileName, e.getMessage()));
+        }
+    }
 
-                sendProgressUpdate(jobId, i + 1, sourceFiles.size(), fileName, "failed");
-                log.error("Failed to convert: {}", fileName, e);
-            }
+    /**
+     * Work already running when its job was cancelled may still write files; this
+     * runs once the job itself has stopped
+     */
+    private void discardIfCancelled(String jobId) {
+        if (conversionScheduler.isCancelled(jobId)) {
+            deleteOutputs(jobId);
         }
+    }
 
-        ConversionResult result = ConversionResult.builder()
-                .success(failureCount == 0)
-                .successCount(successCount)
-                .failureCount(failureCount)
-                .convertedFiles(convertedFiles)
-                .errors(errors)
-                .build();
+    private void deleteOutputs(String jobId) {
+        try {
+            fileStorageService.deleteOutputDirectory(jobId);
+        } catch (IOException e) {
+            log.warn("Could not delete output of cancelled job {}: {}", jobId, e.toString());
+        }
+    }
 
-        // Send completion message
-        sendCompletionUpdate(jobId, result);
+    private void logJobFailure(String jobId, Exception e) {
+        if (conversionScheduler.isCancelled(jobId)) {
+            log.debug("Conversion job {} stopped after cancellation: {}", jobId, e.toString());
+        } else {
+            log.error("Error in conversion job {}", jobId, e);
+        }
+    }
 
-        return result;
+    private void countBytes(ConversionType conversionType, List<File> sourceFiles, ConversionResult result) {
+        conversionMetrics.countInput(conversionType, sourceFiles.stream().mapToLong(File::length).sum());
+        conversionMetrics.countOutput(conversionType, result.getConvertedFiles().stream().mapToLong(File::length).sum());
     }
 
     private void sendProgressUpdate(String jobId, int current, int total, String fileName, String status) {
+        sendProgressUpdate(jobId, current, total, fileName, status, 0);
+    }
+
+    private void sendProgressUpdate(String jobId, int current, int total, String fileName, String status,
+            int pages) {
         var message = new ProgressMessage(jobId, current, total, fileName, status,
-                (int) ((current * 100.0) / total));
+                (int) ((current * 100.0) / total), pages);
         messagingTemplate.convertAndSend("/topic/progress/" + jobId, message);
     }
 
+    /**
+     * Reports merged pages as they are appended, so clients see the output grow
+     * instead of a single jump at the end
+     */
+    private MergeProgressListener mergeProgress(String jobId) {
+        return (completedSources, totalSources, pages, fileName) ->
+                sendProgressUpdate(jobId, completedSources, totalSources, fileName, "merged", pages);
+    }
+
     private void sendCompletionUpdate(String jobId, ConversionResult result) {
         var message = new CompletionMessage(jobId, result.getSummary(),
                 result.getSuccessCount(), result.getFailureCount());
         messagingTemplate.convertAndSend("/topic/completion/" + jobId, message);
     }
 
+    /**
+     * Estimated single-thread work for a job, used to order the job queue. Only the
+     * relative size matters; the scheduler calibrates it against measured run times.
+     */
+    static long estimateCostMs(ConversionType conversionType, List<File> sourceFiles) {
+        boolean word = conversionType == ConversionType.WORD_TO_PDF
+                || conversionType == ConversionType.MERGE_WORDS_TO_PDF;
+        long fileCost = word ? WORD_FILE_COST_MS : IMAGE_FILE_COST_MS;
+        long megabyteCost = word ? WORD_MB_COST_MS : IMAGE_MB_COST_MS;
+
+        long costMs = 0;
+        for (File sourceFile : sourceFiles) {
+            costMs += fileCost + sourceFile.length() * megabyteCost / (1024 * 1024);
+        }
+        return costMs;
+    }
+
+    /**
+     * Image options change image output only, so Word conversions keep one cache entry
+     */
+    private static String cacheOptions(ConversionType conversionType, ImageOptions imageOptions) {
+        boolean imageConversion = conversionType == ConversionType.IMAGE_TO_PDF
+                || conversionType == ConversionType.MERGE_IMAGES_TO_PDF;
+        return imageConversion ? imageOptions.cacheKey() : null;
+    }
+
     private String generateOutputFileName(String sourceFileName) {
         int lastDot = sourceFileName.lastIndexOf('.');
         String baseName = lastDot > 0 ? sourceFileName.substring(0, lastDot) : sourceFileName;
         return baseName + ".pdf";
     }
 
+    private String uniqueOutputFileName(String outputFileName, Set<String> usedNames) {
+        String candidate = outputFileName;
+        String baseName = outputFileName.substring(0, outputFileName.length() - ".pdf".length());
+        for (int copy = 2; !usedNames.add(candidate); copy++) {
+            candidate = baseName + "_" + copy + ".pdf";
+        }
+        return candidate;
+    }
+
     // Inner classes for WebSocket messages
     record ProgressMessage(String jobId, int current, int total, String fileName,
-            String status, int progress) {
+            String status, int progress, int pages) {
     }
 
     record CompletionMessage(String jobId, String message, int successCount, int failureCount) {
     }
+
+    record FileOutcome(File outputFile, String error) {
+        static FileOutcome converted(File outputFile) {
+            return new FileOutcome(outputFile, null);
+        }
+
+        static FileOutcome failed(String error) {
+            return new FileOutcome(null, error);
+        }
+    }
+
+    /**
+     * Conversion fed one source file at a time. Not thread-safe: files are added by
+     * a single thread, which then hands the conversion over to be finished.
+     */
+    public class StreamingConversion {
+        private final ConversionType conversionType;
+        private final ImageOptions imageOptions;
+        private final File outputDir;
+        private final String jobId;
+        private final List<File> sourceFiles = new ArrayList<>();
+        private final IndividualConversion individualConversion;
+        private final JobScheduler.Reservation reservation;
+
+        StreamingConversion(ConversionType conversionType, ImageOptions imageOptions, File outputDir, String jobId,
+                JobScheduler.Reservation reservation) {
+            this.conversionType = conversionType;
+            this.imageOptions = imageOptions;
+            this.outputDir = outputDir;
+            this.jobId = jobId;
+            this.reservation = reservation;
+            this.individualConversion = conversionType.isMergeOperation()
+                    ? null
+                    : new IndividualConversion(conversionType, imageOptions, outputDir, jobId, 0);
+        }
+
+        /**
+         * Adds a source file. Blocks while the job already has parallel-files-per-job
+         * conversions in flight, which in turn slows down the upload feeding it.
+         */
+        public void add(File sourceFile) throws InterruptedException {
+            if (individualConversion != null) {
+                individualConversion.submit(sourceFile);
+            }
+            sourceFiles.add(sourceFile);
+        }
+
+        public int size() {
+            return sourceFiles.size();
+        }
+
+        /**
+         * Cancels conversions already started and gives up the job's queue slot,
+         * for when the upload fails midway or brings no files
+         */
+        public void abort() {
+            if (individualConversion != null) {
+                individualConversion.cancel();
+            }
+            reservation.release();
+        }
+
+        ConversionResult finish() throws InterruptedException {
+            if (individualConversion == null) {
+                return executeMergeConversion(sourceFiles, conversionType, imageOptions, outputDir, jobId);
+            }
+            return individualConversion.collect();
+        }
+    }
+
+    /**
+     * One job's files on the conversion scheduler, at most parallel-files-per-job at a time.
+     * Outcomes are collected in submission order so results match the file list.
+     */
+    private class IndividualConversion {
+        private final FileConverter converter;
+        private final ConversionType conversionType;
+        private final String cacheOptions;
+        private final File outputDir;
+        private final String jobId;
+        private final ConversionScheduler.Lane lane;
+        private final Semaphore jobSlots;
+        private final JobProgress progress;
+        private final List<File> sourceFiles = new ArrayList<>();
+        private final List<Future<FileOutcome>> futures = new ArrayList<>();
+        private final Set<String> outputFileNames = new HashSet<>();
+
+        IndividualConversion(ConversionType conversionType, ImageOptions imageOptions, File outputDir, String jobId,
+                int expectedFiles) {
+            this.converter = converterFactory.createConverter(conversionType, imageOptions, jobId);
+            this.conversionType = conversionType;
+            this.cacheOptions = cacheOptions(conversionType, imageOptions);
+            this.outputDir = outputDir;
+            this.jobId = jobId;
+            this.lane = conversionType == ConversionType.WORD_TO_PDF
+                    ? ConversionScheduler.Lane.DOCUMENT
+                    : ConversionScheduler.Lane.CPU;
+            this.jobSlots = new Semaphore(Math.max(1, conversionConfig.getParallelFilesPerJob()));
+            this.progress = new JobProgress(jobId, expectedFiles);
+        }
+
+        void submit(File sourceFile) throws InterruptedException {
+            // Identical uploads share a stored file, so keep their outputs apart
+            File outputFile = new File(outputDir,
+                    uniqueOutputFileName(generateOutputFileName(sourceFile.getName()), outputFileNames));
+            progress.expect(sourceFiles.size() + 1);
+
+            long submittedAt = System.nanoTime();
+            acquireJobSlot();
+            try {
+                // The slot is returned however the task ends: a task cancelled while queued never runs
+                futures.add(conversionScheduler.submit(jobId, lane, () -> {
+                    conversionMetrics.recordStage(conversionType, jobId, ConversionStage.SCHEDULE_WAIT, sourceFile,
+                            submittedAt);
+                    return convertSingleFile(converter, conversionType, cacheOptions, sourceFile, outputFile,
+                            progress);
+                }, jobSlots::release));
+            } catch (InterruptedException | RuntimeException e) {
+                jobSlots.release();
+                throw e;
+            }
+            sourceFiles.add(sourceFile);
+        }
+
+        /**
+         * Waits for a free slot, giving up once the job is cancelled
+         *
+         * @throws CancellationException if the job has been cancelled
+         */
+        private void acquireJobSlot() throws InterruptedException {
+            checkNotCancelled();
+            while (!jobSlots.tryAcquire(JOB_SLOT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkNotCancelled();
+            }
+        }
+
+        private void checkNotCancelled() {
+            if (conversionScheduler.isCancelled(jobId)) {
+                throw new CancellationException("Job cancelled: " + jobId);
+            }
+        }
+
+        void cancel() {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        ConversionResult collect() throws InterruptedException {
+            int successCount = 0;
+            int failureCount = 0;
+            List<File> convertedFiles = new ArrayList<>();
+            List<String> errors = new ArrayList<>();
+
+            for (int i = 0; i < futures.size(); i++) {
+                FileOutcome outcome;
+                try {
+                    outcome = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    String fileName = sourceFiles.get(i).getName();
+                    progress.finished(fileName, "failed");
+                    log.error("Failed to convert: {}", fileName, e.getCause());
+                    outcome = FileOutcome.failed(String.format("%s: %s", fileName, e.getCause().getMessage()));
+                }
+
+                if (outcome.outputFile() != null) {
+                    successCount++;
+                    convertedFiles.add(outcome.outputFile());
+                } else {
+                    failureCount++;
+                    errors.add(outcome.error());
+                }
+            }
+
+            ConversionResult result = ConversionResult.builder()
+                    .success(failureCount == 0)
+                    .successCount(successCount)
+                    .failureCount(failureCount)
+                    .convertedFiles(convertedFiles)
+                    .errors(errors)
+                    .build();
+
+            // Send completion message
+            sendCompletionUpdate(jobId, result);
+
+            return result;
+        }
+    }
+
+    /**
+     * Tracks completed files for a job so progress messages stay monotonic
+     * when files finish out of order on different threads
+     */
+    private class JobProgress {
+        private final String jobId;
+        private int total;
+        private int completed;
+
+        JobProgress(String jobId, int total) {
+            this.jobId = jobId;
+            this.total = total;
+        }
+
+        /**
+         * Raises the total when files keep arriving after the job started
+         */
+        synchronized void expect(int files) {
+            total = Math.max(total, files);
+        }
+
+        synchronized void started(String fileName) {
+            sendProgressUpdate(jobId, completed, total, fileName, "processing");
+        }
+
+        synchronized void finished(String fileName, String status) {
+            completed++;
+            sendProgressUpdate(jobId, completed, total, fileName, status);
+        }
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.conversonweb.application.service;
 
 import com.example.conversonweb.config.StorageConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.ConversionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -9,10 +11,28 @@ import org.springframework.web.multipart.MultipartFile;
 import jakarta.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for managing file storage (uploads and converted files)
@@ -22,22 +42,39 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class FileStorageService {
 
+    // Uploads are only accepted with an extension some conversion supports
+    private static final Set<String> SUPPORTED_EXTENSIONS = Arrays.stream(ConversionType.values())
+            .flatMap(type -> Arrays.stream(type.getSupportedExtensions()))
+            .collect(Collectors.toUnmodifiableSet());
+
+    // Uploads are written under this name until complete; the reaper never touches dot files
+    private static final String UPLOAD_TEMP_PREFIX = ".upload-";
+
     private final StorageConfig storageConfig;
     private Path uploadLocation;
     private Path outputLocation;
+    private Path scratchLocation;
+
+    // Stored upload file name -> number of uploads sharing it / its SHA-256
+    private final Map<String, Integer> uploadReferences = new ConcurrentHashMap<>();
+    private final Map<String, String> uploadDigests = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
         try {
             uploadLocation = Paths.get(storageConfig.getUploadDir()).toAbsolutePath().normalize();
             outputLocation = Paths.get(storageConfig.getOutputDir()).toAbsolutePath().normalize();
+            scratchLocation = Paths.get(storageConfig.getScratchDir()).toAbsolutePath().normalize();
 
             Files.createDirectories(uploadLocation);
             Files.createDirectories(outputLocation);
+            Files.createDirectories(scratchLocation);
+            deleteAbandonedUploads();
 
             log.info("Storage locations initialized:");
             log.info("  Uploads: {}", uploadLocation);
             log.info("  Output:  {}", outputLocation);
+            log.info("  Scratch: {}", scratchLocation);
 
         } catch (IOException e) {
             throw new RuntimeException("Could not create storage directories", e);
@@ -45,44 +82,232 @@ public class FileStorageService {
     }
 
     /**
-     * Stores an uploaded file
+     * Temp files of uploads cut short by a restart; no upload is in flight yet
      */
-    public File storeUploadedFile(MultipartFile file) throws IOException {
-        String originalFilename = file.getOriginalFilename();
+    private void deleteAbandonedUploads() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(uploadLocation, UPLOAD_TEMP_PREFIX + "*")) {
+            stream.forEach(tempFile -> deleteQuietly(tempFile.toFile()));
+        }
+    }
+
+    /**
+     * Stores an uploaded file.
+     * Files are stored by content (sha256 + extension) and reference counted,
+     * so identical uploads share one copy on disk. Each upload still gets its own id.
+     *
+     * A part the container already spooled to disk is moved into the upload
+     * directory rather than copied (Part.write renames it where it can), and then
+     * read once for its digest. Parts held in memory are simply written out.
+     *
+     * @throws IllegalArgumentException if the file name has no supported extension
+     */
+    public StoredUpload storeUploadedFile(MultipartFile file) throws IOException {
+        String extension = getFileExtension(file.getOriginalFilename());
+        String uploadId = UUID.randomUUID().toString();
+
+        Path tempLocation = tempUploadPath(uploadId);
+        String sha256;
+        try {
+            // The File overload goes through Part.write; the Path one always copies the stream
+            file.transferTo(tempLocation.toFile());
+            sha256 = digest(tempLocation);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempLocation);
+            throw e;
+        }
+        return storeTempUpload(uploadId, file.getOriginalFilename(), extension, tempLocation, sha256);
+    }
+
+    /**
+     * Stores an upload read from a stream, e.g. one part of a streamed multipart body,
+     * hashing it while it is written. Same content addressing and reference counting
+     * as above; the stream is closed.
+     */
+    public StoredUpload storeUploadedFile(String originalFilename, InputStream content) throws IOException {
         String extension = getFileExtension(originalFilename);
-        String storedFilename = UUID.randomUUID().toString() + extension;
+        String uploadId = UUID.randomUUID().toString();
+
+        // Write to a private temp file first, computing the digest on the way
+        Path tempLocation = tempUploadPath(uploadId);
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(content, digest)) {
+            Files.copy(in, tempLocation, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempLocation);
+            throw e;
+        }
+        return storeTempUpload(uploadId, originalFilename, extension, tempLocation,
+                HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private Path tempUploadPath(String uploadId) {
+        return uploadLocation.resolve(UPLOAD_TEMP_PREFIX + uploadId + ".tmp");
+    }
 
+    /**
+     * Moves a complete upload's temp file to its content address, or drops it if
+     * an identical upload is already stored there
+     */
+    private StoredUpload storeTempUpload(String uploadId, String originalFilename, String extension,
+            Path tempLocation, String sha256) throws IOException {
+        String storedFilename = sha256 + extension;
         Path targetLocation = uploadLocation.resolve(storedFilename);
-        file.transferTo(targetLocation);
 
-        log.debug("Stored uploaded file: {} as {}", originalFilename, storedFilename);
-        return targetLocation.toFile();
+        // The first upload of this content moves its temp file into place, later ones just add a reference
+        int[] references = new int[1];
+        try {
+            uploadReferences.compute(storedFilename, (name, count) -> {
+                try {
+                    if (count == null || !Files.exists(targetLocation)) {
+                        Files.move(tempLocation, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+                        references[0] = 1;
+                    } else {
+                        Files.delete(tempLocation);
+                        references[0] = count + 1;
+                    }
+                    return references[0];
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(tempLocation);
+            throw e.getCause();
+        }
+        uploadDigests.put(storedFilename, sha256);
+
+        log.debug("Stored uploaded file: {} as {} ({} references)", originalFilename, storedFilename, references[0]);
+        return new StoredUpload(uploadId, targetLocation.toFile(), sha256, references[0] > 1);
+    }
+
+    /**
+     * Returns the SHA-256 of a file, reusing the digest computed at upload time when available
+     */
+    public String sha256(File file) throws IOException {
+        if (isUpload(file)) {
+            String known = uploadDigests.get(file.getName());
+            if (known != null) {
+                return known;
+            }
+        }
+
+        return digest(file.toPath());
+    }
+
+    private static String digest(Path file) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
     }
 
     /**
      * Gets or creates output directory for a conversion job
      */
     public File getOutputDirectory(String jobId) throws IOException {
-        Path jobOutputDir = outputLocation.resolve(jobId);
+        Path jobOutputDir = resolveJobDirectory(jobId);
         Files.createDirectories(jobOutputDir);
         return jobOutputDir.toFile();
     }
 
     /**
-     * Gets a file from output directory
+     * Deletes a job's output directory and everything in it, e.g. the partial
+     * output of a cancelled job
+     */
+    public void deleteOutputDirectory(String jobId) throws IOException {
+        Path jobOutputDir = resolveJobDirectory(jobId);
+        if (!Files.isDirectory(jobOutputDir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(jobOutputDir)) {
+            // Deepest entries first, so directories are empty when their turn comes
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (NoSuchFileException e) {
+            // Deleted concurrently, e.g. by the cancelled job's own cleanup
+            return;
+        }
+        log.debug("Deleted output directory of job {}", jobId);
+    }
+
+    /**
+     * Gets a file from a job's output directory.
+     * Rejects names that would resolve anywhere else (traversal, dot entries).
+     *
+     * @throws IllegalArgumentException for an invalid job id or file name
      */
     public File getOutputFile(String jobId, String filename) {
-        return outputLocation.resolve(jobId).resolve(filename).toFile();
+        Path jobOutputDir = resolveJobDirectory(jobId);
+        if (filename == null || filename.isEmpty() || filename.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid file name: " + filename);
+        }
+
+        Path file = jobOutputDir.resolve(filename).normalize();
+        if (!jobOutputDir.equals(file.getParent())) {
+            throw new IllegalArgumentException("Invalid file name: " + filename);
+        }
+        return file.toFile();
     }
 
     /**
-     * Deletes a file
+     * Deletes a file. Shared uploads are only removed once their last reference is released.
      */
     public void deleteFile(File file) {
-        if (file != null && file.exists()) {
-            file.delete();
-            log.debug("Deleted file: {}", file.getName());
+        if (file == null) {
+            return;
         }
+        if (!isUpload(file)) {
+            deleteQuietly(file);
+            return;
+        }
+
+        // Released and deleted under the same entry lock storeUploadedFile takes, so an
+        // identical upload cannot re-reference the file between the two
+        boolean[] lastReference = { true };
+        uploadReferences.compute(file.getName(), (name, count) -> {
+            if (count != null && count > 1) {
+                lastReference[0] = false;
+                return count - 1;
+            }
+            uploadDigests.remove(name);
+            deleteQuietly(file);
+            return null;
+        });
+
+        if (!lastReference[0]) {
+            log.debug("Released reference to shared file: {}", file.getName());
+        }
+    }
+
+    /**
+     * True while an upload stored in the upload directory still has live references
+     */
+    public boolean isReferenced(File file) {
+        return isUpload(file) && uploadReferences.containsKey(file.getName());
+    }
+
+    /**
+     * Deletes a stored upload unless it has live references, checking and deleting
+     * atomically with respect to new references from identical uploads
+     *
+     * @return true if the file was deleted
+     */
+    public boolean deleteUnreferencedUpload(File file) {
+        if (!isUpload(file) || file.getName().startsWith(".")) {
+            return false;
+        }
+        boolean[] deleted = { false };
+        uploadReferences.compute(file.getName(), (name, count) -> {
+            if (count != null) {
+                return count;
+            }
+            uploadDigests.remove(name);
+            deleted[0] = deleteQuietly(file);
+            return null;
+        });
+        return deleted[0];
     }
 
     /**
@@ -99,10 +324,64 @@ public class FileStorageService {
         return outputLocation;
     }
 
-    private String getFileExtension(String filename) {
-        if (filename == null)
-            return "";
-        int lastDot = filename.lastIndexOf('.');
-        return (lastDot > 0) ? filename.substring(lastDot) : "";
+    /**
+     * Gets scratch directory
+     */
+    public Path getScratchLocation() {
+        return scratchLocation;
+    }
+
+    private Path resolveJobDirectory(String jobId) {
+        if (!ConversionJob.isValidJobId(jobId)) {
+            throw new IllegalArgumentException("Invalid job id: " + jobId);
+        }
+        return outputLocation.resolve(jobId);
+    }
+
+    private boolean isUpload(File file) {
+        return uploadLocation.equals(file.toPath().toAbsolutePath().normalize().getParent());
+    }
+
+    private static boolean deleteQuietly(File file) {
+        try {
+            boolean deleted = Files.deleteIfExists(file.toPath());
+            if (deleted) {
+                log.debug("Deleted file: {}", file.getName());
+            }
+            return deleted;
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Lower-cased extension of a client-supplied file name. Any directory part is
+     * dropped first, and only supported extensions are accepted, so the stored
+     * name built from it always stays inside the upload directory.
+     */
+    static String getFileExtension(String filename) {
+        String name = filename != null ? filename : "";
+        name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\')) + 1);
+        int lastDot = name.lastIndexOf('.');
+        String extension = lastDot > 0 ? name.substring(lastDot).toLowerCase(Locale.ROOT) : "";
+        if (!SUPPORTED_EXTENSIONS.contains(extension)) {
+            throw new IllegalArgumentException("Tipo de archivo no soportado: " + name);
+        }
+        return extension;
+    }
+
+    /**
+     * Result of storing an upload: a unique id, the (possibly shared) stored file and its digest
+     */
+    public record StoredUpload(String id, File file, String sha256, boolean deduplicated) {
     }
 }
@@ -0,0 +1,336 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.StorageConfig;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Background cleanup of the upload, output and scratch directories.
+ *
+ * - Deletes uploads, job output directories and scratch files older than cleanup-hours
+ * - Enforces max-total-mb by deleting the oldest uploads and job outputs first
+ * - Walks each directory with a lazy DirectoryStream, so memory stays flat no
+ *   matter how many entries exist; only the oldest candidates for quota
+ *   eviction are kept, in a bounded heap
+ *
+ * Uploads still referenced, jobs still processing and the self-managed dot
+ * entries are never touched: {output-dir}/.cache, {output-dir}/.jobs and the
+ * .upload-*.tmp files of uploads still being written. Temp files left by a
+ * crash are removed by {@link FileStorageService} on startup.
+ *
+ * Each run is published on /actuator/prometheus: storage.reaper.reclaimed (bytes),
+ * storage.reaper.deleted per kind (upload, job, scratch) and storage.used, the
+ * bytes left in use after the last run.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class StorageReaper implements MeterBinder {
+
+    private static final int MAX_EVICTION_CANDIDATES = 1024;
+
+    private final FileStorageService fileStorageService;
+    private final StorageConfig storageConfig;
+    private final ConversionJobRepository jobRepository;
+
+    private final AtomicLong reclaimedBytes = new AtomicLong();
+    private final AtomicLong deletedUploads = new AtomicLong();
+    private final AtomicLong deletedJobs = new AtomicLong();
+    private final AtomicLong deletedScratchFiles = new AtomicLong();
+    private volatile ReapReport lastReport;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("storage.reaper.reclaimed", reclaimedBytes, AtomicLong::get)
+                .description("Bytes freed by the storage reaper")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        deletedCounter(registry, "upload", deletedUploads);
+        deletedCounter(registry, "job", deletedJobs);
+        deletedCounter(registry, "scratch", deletedScratchFiles);
+        Gauge.builder("storage.used", this,
+                        reaper -> reaper.lastReport != null ? reaper.lastReport.remainingBytes() : Double.NaN)
+                .description("Bytes in uploads, job outputs and scratch files after the last reaper run")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    private static void deletedCounter(MeterRegistry registry, String kind, AtomicLong count) {
+        FunctionCounter.builder("storage.reaper.deleted", count, AtomicLong::get)
+                .description("Uploads, job outputs and scratch files deleted by the storage reaper")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    @Scheduled(initialDelay = 1, fixedDelayString = "${app.storage.cleanup-interval-minutes:15}",
+            timeUnit = TimeUnit.MINUTES)
+    public void scheduledReap() {
+        reap();
+    }
+
+    /**
+     * Runs one cleanup pass and reports what it reclaimed
+     */
+    public synchronized ReapReport reap() {
+        long start = System.currentTimeMillis();
+        long cutoff = start - storageConfig.getCleanupHours() * 3600_000L;
+        Run run = new Run();
+
+        try {
+            reapUploads(cutoff, run);
+            reapOutputs(cutoff, run);
+            reapScratch(cutoff, run);
+            enforceQuota(run);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Storage reaper pass failed: {}", e.getMessage(), e);
+        }
+
+        ReapReport report = new ReapReport(run.reclaimedBytes, run.deletedUploads, run.deletedJobs,
+                run.deletedScratchFiles, run.totalBytes, System.currentTimeMillis() - start);
+        lastReport = report;
+        reclaimedBytes.addAndGet(report.reclaimedBytes());
+        deletedUploads.addAndGet(report.deletedUploads());
+        deletedJobs.addAndGet(report.deletedJobs());
+        deletedScratchFiles.addAndGet(report.deletedScratchFiles());
+
+        if (report.reclaimedBytes() > 0) {
+            log.info("Storage reaper reclaimed {} KB ({} uploads, {} jobs, {} scratch files) in {} ms, {} MB in use",
+                    report.reclaimedBytes() / 1024, report.deletedUploads(), report.deletedJobs(),
+                    report.deletedScratchFiles(), report.durationMillis(), report.remainingBytes() / (1024 * 1024));
+        } else {
+            log.debug("Storage reaper found nothing to reclaim in {} ms, {} MB in use",
+                    report.durationMillis(), report.remainingBytes() / (1024 * 1024));
+        }
+        return report;
+    }
+
+    private void reapUploads(long cutoff, Run run) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageService.getUploadLocation())) {
+            for (Path upload : stream) {
+                BasicFileAttributes attributes = readAttributes(upload);
+                if (attributes == null || !attributes.isRegularFile()) {
+                    continue;
+                }
+                if (upload.getFileName().toString().startsWith(".")) {
+                    // Still being written: it only gets a reference once moved into place
+                    run.totalBytes += attributes.size();
+                    continue;
+                }
+
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (fileStorageService.isReferenced(upload.toFile())) {
+                    run.totalBytes += attributes.size();
+                } else if (modified < cutoff) {
+                    long reclaimed = deleteUpload(upload, attributes.size());
+                    if (reclaimed > 0) {
+                        run.reclaimedBytes += reclaimed;
+                        run.deletedUploads++;
+                    } else {
+                        run.totalBytes += attributes.size();
+                    }
+                } else {
+                    run.totalBytes += attributes.size();
+                    run.offer(new Candidate(upload, false, attributes.size(), modified));
+                }
+            }
+        }
+    }
+
+    private void reapOutputs(long cutoff, Run run) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageService.getOutputLocation())) {
+            for (Path jobDir : stream) {
+                String jobId = jobDir.getFileName().toString();
+                BasicFileAttributes attributes = readAttributes(jobDir);
+                if (jobId.startsWith(".") || attributes == null || !attributes.isDirectory()) {
+                    continue;
+                }
+
+                long size = treeSize(jobDir);
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (isProcessing(jobId)) {
+                    run.totalBytes += size;
+                } else if (modified < cutoff) {
+                    run.reclaimedBytes += deleteJob(jobDir, size);
+                    run.deletedJobs++;
+                } else {
+                    run.totalBytes += size;
+                    run.offer(new Candidate(jobDir, true, size, modified));
+                }
+            }
+        }
+    }
+
+    /**
+     * Scratch files only outlive their merge after a crash, so old ones are always orphans
+     */
+    private void reapScratch(long cutoff, Run run) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(fileStorageService.getScratchLocation())) {
+            for (Path scratchFile : stream) {
+                BasicFileAttributes attributes = readAttributes(scratchFile);
+                if (attributes == null || !attributes.isRegularFile()) {
+                    continue;
+                }
+
+                if (attributes.lastModifiedTime().toMillis() < cutoff) {
+                    run.reclaimedBytes += deleteFile(scratchFile, attributes.size());
+                    run.deletedScratchFiles++;
+                } else {
+                    run.totalBytes += attributes.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest candidates until under quota. If every candidate goes and
+     * storage is still over quota, the next run continues with the next oldest.
+     */
+    private void enforceQuota(Run run) throws IOException {
+        long maxBytes = storageConfig.getMaxTotalMb() * 1024 * 1024;
+        if (maxBytes <= 0 || run.totalBytes <= maxBytes) {
+            return;
+        }
+
+        List<Candidate> oldestFirst = new ArrayList<>(run.candidates);
+        oldestFirst.sort(Comparator.comparingLong(Candidate::modified));
+
+        for (Candidate candidate : oldestFirst) {
+            if (run.totalBytes <= maxBytes) {
+                break;
+            }
+            long reclaimed;
+            if (candidate.jobDirectory()) {
+                // Re-check: the job may have been restarted since the walk
+                if (isProcessing(candidate.path().getFileName().toString())) {
+                    continue;
+                }
+                reclaimed = deleteJob(candidate.path(), candidate.size());
+                run.deletedJobs++;
+            } else {
+                reclaimed = deleteUpload(candidate.path(), candidate.size());
+                if (reclaimed == 0) {
+                    continue;
+                }
+                run.deletedUploads++;
+            }
+            run.reclaimedBytes += reclaimed;
+            run.totalBytes -= reclaimed;
+        }
+
+        if (run.totalBytes > maxBytes) {
+            log.warn("Storage still over quota after cleanup: {} MB of {} MB",
+                    run.totalBytes / (1024 * 1024), storageConfig.getMaxTotalMb());
+        }
+    }
+
+    private boolean isProcessing(String jobId) {
+        return jobRepository.findById(jobId)
+                .map(job -> !job.getStatus().isTerminal())
+                .orElse(false);
+    }
+
+    private long deleteJob(Path jobDir, long size) throws IOException {
+        long reclaimed = deleteTree(jobDir, size);
+        jobRepository.delete(jobDir.getFileName().toString());
+        return reclaimed;
+    }
+
+    private long deleteTree(Path root, long size) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Could not delete {}: {}", path, e.getMessage());
+                }
+            });
+        }
+        return Files.exists(root) ? 0 : size;
+    }
+
+    /**
+     * Deletes an upload unless an identical upload has referenced it meanwhile; the
+     * check and the delete happen under the storage service's reference lock
+     */
+    private long deleteUpload(Path upload, long size) {
+        return fileStorageService.deleteUnreferencedUpload(upload.toFile()) ? size : 0;
+    }
+
+    private long deleteFile(Path file, long size) {
+        try {
+            return Files.deleteIfExists(file) ? size : 0;
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+            return 0;
+        }
+    }
+
+    private long treeSize(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.mapToLong(path -> {
+                BasicFileAttributes attributes = readAttributes(path);
+                return attributes != null && attributes.isRegularFile() ? attributes.size() : 0;
+            }).sum();
+        }
+    }
+
+    /**
+     * Attributes of an entry, or null if it was deleted while walking
+     */
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private record Candidate(Path path, boolean jobDirectory, long size, long modified) {
+    }
+
+    /**
+     * Totals for one pass. Candidates is a max-heap by age, trimmed to the oldest entries.
+     */
+    private static class Run {
+        final PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+                Comparator.comparingLong(Candidate::modified).reversed());
+        long totalBytes;
+        long reclaimedBytes;
+        int deletedUploads;
+        int deletedJobs;
+        int deletedScratchFiles;
+
+        void offer(Candidate candidate) {
+            candidates.offer(candidate);
+            if (candidates.size() > MAX_EVICTION_CANDIDATES) {
+                candidates.poll();
+            }
+        }
+    }
+
+    public record ReapReport(long reclaimedBytes, int deletedUploads, int deletedJobs,
+            int deletedScratchFiles, long remainingBytes, long durationMillis) {
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.StorageConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads waiting to be converted, by upload id.
+ * Bounded by entry count, total bytes and age: the oldest uploads are evicted
+ * first and their backing file is released through FileStorageService.deleteFile.
+ * Uploads acquired by a running conversion are pinned and never evicted until
+ * the conversion releases them.
+ *
+ * Published as uploads.pending (entries), uploads.pending.bytes, uploads.pinned
+ * and uploads.evictions.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UploadRegistry implements MeterBinder {
+
+    private final FileStorageService fileStorageService;
+    private final StorageConfig storageConfig;
+
+    // Insertion-ordered: iteration starts at the oldest upload
+    private final Map<String, UploadEntry> entries = new LinkedHashMap<>();
+    private final AtomicLong evictions = new AtomicLong();
+    private long totalBytes;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("uploads.pending", this, uploads -> uploads.getStats().entries())
+                .description("Uploads waiting to be converted")
+                .register(registry);
+        Gauge.builder("uploads.pending.bytes", this, uploads -> uploads.getStats().bytes())
+                .description("Bytes of uploads waiting to be converted")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("uploads.pinned", this, uploads -> uploads.getStats().pinned())
+                .description("Uploads held by a running conversion")
+                .register(registry);
+        FunctionCounter.builder("uploads.evictions", evictions, AtomicLong::get)
+                .description("Uploads evicted before a conversion used them")
+                .register(registry);
+    }
+
+    /**
+     * Registers a stored upload, evicting the oldest unpinned uploads if over budget
+     */
+    public void register(String uploadId, File file, long size) {
+        List<UploadEntry> evicted;
+        synchronized (this) {
+            UploadEntry previous = entries.put(uploadId, new UploadEntry(file, size, System.currentTimeMillis()));
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += size;
+            evicted = evictIfNeeded();
+        }
+        deleteEvicted(evicted, "over budget");
+    }
+
+    /**
+     * Pins the given uploads for a conversion and returns their files.
+     * Unknown or evicted ids are skipped.
+     */
+    public synchronized List<File> acquire(List<String> uploadIds) {
+        List<File> files = new ArrayList<>();
+        for (String uploadId : uploadIds) {
+            UploadEntry entry = entries.get(uploadId);
+            if (entry != null) {
+                entry.pins++;
+                files.add(entry.file);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Unpins uploads acquired for a conversion, so they age out normally
+     */
+    public synchronized void release(List<String> uploadIds) {
+        for (String uploadId : uploadIds) {
+            UploadEntry entry = entries.get(uploadId);
+            if (entry != null && entry.pins > 0) {
+                entry.pins--;
+            }
+        }
+    }
+
+    /**
+     * Releases uploads once their conversion finished and deletes their files,
+     * unless another running conversion still holds them
+     */
+    public void remove(List<String> uploadIds) {
+        List<UploadEntry> removed = new ArrayList<>();
+        synchronized (this) {
+            for (String uploadId : uploadIds) {
+                UploadEntry entry = entries.get(uploadId);
+                if (entry == null) {
+                    continue;
+                }
+                if (entry.pins > 1) {
+                    entry.pins--;
+                    continue;
+                }
+                entries.remove(uploadId);
+                totalBytes -= entry.size;
+                removed.add(entry);
+            }
+        }
+        removed.forEach(entry -> fileStorageService.deleteFile(entry.file));
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void evictExpired() {
+        List<UploadEntry> evicted;
+        synchronized (this) {
+            evicted = evictIfNeeded();
+        }
+        deleteEvicted(evicted, "expired");
+    }
+
+    public synchronized UploadStats getStats() {
+        int pinned = (int) entries.values().stream().filter(entry -> entry.pins > 0).count();
+        return new UploadStats(entries.size(), totalBytes, pinned, evictions.get());
+    }
+
+    /**
+     * Removes expired uploads, then the oldest ones until under the count and byte
+     * budgets. Pinned uploads are skipped. Caller must hold the lock.
+     */
+    private List<UploadEntry> evictIfNeeded() {
+        int maxEntries = storageConfig.getMaxPendingUploads();
+        long maxBytes = storageConfig.getMaxPendingUploadMb() * 1024 * 1024;
+        long cutoff = System.currentTimeMillis() - storageConfig.getPendingUploadTtlMinutes() * 60_000L;
+
+        List<UploadEntry> evicted = new ArrayList<>();
+        Iterator<UploadEntry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            UploadEntry entry = it.next();
+            boolean overBudget = entries.size() > maxEntries || totalBytes > maxBytes;
+            if (!overBudget && entry.registeredAt >= cutoff) {
+                break;
+            }
+            if (entry.pins > 0) {
+                continue;
+            }
+            it.remove();
+            totalBytes -= entry.size;
+            evicted.add(entry);
+        }
+        return evicted;
+    }
+
+    private void deleteEvicted(List<UploadEntry> evicted, String reason) {
+        for (UploadEntry entry : evicted) {
+            evictions.incrementAndGet();
+            log.debug("Evicting upload {} ({})", entry.file.getName(), reason);
+            fileStorageService.deleteFile(entry.file);
+        }
+        if (!evicted.isEmpty()) {
+            log.info("Evicted {} pending uploads ({})", evicted.size(), reason);
+        }
+    }
+
+    private static class UploadEntry {
+        final File file;
+        final long size;
+        final long registeredAt;
+        int pins;
+
+        UploadEntry(File file, long size, long registeredAt) {
+            this.file = file;
+            this.size = size;
+            this.registeredAt = registeredAt;
+        }
+    }
+
+    public record UploadStats(int entries, long bytes, int pinned, long evictions) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.conversonweb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Conversion configuration properties
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.conversion")
+@Data
+public class ConversionConfig {
+    private int maxFiles = 100;
+    private int maxFileSizeMb = 50;
+
+    /**
+     * Max files of one individual-conversion job converted at the same time (1 = sequential)
+     */
+    private int parallelFilesPerJob = 4;
+
+    /**
+     * Max images decoded/encoded ahead of the page being appended during an image merge
+     */
+    private int mergeWindowSize = 4;
+    private Scheduler scheduler = new Scheduler();
+    private JobQueue jobQueue = new JobQueue();
+    private Cache cache = new Cache();
+    private WordEngine wordEngine = new WordEngine();
+    private Fonts fonts = new Fonts();
+    private Trace trace = new Trace();
+
+    /**
+     * Settings for the shared conversion scheduler.
+     * CPU lane handles image decoding/encoding, document lane handles docx4j rendering.
+     */
+    @Data
+    public static class Scheduler {
+        private int cpuThreads = Runtime.getRuntime().availableProcessors();
+        private int documentThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        private int maxPendingTasks = 256;
+
+        /**
+         * How long a cancelled job is remembered, to refuse the tasks its threads still
+         * submit and to tell it was cancelled after it has stopped
+         */
+        private int cancelledJobRetentionMinutes = 60;
+    }
+
+    /**
+     * Settings for the job scheduler that decides which conversion job runs next.
+     * Job costs are estimates in milliseconds of work, see ConversionService.
+     */
+    @Data
+    public static class JobQueue {
+        private int concurrentJobs = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        /**
+         * Runners reserved for jobs estimated at or under short-job-max-cost-ms
+         */
+        private int shortJobRunners = 1;
+        private long shortJobMaxCostMs = 5000;
+        private int maxQueuedJobs = 100;
+        private int maxQueuedJobsPerClient = 20;
+
+        /**
+         * Cancel a job once every client watching its progress has disconnected
+         * and none came back within disconnect-grace-seconds
+         */
+        private boolean cancelOnDisconnect = true;
+        private int disconnectGraceSeconds = 20;
+    }
+
+    /**
+     * Settings for the content-addressed conversion result cache
+     */
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maxSizeMb = 512;
+        private int maxAgeHours = 24;
+    }
+
+    /**
+     * Settings for the shared docx4j/FOP rendering engine
+     */
+    @Data
+    public static class WordEngine {
+        private boolean warmUpOnStartup = true;
+        private int maxCachedFopFactories = 16;
+
+        /**
+         * Single documents whose main XML part is at least this large are cut at
+         * page and section breaks and rendered in parallel; 0 disables splitting
+         */
+        private int splitMinDocumentKb = 512;
+        private int splitMaxChunks = 4;
+
+        /**
+         * A split render with more pages than Word saved in the document, beyond
+         * this margin, is redone in one piece
+         */
+        private int splitPageCountTolerancePercent = 10;
+    }
+
+    /**
+     * Settings for the physical font index used by the Word rendering engine.
+     * Empty directories means the platform font directories.
+     */
+    @Data
+    public static class Fonts {
+        private boolean scanOnStartup = true;
+        private List<String> directories = new ArrayList<>();
+        private String includeRegex;
+        private String indexFile = "./fonts/font-index.cache";
+    }
+
+    /**
+     * Settings for the per-job stage timelines served at /api/conversion/{jobId}/trace
+     */
+    @Data
+    public static class Trace {
+        private int maxJobs = 500;
+        private int maxSpansPerJob = 1000;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.conversonweb.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Conversion job store configuration properties
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.jobs")
+@Data
+public class JobStoreConfig {
+
+    /**
+     * Job repository implementation; "file" stores jobs under {output-dir}/.jobs
+     */
+    private String store = "file";
+
+    /**
+     * Jobs are forgotten this long after their last update
+     */
+    private int ttlHours = 24;
+
+    /**
+     * Finished jobs kept in memory for status lookups; older ones are read back from the store
+     */
+    private int maxCachedJobs = 1000;
+    private int sweepIntervalMinutes = 10;
+
+    /**
+     * Marks jobs still stored as processing as failed on startup: their work died
+     * with the previous process. Disable when several instances share the output
+     * volume, as the jobs of the other instances would be failed too.
+     */
+    private boolean failInterruptedOnStartup = true;
+}
@@ -14,4 +14,30 @@ public class StorageConfig {
     private String uploadDir = "./uploads";
     private String outputDir = "./converted";
     private int cleanupHours = 24;
+
+    /**
+     * How often the storage reaper runs, and the total size of uploads, job outputs
+     * and scratch files it keeps (0 = no quota). Over quota, the oldest are deleted first.
+     */
+    private int cleanupIntervalMinutes = 15;
+    private long maxTotalMb = 0;
+
+    /**
+     * Directory for PDFBox scratch files and intermediate merge PDFs
+     */
+    private String scratchDir = "./scratch";
+
+    /**
+     * Heap buffer per merged document before spilling to scratch files
+     * (-1 = heap only, 0 = scratch files only)
+     */
+    private long mergeMaxMainMemoryMb = 32;
+
+    /**
+     * Uploads kept waiting for a conversion; the oldest are deleted first once
+     * any limit is reached
+     */
+    private int maxPendingUploads = 1000;
+    private long maxPendingUploadMb = 2048;
+    private int pendingUploadTtlMinutes = 60;
 }
@@ -1,7 +1,14 @@
 package com.example.conversonweb.config;
 
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
@@ -11,8 +18,15 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
  */
 @Configuration
 @EnableWebSocketMessageBroker
+@Slf4j
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    // Concurrent sends to clients in virtual thread mode; each send only parks a virtual thread
+    private static final int VIRTUAL_SEND_THREADS = 256;
+
+    private final Environment environment;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker
@@ -28,4 +42,27 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 .setAllowedOriginPatterns("*")
                 .withSockJS(); // Fallback for browsers without WebSocket support
     }
+
+    /**
+     * Progress fan-out writes to every subscriber's socket, and a slow client blocks
+     * the thread sending to it. In virtual thread mode those sends run on virtual
+     * threads; otherwise Spring's default platform pool is kept.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+                log.warn("spring.threads.virtual.enabled needs Java 21, running on Java {}; using platform threads",
+                        Runtime.version().feature());
+            }
+            return;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(new VirtualThreadTaskExecutor("ws-outbound-").getVirtualThreadFactory());
+        executor.setAllowCoreThreadTimeOut(true);
+        registration.taskExecutor(executor)
+                .corePoolSize(VIRTUAL_SEND_THREADS)
+                .keepAliveSeconds(60);
+    }
 }
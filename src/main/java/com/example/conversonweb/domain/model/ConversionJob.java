@@ -0,0 +1,92 @@
+package com.example.conversonweb.domain.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * State of a conversion job as seen by clients polling for its status.
+ * Holds only file names, so a job can be stored and read back by any instance.
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversionJob {
+
+    private static final Pattern JOB_ID_PATTERN = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    private String jobId;
+    private JobStatus status;
+    private ConversionType conversionType;
+    private int totalFiles;
+    private int successCount;
+    private int failureCount;
+
+    @Builder.Default
+    private List<String> convertedFiles = new ArrayList<>();
+
+    @Builder.Default
+    private List<String> errors = new ArrayList<>();
+
+    private String message;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    /**
+     * Job ids name files and directories, so only letters, digits and dashes are
+     * accepted: no separators, no dot entries such as .cache or ..
+     */
+    public static boolean isValidJobId(String jobId) {
+        return jobId != null && JOB_ID_PATTERN.matcher(jobId).matches();
+    }
+
+    public static ConversionJob started(String jobId, ConversionType conversionType, int totalFiles) {
+        Instant now = Instant.now();
+        return ConversionJob.builder()
+                .jobId(jobId)
+                .status(JobStatus.PROCESSING)
+                .conversionType(conversionType)
+                .totalFiles(totalFiles)
+                .message("Conversión iniciada")
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    public ConversionJob completed(ConversionResult result) {
+        return toBuilder()
+                .status(JobStatus.COMPLETED)
+                .successCount(result.getSuccessCount())
+                .failureCount(result.getFailureCount())
+                .convertedFiles(result.getConvertedFiles().stream().map(File::getName).toList())
+                .errors(new ArrayList<>(result.getErrors()))
+                .message(result.getSummary())
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    public ConversionJob failed(String reason) {
+        return toBuilder()
+                .status(JobStatus.FAILED)
+                .message("La conversión falló: " + reason)
+                .updatedAt(Instant.now())
+                .build();
+    }
+
+    public ConversionJob cancelled() {
+        return toBuilder()
+                .status(JobStatus.CANCELLED)
+                .convertedFiles(new ArrayList<>())
+                .message("Conversión cancelada")
+                .updatedAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.conversonweb.domain.model;
+
+/**
+ * How images are optimised before they are embedded in a PDF.
+ * Every option is off by default, which embeds images at source resolution and,
+ * for JPEGs, with their original compressed data.
+ *
+ * @param targetDpi       highest resolution kept for an image at its size on the page;
+ *                        larger images are downsampled. Null keeps the source resolution
+ * @param jpegQuality     0..1; when set, continuous-tone images are recompressed as JPEG
+ *                        at this quality. Null keeps JPEGs as-is and other formats lossless
+ * @param detectGrayscale store images whose pixels are all gray with one channel instead of three
+ * @param detectBilevel   store black-and-white images (scans of text) at one bit per pixel
+ */
+public record ImageOptions(Integer targetDpi, Float jpegQuality, boolean detectGrayscale, boolean detectBilevel) {
+
+    public static final ImageOptions ORIGINAL = new ImageOptions(null, null, false, false);
+
+    public boolean isOriginal() {
+        return targetDpi == null && jpegQuality == null && !detectGrayscale && !detectBilevel;
+    }
+
+    /**
+     * Stable text form for conversion cache keys; null for the defaults so
+     * existing cache entries stay valid
+     */
+    public String cacheKey() {
+        if (isOriginal()) {
+            return null;
+        }
+        return "dpi=" + targetDpi + ";q=" + jpegQuality + ";gray=" + detectGrayscale + ";bilevel=" + detectBilevel;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.conversonweb.domain.model;
+
+/**
+ * Lifecycle states of a conversion job
+ */
+public enum JobStatus {
+    PROCESSING,
+    COMPLETED,
+    FAILED,
+    CANCELLED;
+
+    /**
+     * Terminal states never change again once stored
+     */
+    public boolean isTerminal() {
+        return this != PROCESSING;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.conversonweb.domain.repository;
+
+import com.example.conversonweb.domain.model.ConversionJob;
+
+import java.util.Optional;
+
+/**
+ * Storage for conversion job state.
+ * Implementations must make a saved job visible to every instance that can
+ * serve its status, and forget jobs once they outlive the configured TTL.
+ */
+public interface ConversionJobRepository {
+
+    /**
+     * Creates or replaces the stored state of a job
+     */
+    void save(ConversionJob job);
+
+    /**
+     * Looks up a job by id; expired or unknown jobs are empty
+     */
+    Optional<ConversionJob> findById(String jobId);
+
+    void delete(String jobId);
+
+    /**
+     * Removes every job older than the TTL
+     *
+     * @return number of jobs removed
+     */
+    int evictExpired();
+}
@@ -0,0 +1,427 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.domain.model.ImageOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceCMYK;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.plugins.tiff.TIFFField;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Image already encoded into a PDF image stream, independent of any PDDocument.
+ * Encoding runs on worker threads; only the cheap {@link #toImageXObject} step
+ * touches the (non thread-safe) target document.
+ * The decoded pixels are dropped as soon as encoding finishes, so only the
+ * compressed bytes are kept until the page is appended.
+ *
+ * JPEG data is never decoded: plain JPEG files are embedded straight from disk
+ * and single-strip JPEG-compressed TIFFs are unwrapped into a JPEG stream, after
+ * reading only their headers.
+ *
+ * An image may be stored at fewer pixels than its source (see {@link ImageOptimizer});
+ * pages are laid out from the display size, which is always the source size.
+ */
+@Slf4j
+final class EncodedImage {
+
+    private static final COSName COLOR_TRANSFORM = COSName.getPDFName("ColorTransform");
+    private static final int TIFF_COMPRESSION_JPEG = 7;
+    private static final long MAX_TIFF_STRIP_BYTES = 256L * 1024 * 1024;
+
+    private final File source;
+    private final byte[] data;
+    private final byte[] alpha;
+    private final COSName filter;
+    private final int width;
+    private final int height;
+    private final int bitsPerComponent;
+    private final PDColorSpace colorSpace;
+    private final Integer colorTransform;
+    private int displayWidth;
+    private int displayHeight;
+
+    private EncodedImage(File source, byte[] data, byte[] alpha, COSName filter, int width, int height,
+            int bitsPerComponent, PDColorSpace colorSpace, Integer colorTransform) {
+        this.source = source;
+        this.data = data;
+        this.alpha = alpha;
+        this.filter = filter;
+        this.width = width;
+        this.height = height;
+        this.bitsPerComponent = bitsPerComponent;
+        this.colorSpace = colorSpace;
+        this.colorTransform = colorTransform;
+        this.displayWidth = width;
+        this.displayHeight = height;
+    }
+
+    /**
+     * Reads and encodes an image file. JPEG data (including JPEG inside TIFF, where
+     * it can be unwrapped) is passed through untouched; other formats are decoded
+     * once and Flate-compressed.
+     */
+    static EncodedImage fromFile(File imageFile) throws IOException {
+        return fromFile(imageFile, ImageOptions.ORIGINAL);
+    }
+
+    /**
+     * Reads and encodes an image file, downsampling or recompressing it as the
+     * options ask. Images that need none of that take the pass-through path above.
+     */
+    static EncodedImage fromFile(File imageFile, ImageOptions options) throws IOException {
+        if (!options.isOriginal()) {
+            EncodedImage optimized = null;
+            try {
+                optimized = ImageOptimizer.encode(imageFile, options);
+            } catch (IOException e) {
+                // e.g. CMYK JPEGs, which ImageIO cannot decode but PDFs can embed as-is
+                log.debug("Could not optimise {}, embedding it unchanged: {}", imageFile.getName(), e.getMessage());
+            }
+            if (optimized != null) {
+                return optimized;
+            }
+        }
+
+        EncodedImage passThrough = switch (ImageHeader.sniffFormat(imageFile)) {
+            case JPEG -> fromJpegFile(imageFile);
+            case TIFF -> fromTiffJpeg(imageFile);
+            case GIF, OTHER -> null;
+        };
+        if (passThrough != null) {
+            return passThrough;
+        }
+
+        BufferedImage image = ImageIO.read(imageFile);
+        if (image == null) {
+            throw new IOException("Unable to read image: " + imageFile.getName());
+        }
+        return fromImage(image);
+    }
+
+    /**
+     * JPEG file embedded as-is, read from disk only when the page is written
+     */
+    private static EncodedImage fromJpegFile(File imageFile) throws IOException {
+        ImageHeader.JpegFrame frame = ImageHeader.readJpegFrame(imageFile);
+        if (frame == null || !frame.isEmbeddable()) {
+            return null;
+        }
+        log.debug("Embedding JPEG {} without re-encoding ({}x{})", imageFile.getName(), frame.width(), frame.height());
+        return new EncodedImage(imageFile, null, null, COSName.DCT_DECODE, frame.width(), frame.height(), 8,
+                jpegColorSpace(frame.components()), null);
+    }
+
+    /**
+     * First page of a TIFF stored as one JPEG-compressed strip, see below
+     */
+    private static EncodedImage fromTiffJpeg(File imageFile) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReadersByFormatName("tiff");
+        if (!readers.hasNext()) {
+            return null;
+        }
+
+        ImageReader reader = readers.next();
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            reader.setInput(input, true, false);
+            return fromTiffJpeg(reader, imageFile, 0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Page of a TIFF stored as one JPEG-compressed strip, turned back into a
+     * complete JPEG stream by merging the shared JPEGTables into the strip.
+     * Only the page's directory is read through the reader; the strip itself is
+     * copied straight from the file. Anything else (tiles, several strips,
+     * old-style JPEG, other compressions) returns null and is decoded normally.
+     */
+    static EncodedImage fromTiffJpeg(ImageReader reader, File imageFile, int imageIndex) throws IOException {
+        TIFFDirectory directory;
+        try {
+            directory = TIFFDirectory.createFromMetadata(reader.getImageMetadata(imageIndex));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+
+        if (intField(directory, BaselineTIFFTagSet.TAG_COMPRESSION, 1) != TIFF_COMPRESSION_JPEG
+                || directory.containsTIFFField(BaselineTIFFTagSet.TAG_TILE_WIDTH)
+                || intField(directory, BaselineTIFFTagSet.TAG_PLANAR_CONFIGURATION, 1) != 1) {
+            return null;
+        }
+
+        TIFFField offsets = directory.getTIFFField(BaselineTIFFTagSet.TAG_STRIP_OFFSETS);
+        TIFFField byteCounts = directory.getTIFFField(BaselineTIFFTagSet.TAG_STRIP_BYTE_COUNTS);
+        if (offsets == null || byteCounts == null || offsets.getCount() != 1 || byteCounts.getCount() != 1) {
+            return null;
+        }
+
+        // Photometric RGB means the JPEG holds RGB samples, so viewers must not convert from YCbCr
+        int photometric = intField(directory, BaselineTIFFTagSet.TAG_PHOTOMETRIC_INTERPRETATION, -1);
+        Integer colorTransform;
+        if (photometric == BaselineTIFFTagSet.PHOTOMETRIC_INTERPRETATION_RGB) {
+            colorTransform = 0;
+        } else if (photometric == BaselineTIFFTagSet.PHOTOMETRIC_INTERPRETATION_Y_CB_CR
+                || photometric == BaselineTIFFTagSet.PHOTOMETRIC_INTERPRETATION_BLACK_IS_ZERO) {
+            colorTransform = null;
+        } else {
+            return null;
+        }
+
+        long stripLength = byteCounts.getAsLong(0);
+        if (stripLength <= 4 || stripLength > MAX_TIFF_STRIP_BYTES) {
+            return null;
+        }
+        byte[] strip = new byte[(int) stripLength];
+        try (RandomAccessFile file = new RandomAccessFile(imageFile, "r")) {
+            file.seek(offsets.getAsLong(0));
+            file.readFully(strip);
+        }
+
+        TIFFField tablesField = directory.getTIFFField(BaselineTIFFTagSet.TAG_JPEG_TABLES);
+        byte[] jpeg = spliceJpegTables(tablesField != null ? tablesField.getAsBytes() : null, strip);
+        if (jpeg == null) {
+            return null;
+        }
+
+        ImageHeader.JpegFrame frame = ImageHeader.readJpegFrame(new ByteArrayInputStream(jpeg));
+        int tiffWidth = intField(directory, BaselineTIFFTagSet.TAG_IMAGE_WIDTH, -1);
+        int tiffHeight = intField(directory, BaselineTIFFTagSet.TAG_IMAGE_LENGTH, -1);
+        if (frame == null || !frame.isEmbeddable() || frame.components() == 4
+                || frame.width() != tiffWidth || frame.height() != tiffHeight) {
+            return null;
+        }
+
+        log.debug("Embedding JPEG data of TIFF {} page {} without re-encoding ({}x{})",
+                imageFile.getName(), imageIndex + 1, frame.width(), frame.height());
+        return new EncodedImage(null, jpeg, null, COSName.DCT_DECODE, frame.width(), frame.height(), 8,
+                jpegColorSpace(frame.components()), colorTransform);
+    }
+
+    /**
+     * Strip and tables are each wrapped in SOI/EOI: keep the tables without their
+     * EOI, followed by the strip without its SOI
+     */
+    private static byte[] spliceJpegTables(byte[] tables, byte[] strip) {
+        if (!startsWithSoi(strip)) {
+            return null;
+        }
+        if (tables == null || tables.length <= 4) {
+            return strip;
+        }
+        if (!startsWithSoi(tables) || (tables[tables.length - 2] & 0xFF) != 0xFF
+                || (tables[tables.length - 1] & 0xFF) != 0xD9) {
+            return null;
+        }
+
+        byte[] jpeg = new byte[tables.length - 2 + strip.length - 2];
+        System.arraycopy(tables, 0, jpeg, 0, tables.length - 2);
+        System.arraycopy(strip, 2, jpeg, tables.length - 2, strip.length - 2);
+        return jpeg;
+    }
+
+    private static boolean startsWithSoi(byte[] bytes) {
+        return bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xD8;
+    }
+
+    private static int intField(TIFFDirectory directory, int tag, int defaultValue) {
+        TIFFField field = directory.getTIFFField(tag);
+        return field != null ? field.getAsInt(0) : defaultValue;
+    }
+
+    private static PDColorSpace jpegColorSpace(int components) {
+        return switch (components) {
+            case 1 -> PDDeviceGray.INSTANCE;
+            case 4 -> PDDeviceCMYK.INSTANCE;
+            default -> PDDeviceRGB.INSTANCE;
+        };
+    }
+
+    /**
+     * Flate-encodes decoded pixels row by row as 8-bit Gray or RGB, plus an
+     * alpha soft mask when the image has any transparency
+     */
+    static EncodedImage fromImage(BufferedImage image) throws IOException {
+        return fromImage(image, image.getColorModel().getNumColorComponents() == 1);
+    }
+
+    /**
+     * Same as above; with gray set, color pixels are stored as their luminance
+     */
+    static EncodedImage fromImage(BufferedImage image, boolean gray) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream();
+        ByteArrayOutputStream alphaBytes = hasAlpha ? new ByteArrayOutputStream() : null;
+        boolean transparent = false;
+
+        Deflater dataDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        Deflater alphaDeflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream dataOut = new DeflaterOutputStream(dataBytes, dataDeflater);
+                DeflaterOutputStream alphaOut = hasAlpha ? new DeflaterOutputStream(alphaBytes, alphaDeflater) : null) {
+
+            int[] argbRow = new int[width];
+            byte[] pixelRow = new byte[width * (gray ? 1 : 3)];
+            byte[] alphaRow = hasAlpha ? new byte[width] : null;
+
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, argbRow, 0, width);
+                int p = 0;
+                for (int x = 0; x < width; x++) {
+                    int argb = argbRow[x];
+                    if (gray) {
+                        pixelRow[p++] = (byte) luminance(argb);
+                    } else {
+                        pixelRow[p++] = (byte) ((argb >> 16) & 0xFF);
+                        pixelRow[p++] = (byte) ((argb >> 8) & 0xFF);
+                        pixelRow[p++] = (byte) (argb & 0xFF);
+                    }
+                    if (hasAlpha) {
+                        int a = (argb >>> 24);
+                        alphaRow[x] = (byte) a;
+                        transparent |= a != 0xFF;
+                    }
+                }
+                dataOut.write(pixelRow);
+                if (hasAlpha) {
+                    alphaOut.write(alphaRow);
+                }
+            }
+        } finally {
+            dataDeflater.end();
+            alphaDeflater.end();
+        }
+
+        byte[] alpha = transparent ? alphaBytes.toByteArray() : null;
+        return new EncodedImage(null, dataBytes.toByteArray(), alpha, COSName.FLATE_DECODE, width, height, 8,
+                gray ? PDDeviceGray.INSTANCE : PDDeviceRGB.INSTANCE, null);
+    }
+
+    /**
+     * Flate-encodes an opaque image at one bit per pixel: luminance at or above
+     * the threshold is white, everything else black
+     */
+    static EncodedImage fromBilevel(BufferedImage image, int threshold) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        ByteArrayOutputStream dataBytes = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (DeflaterOutputStream dataOut = new DeflaterOutputStream(dataBytes, deflater)) {
+            int[] argbRow = new int[width];
+            byte[] bitRow = new byte[(width + 7) / 8];
+            for (int y = 0; y < height; y++) {
+                image.getRGB(0, y, width, 1, argbRow, 0, width);
+                Arrays.fill(bitRow, (byte) 0);
+                for (int x = 0; x < width; x++) {
+                    if (luminance(argbRow[x]) >= threshold) {
+                        bitRow[x >> 3] |= (byte) (0x80 >>> (x & 7));
+                    }
+                }
+                dataOut.write(bitRow);
+            }
+        } finally {
+            deflater.end();
+        }
+        return new EncodedImage(null, dataBytes.toByteArray(), null, COSName.FLATE_DECODE, width, height, 1,
+                PDDeviceGray.INSTANCE, null);
+    }
+
+    /**
+     * Wraps JPEG data encoded in memory (8-bit Gray or RGB)
+     */
+    static EncodedImage fromJpegData(byte[] jpeg, int width, int height, boolean gray) {
+        return new EncodedImage(null, jpeg, null, COSName.DCT_DECODE, width, height, 8,
+                gray ? PDDeviceGray.INSTANCE : PDDeviceRGB.INSTANCE, null);
+    }
+
+    /**
+     * Lays the image out as if it had the given source size, for images stored at a lower resolution
+     */
+    EncodedImage withDisplaySize(int sourceWidth, int sourceHeight) {
+        this.displayWidth = sourceWidth;
+        this.displayHeight = sourceHeight;
+        return this;
+    }
+
+    /**
+     * Width in source pixels, which page layout is based on
+     */
+    int getDisplayWidth() {
+        return displayWidth;
+    }
+
+    int getDisplayHeight() {
+        return displayHeight;
+    }
+
+    static int luminance(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (r * 77 + g * 150 + b * 29) >> 8;
+    }
+
+    /**
+     * Creates the image XObject inside the target document. Must be called from
+     * the thread that owns the document.
+     */
+    PDImageXObject toImageXObject(PDDocument document) throws IOException {
+        PDImageXObject image;
+        try (InputStream encoded = source != null
+                ? new BufferedInputStream(Files.newInputStream(source.toPath()))
+                : new ByteArrayInputStream(data)) {
+            image = new PDImageXObject(document, encoded, filter, width, height, bitsPerComponent, colorSpace);
+        }
+
+        if (colorSpace == PDDeviceCMYK.INSTANCE) {
+            // CMYK JPEGs are written inverted (Adobe convention), as PDFBox's JPEGFactory assumes
+            COSArray decode = new COSArray();
+            for (int i = 0; i < 4; i++) {
+                decode.add(COSInteger.ONE);
+                decode.add(COSInteger.ZERO);
+            }
+            image.setDecode(decode);
+        }
+        if (colorTransform != null) {
+            COSDictionary decodeParms = new COSDictionary();
+            decodeParms.setInt(COLOR_TRANSFORM, colorTransform);
+            image.getCOSObject().setItem(COSName.DECODE_PARMS, decodeParms);
+        }
+
+        if (alpha != null) {
+            PDImageXObject mask = new PDImageXObject(document, new ByteArrayInputStream(alpha),
+                    COSName.FLATE_DECODE, width, height, 8, PDDeviceGray.INSTANCE);
+            image.getCOSObject().setItem(COSName.SMASK, mask);
+        }
+        return image;
+    }
+}
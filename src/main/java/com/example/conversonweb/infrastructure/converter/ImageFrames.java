@@ -0,0 +1,267 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.domain.model.ImageOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Frames of a multi-page image (TIFF pages, GIF animation frames), each to become
+ * one PDF page. Frames are decoded and encoded one at a time through a single open
+ * ImageReader, so memory holds one frame whatever the page count.
+ *
+ * - TIFF: pages are independent; single-strip JPEG pages are passed through
+ * - GIF: frames only store what changed, so they are drawn onto a canvas of the
+ *   logical screen size following each frame's disposal method, and every page
+ *   shows the full picture as it would be displayed
+ *
+ * Not thread-safe: frames must be taken in order by one thread at a time.
+ */
+@Slf4j
+final class ImageFrames implements Closeable {
+
+    private static final String GIF_STREAM_METADATA = "javax_imageio_gif_stream_1.0";
+    private static final String GIF_IMAGE_METADATA = "javax_imageio_gif_image_1.0";
+
+    private final File file;
+    private final ImageInputStream input;
+    private final ImageReader reader;
+    private final ImageHeader.Format format;
+    private final ImageOptions options;
+    private final int count;
+    private int next;
+
+    // GIF composition state
+    private BufferedImage canvas;
+    private BufferedImage previousCanvas;
+    private String pendingDisposal;
+    private int pendingX;
+    private int pendingY;
+    private int pendingWidth;
+    private int pendingHeight;
+
+    private ImageFrames(File file, ImageInputStream input, ImageReader reader, ImageHeader.Format format,
+            ImageOptions options, int count) {
+        this.file = file;
+        this.input = input;
+        this.reader = reader;
+        this.format = format;
+        this.options = options;
+        this.count = count;
+    }
+
+    /**
+     * Opens a TIFF or GIF holding more than one frame. Counting frames walks the
+     * file structure but decodes no pixels.
+     *
+     * @return the frames, or null for single-frame images and other formats,
+     *         which {@link EncodedImage#fromFile} handles
+     */
+    static ImageFrames open(File file, ImageOptions options) throws IOException {
+        ImageHeader.Format format = ImageHeader.sniffFormat(file);
+        if (format != ImageHeader.Format.TIFF && format != ImageHeader.Format.GIF) {
+            return null;
+        }
+
+        ImageInputStream input = ImageIO.createImageInputStream(file);
+        if (input == null) {
+            return null;
+        }
+        ImageReader reader = null;
+        try {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                input.close();
+                return null;
+            }
+            reader = readers.next();
+            reader.setInput(input, false, false);
+
+            int count = reader.getNumImages(true);
+            if (count <= 1) {
+                reader.dispose();
+                input.close();
+                return null;
+            }
+            log.debug("Image {} has {} frames", file.getName(), count);
+            return new ImageFrames(file, input, reader, format, options, count);
+        } catch (IOException | RuntimeException e) {
+            if (reader != null) {
+                reader.dispose();
+            }
+            input.close();
+            throw e;
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean hasNext() {
+        return next < count;
+    }
+
+    /**
+     * Decodes and encodes the next frame
+     */
+    EncodedImage next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int index = next++;
+        String name = file.getName() + " [" + (index + 1) + "/" + count + "]";
+        return format == ImageHeader.Format.GIF ? nextGifFrame(index, name) : nextTiffPage(index, name);
+    }
+
+    private EncodedImage nextTiffPage(int index, String name) throws IOException {
+        if (options.isOriginal()) {
+            EncodedImage passThrough = EncodedImage.fromTiffJpeg(reader, file, index);
+            if (passThrough != null) {
+                return passThrough;
+            }
+        } else {
+            EncodedImage optimized = ImageOptimizer.encode(reader, index, name, options);
+            if (optimized != null) {
+                return optimized;
+            }
+        }
+        return EncodedImage.fromImage(reader.read(index));
+    }
+
+    private EncodedImage nextGifFrame(int index, String name) throws IOException {
+        if (canvas == null) {
+            canvas = new BufferedImage(logicalScreenWidth(), logicalScreenHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+        disposePreviousFrame();
+
+        Node descriptor = null;
+        Node control = null;
+        IIOMetadata metadata = reader.getImageMetadata(index);
+        Node root = metadata.getAsTree(GIF_IMAGE_METADATA);
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("ImageDescriptor".equals(child.getNodeName())) {
+                descriptor = child;
+            } else if ("GraphicControlExtension".equals(child.getNodeName())) {
+                control = child;
+            }
+        }
+
+        BufferedImage frame = reader.read(index);
+        pendingX = intAttribute(descriptor, "imageLeftPosition", 0);
+        pendingY = intAttribute(descriptor, "imageTopPosition", 0);
+        pendingWidth = frame.getWidth();
+        pendingHeight = frame.getHeight();
+        pendingDisposal = control != null ? attribute(control, "disposalMethod") : null;
+        if ("restoreToPrevious".equals(pendingDisposal)) {
+            previousCanvas = copy(canvas, previousCanvas);
+        }
+
+        Graphics2D g = canvas.createGraphics();
+        try {
+            g.drawImage(frame, pendingX, pendingY, null);
+        } finally {
+            g.dispose();
+        }
+
+        if (!options.isOriginal()) {
+            EncodedImage optimized = ImageOptimizer.encode(canvas, name, options);
+            if (optimized != null) {
+                return optimized;
+            }
+        }
+        return EncodedImage.fromImage(canvas);
+    }
+
+    /**
+     * Applies the disposal method of the frame shown last, before the next one is drawn
+     */
+    private void disposePreviousFrame() {
+        if ("restoreToBackgroundColor".equals(pendingDisposal)) {
+            // Browsers clear to transparent rather than to the background color; so do we
+            Graphics2D g = canvas.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Clear);
+                g.fillRect(pendingX, pendingY, pendingWidth, pendingHeight);
+            } finally {
+                g.dispose();
+            }
+        } else if ("restoreToPrevious".equals(pendingDisposal) && previousCanvas != null) {
+            copy(previousCanvas, canvas);
+        }
+        pendingDisposal = null;
+    }
+
+    private int logicalScreenWidth() throws IOException {
+        Node screen = logicalScreenDescriptor();
+        int width = intAttribute(screen, "logicalScreenWidth", 0);
+        return width > 0 ? width : reader.getWidth(0);
+    }
+
+    private int logicalScreenHeight() throws IOException {
+        Node screen = logicalScreenDescriptor();
+        int height = intAttribute(screen, "logicalScreenHeight", 0);
+        return height > 0 ? height : reader.getHeight(0);
+    }
+
+    private Node logicalScreenDescriptor() throws IOException {
+        IIOMetadata metadata = reader.getStreamMetadata();
+        if (metadata == null) {
+            return null;
+        }
+        Node root = metadata.getAsTree(GIF_STREAM_METADATA);
+        for (Node child = root.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if ("LogicalScreenDescriptor".equals(child.getNodeName())) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static BufferedImage copy(BufferedImage source, BufferedImage target) {
+        if (target == null) {
+            target = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        }
+        source.copyData(target.getRaster());
+        return target;
+    }
+
+    private static String attribute(Node node, String name) {
+        NamedNodeMap attributes = node.getAttributes();
+        Node attribute = attributes != null ? attributes.getNamedItem(name) : null;
+        return attribute != null ? attribute.getNodeValue() : null;
+    }
+
+    private static int intAttribute(Node node, String name, int defaultValue) {
+        String value = node != null ? attribute(node, name) : null;
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        input.close();
+        canvas = null;
+        previousCanvas = null;
+    }
+}
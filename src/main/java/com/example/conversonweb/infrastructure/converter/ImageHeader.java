@@ -0,0 +1,130 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Format and geometry of an image, read from its first bytes without decoding any pixels.
+ * Files are recognised by their signature, not their extension.
+ */
+final class ImageHeader {
+
+    enum Format {
+        JPEG, TIFF, GIF, OTHER
+    }
+
+    private static final int SOF0_BASELINE = 0xC0;
+    private static final int SOF1_EXTENDED = 0xC1;
+    private static final int SOF2_PROGRESSIVE = 0xC2;
+
+    private ImageHeader() {
+    }
+
+    static Format sniffFormat(File file) throws IOException {
+        byte[] signature = new byte[4];
+        int read;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            read = in.readNBytes(signature, 0, signature.length);
+        }
+        if (read < 4) {
+            return Format.OTHER;
+        }
+
+        int b0 = signature[0] & 0xFF;
+        int b1 = signature[1] & 0xFF;
+        int b2 = signature[2] & 0xFF;
+        int b3 = signature[3] & 0xFF;
+        if (b0 == 0xFF && b1 == 0xD8 && b2 == 0xFF) {
+            return Format.JPEG;
+        }
+        if ((b0 == 'I' && b1 == 'I' && b2 == 42 && b3 == 0) || (b0 == 'M' && b1 == 'M' && b2 == 0 && b3 == 42)) {
+            return Format.TIFF;
+        }
+        if (b0 == 'G' && b1 == 'I' && b2 == 'F' && b3 == '8') {
+            return Format.GIF;
+        }
+        return Format.OTHER;
+    }
+
+    static JpegFrame readJpegFrame(File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            return readJpegFrame(in);
+        }
+    }
+
+    /**
+     * Walks the JPEG marker segments up to the start-of-frame, skipping
+     * everything else (EXIF, ICC profiles, thumbnails)
+     *
+     * @return the frame header, or null if the stream is not a JPEG or ends early
+     */
+    static JpegFrame readJpegFrame(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        try {
+            if (in.readUnsignedByte() != 0xFF || in.readUnsignedByte() != 0xD8) {
+                return null;
+            }
+
+            while (true) {
+                if (in.readUnsignedByte() != 0xFF) {
+                    return null;
+                }
+                int marker = in.readUnsignedByte();
+                while (marker == 0xFF) {
+                    // Fill bytes before a marker
+                    marker = in.readUnsignedByte();
+                }
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                    // Standalone markers carry no length
+                    continue;
+                }
+                if (marker == 0xD9 || marker == 0xDA) {
+                    // End of image or start of scan before any frame header
+                    return null;
+                }
+
+                int length = in.readUnsignedShort();
+                if (length < 2) {
+                    return null;
+                }
+                if (isStartOfFrame(marker)) {
+                    int precision = in.readUnsignedByte();
+                    int height = in.readUnsignedShort();
+                    int width = in.readUnsignedShort();
+                    int components = in.readUnsignedByte();
+                    return new JpegFrame(marker, precision, width, height, components);
+                }
+                in.skipNBytes(length - 2);
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        // C4 (DHT), C8 (JPG extension) and CC (DAC) share the range but are not frames
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    /**
+     * Start-of-frame header of a JPEG stream
+     */
+    record JpegFrame(int marker, int precision, int width, int height, int components) {
+
+        /**
+         * True if PDF viewers can decode the stream as-is with DCTDecode:
+         * 8-bit Huffman-coded baseline, extended or progressive, in Gray, RGB or CMYK
+         */
+        boolean isEmbeddable() {
+            boolean supportedProcess = marker == SOF0_BASELINE || marker == SOF1_EXTENDED
+                    || marker == SOF2_PROGRESSIVE;
+            boolean supportedComponents = components == 1 || components == 3 || components == 4;
+            return supportedProcess && supportedComponents && precision == 8 && width > 0 && height > 0;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.domain.model.ImageOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Downsampling and recompression stage for {@link ImageOptions}.
+ *
+ * - Resolution: images are placed on an A4-bounded page (see the converters), so the
+ *   effective DPI follows from the page size; images above target-dpi are scaled down
+ * - Subsampled decoding: the reader skips rows and columns while decoding, so a large
+ *   image is never fully materialised; only the final resize works on full pixels
+ * - Tone: gray or black-and-white content is stored with one channel or one bit
+ * - Encoding: JPEG at the requested quality for continuous-tone images (JPEG sources
+ *   are re-encoded as JPEG when they have to be resampled), Flate otherwise.
+ *   Transparent images always stay Flate with their alpha mask.
+ */
+@Slf4j
+final class ImageOptimizer {
+
+    private static final float DEFAULT_JPEG_QUALITY = 0.85f;
+
+    // Channels may differ this much and still count as gray (JPEG chroma noise)
+    private static final int GRAY_TOLERANCE = 6;
+
+    // Bilevel: at most 1 pixel in 100 may be a mid-tone (anti-aliased edges)
+    private static final int BILEVEL_LOW = 48;
+    private static final int BILEVEL_HIGH = 208;
+    private static final int BILEVEL_MAX_MIDTONE_PERCENT = 1;
+    private static final int BILEVEL_THRESHOLD = 128;
+
+    private enum Tone {
+        COLOR, GRAY, BILEVEL
+    }
+
+    private ImageOptimizer() {
+    }
+
+    /**
+     * Encodes an image as the options ask, or returns null when it needs no
+     * processing, so the caller can embed it unchanged
+     */
+    static EncodedImage encode(File imageFile, ImageOptions options) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile)) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                return encode(reader, 0, imageFile.getName(), options);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Encodes one image of a reader that may hold several (TIFF pages), or returns null
+     * when it needs no processing
+     */
+    static EncodedImage encode(ImageReader reader, int imageIndex, String name, ImageOptions options)
+            throws IOException {
+        // Header only: no pixels decoded yet
+        int sourceWidth = reader.getWidth(imageIndex);
+        int sourceHeight = reader.getHeight(imageIndex);
+        double scale = downsampleScale(sourceWidth, sourceHeight, options.targetDpi());
+
+        boolean analyse = options.detectGrayscale() || options.detectBilevel();
+        if (scale >= 1 && options.jpegQuality() == null && !analyse) {
+            return null;
+        }
+
+        // Decode every n-th row and column, staying at or above the target size
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = Math.max(1, (int) Math.floor(1 / Math.min(1, scale)));
+        if (subsampling > 1) {
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+        BufferedImage image = reader.read(imageIndex, param);
+        boolean jpegSource = "jpeg".equalsIgnoreCase(reader.getFormatName());
+        return encode(image, sourceWidth, sourceHeight, jpegSource, options, name);
+    }
+
+    /**
+     * Same as above for an image that is already decoded (composed GIF animation frames)
+     */
+    static EncodedImage encode(BufferedImage image, String name, ImageOptions options) throws IOException {
+        double scale = downsampleScale(image.getWidth(), image.getHeight(), options.targetDpi());
+        boolean analyse = options.detectGrayscale() || options.detectBilevel();
+        if (scale >= 1 && options.jpegQuality() == null && !analyse) {
+            return null;
+        }
+        return encode(image, image.getWidth(), image.getHeight(), false, options, name);
+    }
+
+    private static EncodedImage encode(BufferedImage decoded, int sourceWidth, int sourceHeight,
+            boolean jpegSource, ImageOptions options, String name) throws IOException {
+        double scale = downsampleScale(sourceWidth, sourceHeight, options.targetDpi());
+        int targetWidth = Math.max(1, (int) Math.round(sourceWidth * Math.min(1, scale)));
+        int targetHeight = Math.max(1, (int) Math.round(sourceHeight * Math.min(1, scale)));
+        BufferedImage image = resize(decoded, targetWidth, targetHeight);
+
+        boolean analyse = options.detectGrayscale() || options.detectBilevel();
+        boolean transparent = image.getColorModel().hasAlpha();
+        boolean sourceGray = image.getColorModel().getNumColorComponents() == 1;
+        boolean resized = image.getWidth() != sourceWidth || image.getHeight() != sourceHeight;
+        Tone tone = analyse ? detectTone(image, options) : Tone.COLOR;
+        if (!resized && options.jpegQuality() == null
+                && (tone == Tone.COLOR || (tone == Tone.GRAY && sourceGray))) {
+            // Analysis found nothing to gain: embed the original rather than re-encode it
+            return null;
+        }
+        if (tone == Tone.COLOR && sourceGray) {
+            tone = Tone.GRAY;
+        }
+
+        EncodedImage encoded;
+        String encoding;
+        if (tone == Tone.BILEVEL && !transparent) {
+            encoded = EncodedImage.fromBilevel(image, BILEVEL_THRESHOLD);
+            encoding = "bilevel";
+        } else if (!transparent && (options.jpegQuality() != null || jpegSource)) {
+            float quality = options.jpegQuality() != null ? options.jpegQuality() : DEFAULT_JPEG_QUALITY;
+            boolean gray = tone != Tone.COLOR;
+            encoded = EncodedImage.fromJpegData(encodeJpeg(image, gray, quality),
+                    image.getWidth(), image.getHeight(), gray);
+            encoding = "JPEG q=" + quality + (gray ? " gray" : "");
+        } else {
+            encoded = EncodedImage.fromImage(image, tone != Tone.COLOR);
+            encoding = "Flate" + (tone != Tone.COLOR ? " gray" : "");
+        }
+
+        log.debug("Optimised image {}: {}x{} -> {}x{}, {}", name,
+                sourceWidth, sourceHeight, image.getWidth(), image.getHeight(), encoding);
+        return encoded.withDisplaySize(sourceWidth, sourceHeight);
+    }
+
+    /**
+     * Scale that brings the image down to targetDpi at its size on the page.
+     * The page is the image at 72 DPI, shrunk to fit A4, so a 4000 px photo fills
+     * an A4 width and 150 DPI keeps about 1240 px of it.
+     *
+     * @return factor to apply to the pixel size, 1 or more when no downsampling is needed
+     */
+    static double downsampleScale(int width, int height, Integer targetDpi) {
+        if (targetDpi == null) {
+            return 1;
+        }
+        PDRectangle pageSize = PDRectangle.A4;
+        double pageScale = Math.min(1, Math.min(pageSize.getWidth() / width, pageSize.getHeight() / height));
+        return targetDpi * pageScale / 72.0;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        if (image.getWidth() <= width && image.getHeight() <= height) {
+            return image;
+        }
+
+        int type = image.getColorModel().hasAlpha()
+                ? BufferedImage.TYPE_INT_ARGB
+                : image.getColorModel().getNumColorComponents() == 1
+                        ? BufferedImage.TYPE_BYTE_GRAY
+                        : BufferedImage.TYPE_INT_RGB;
+        BufferedImage resized = new BufferedImage(width, height, type);
+        Graphics2D g = resized.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return resized;
+    }
+
+    /**
+     * Single pass over the pixels, stopping as soon as the image is known to be color
+     */
+    private static Tone detectTone(BufferedImage image, ImageOptions options) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long maxMidtones = (long) width * height * BILEVEL_MAX_MIDTONE_PERCENT / 100;
+        long midtones = 0;
+        boolean bilevel = options.detectBilevel();
+        int[] row = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+                if (Math.abs(r - g) > GRAY_TOLERANCE || Math.abs(g - b) > GRAY_TOLERANCE
+                        || Math.abs(r - b) > GRAY_TOLERANCE) {
+                    return Tone.COLOR;
+                }
+                if (bilevel) {
+                    int luminance = EncodedImage.luminance(argb);
+                    if (luminance > BILEVEL_LOW && luminance < BILEVEL_HIGH && ++midtones > maxMidtones) {
+                        bilevel = false;
+                    }
+                }
+            }
+        }
+
+        if (bilevel) {
+            return Tone.BILEVEL;
+        }
+        return options.detectGrayscale() ? Tone.GRAY : Tone.COLOR;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, boolean gray, float quality) throws IOException {
+        int type = gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB;
+        BufferedImage source = image;
+        if (image.getType() != type) {
+            source = new BufferedImage(image.getWidth(), image.getHeight(), type);
+            Graphics2D g = source.createGraphics();
+            try {
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(source, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.conversonweb.infrastructure.converter;
 
 import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.domain.model.ImageOptions;
 import com.example.conversonweb.domain.service.FileConverter;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -9,9 +13,8 @@ import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Converter for images to PDF using Apache PDFBox
@@ -21,43 +24,85 @@ import java.io.File;
 public class ImageToPdfConverter implements FileConverter {
     private static final String[] SUPPORTED_EXTENSIONS = { ".jpg", ".jpeg", ".png", ".bmp", ".gif", ".tiff", ".tif" };
 
+    private final ImageOptions imageOptions;
+    private final PdfMemoryPolicy memoryPolicy;
+    private final StageTimer stageTimer;
+
+    public ImageToPdfConverter() {
+        this(ImageOptions.ORIGINAL);
+    }
+
+    public ImageToPdfConverter(ImageOptions imageOptions) {
+        this(imageOptions, PdfMemoryPolicy.heapOnly(), StageTimer.NONE);
+    }
+
+    /**
+     * @param memoryPolicy where page streams are buffered; with scratch files, a
+     *                     multi-page image holds one decoded frame in heap however
+     *                     many pages it has
+     */
+    public ImageToPdfConverter(ImageOptions imageOptions, PdfMemoryPolicy memoryPolicy, StageTimer stageTimer) {
+        this.imageOptions = imageOptions;
+        this.memoryPolicy = memoryPolicy;
+        this.stageTimer = stageTimer;
+    }
+
     @Override
     public void convertToPdf(File sourceFile, File outputFile) throws ConversionException {
         log.info("Converting image {} to PDF", sourceFile.getName());
 
-        try (PDDocument document = new PDDocument()) {
-            BufferedImage image = ImageIO.read(sourceFile);
-
-            if (image == null) {
-                throw new ConversionException("Unable to read image file: " + sourceFile.getName());
+        long start = System.nanoTime();
+        try (PDDocument document = new PDDocument(memoryPolicy.createSetting());
+                ImageFrames frames = ImageFrames.open(sourceFile, imageOptions)) {
+            if (frames == null) {
+                // Reads the file once: JPEG data is embedded as-is, other formats decoded a single time
+                EncodedImage encodedImage = EncodedImage.fromFile(sourceFile, imageOptions);
+                stageTimer.record(ConversionStage.DECODE, sourceFile, start);
+                addPage(document, encodedImage, sourceFile);
+            } else {
+                // Multi-page TIFF or animated GIF: one page per frame, one frame in memory at a time
+                while (frames.hasNext()) {
+                    ConversionScheduler.checkCancelled();
+                    EncodedImage frame = frames.next();
+                    stageTimer.record(ConversionStage.DECODE, sourceFile, start);
+                    addPage(document, frame, sourceFile);
+                    start = System.nanoTime();
+                }
             }
 
-            PDImageXObject pdImage = PDImageXObject.createFromFile(sourceFile.getAbsolutePath(), document);
+            start = System.nanoTime();
+            document.save(outputFile);
+            stageTimer.record(ConversionStage.SAVE, outputFile, start);
+            log.info("Successfully converted {} to PDF ({} pages)", sourceFile.getName(), document.getNumberOfPages());
 
-            float width = pdImage.getWidth();
-            float height = pdImage.getHeight();
+        } catch (Exception e) {
+            throw new ConversionException("Error converting image to PDF: " + e.getMessage(), e);
+        }
+    }
 
-            // Scale to A4 if too large
-            PDRectangle pageSize = PDRectangle.A4;
-            if (width > pageSize.getWidth() || height > pageSize.getHeight()) {
-                float scale = Math.min(pageSize.getWidth() / width, pageSize.getHeight() / height);
-                width *= scale;
-                height *= scale;
-            }
+    private void addPage(PDDocument document, EncodedImage encodedImage, File sourceFile) throws IOException {
+        long start = System.nanoTime();
+        PDImageXObject pdImage = encodedImage.toImageXObject(document);
 
-            PDPage page = new PDPage(new PDRectangle(width, height));
-            document.addPage(page);
+        // Layout uses the source size, so downsampling never changes the page size
+        float width = encodedImage.getDisplayWidth();
+        float height = encodedImage.getDisplayHeight();
 
-            try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
-                contentStream.drawImage(pdImage, 0, 0, width, height);
-            }
+        // Scale to A4 if too large
+        PDRectangle pageSize = PDRectangle.A4;
+        if (width > pageSize.getWidth() || height > pageSize.getHeight()) {
+            float scale = Math.min(pageSize.getWidth() / width, pageSize.getHeight() / height);
+            width *= scale;
+            height *= scale;
+        }
 
-            document.save(outputFile);
-            log.info("Successfully converted {} to PDF", sourceFile.getName());
+        PDPage page = new PDPage(new PDRectangle(width, height));
+        document.addPage(page);
 
-        } catch (Exception e) {
-            throw new ConversionException("Error converting image to PDF: " + e.getMessage(), e);
+        try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+            contentStream.drawImage(pdImage, 0, 0, width, height);
         }
+        stageTimer.record(ConversionStage.RENDER, sourceFile, start);
     }
 
     @Override
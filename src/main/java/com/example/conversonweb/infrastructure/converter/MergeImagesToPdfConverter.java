@@ -1,102 +1,207 @@
 package com.example.conversonweb.infrastructure.converter;
 
 import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.domain.model.ImageOptions;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.io.MemoryUsageSetting;
-import org.apache.pdfbox.multipdf.PDFMergerUtility;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Converter for merging multiple images into a single PDF
- * Uses parallel processing for optimal performance
+ * Streams pages through a bounded window: images are decoded and encoded in
+ * parallel on the shared conversion scheduler and appended in order as soon
+ * as they are ready, so memory depends on the window size, not the job size.
+ * Multi-page TIFFs and animated GIFs add one page per frame, encoded one
+ * frame at a time when the image reaches the front of the window
+ *
+ * The output file is only written by the final save, as PDFBox 2 has no
+ * progressive output; appended pages wait in the merge memory policy's buffer.
  */
 @Slf4j
 public class MergeImagesToPdfConverter {
 
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private final ConversionScheduler scheduler;
+    private final int windowSize;
+    private final PdfMemoryPolicy memoryPolicy;
+    private final ImageOptions imageOptions;
+    private final StageTimer stageTimer;
+
+    public MergeImagesToPdfConverter(ConversionScheduler scheduler, int windowSize, PdfMemoryPolicy memoryPolicy) {
+        this(scheduler, windowSize, memoryPolicy, ImageOptions.ORIGINAL);
+    }
+
+    public MergeImagesToPdfConverter(ConversionScheduler scheduler, int windowSize, PdfMemoryPolicy memoryPolicy,
+            ImageOptions imageOptions) {
+        this(scheduler, windowSize, memoryPolicy, imageOptions, StageTimer.NONE);
+    }
+
+    public MergeImagesToPdfConverter(ConversionScheduler scheduler, int windowSize, PdfMemoryPolicy memoryPolicy,
+            ImageOptions imageOptions, StageTimer stageTimer) {
+        this.scheduler = scheduler;
+        this.windowSize = Math.max(1, windowSize);
+        this.memoryPolicy = memoryPolicy;
+        this.imageOptions = imageOptions;
+        this.stageTimer = stageTimer;
+    }
 
     /**
      * Merges multiple images into a single PDF file
-     * Images are processed in parallel for maximum speed
      */
-    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile) throws ConversionException {
-        log.info("Merging {} images into single PDF using {} threads", sourceFiles.size(), THREAD_POOL_SIZE);
+    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile, String jobId)
+            throws ConversionException {
+        convertMultipleToPdf(sourceFiles, outputFile, jobId, MergeProgressListener.NONE);
+    }
 
-        ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
-        List<Future<ImagePage>> futures = new ArrayList<>();
+    /**
+     * Merges multiple images into a single PDF file
+     * At most windowSize encoded images are held in memory at any time
+     */
+    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile, String jobId,
+            MergeProgressListener progressListener) throws ConversionException {
+        log.info("Merging {} images into single PDF (window of {} pages)", sourceFiles.size(), windowSize);
 
-        try (PDDocument document = new PDDocument()) {
+        Deque<Future<LoadedImage>> window = new ArrayDeque<>();
+        PdfMemoryPolicy.HeapProbe heapProbe = memoryPolicy.startHeapProbe();
 
-            // Load all images in parallel
-            for (int i = 0; i < sourceFiles.size(); i++) {
-                final File imageFile = sourceFiles.get(i);
-                final int index = i;
+        try (PDDocument document = new PDDocument(memoryPolicy.createSetting())) {
+            int nextToSubmit = 0;
 
-                futures.add(executor.submit(() -> loadImage(imageFile, index)));
-            }
+            for (int pageIndex = 0; pageIndex < sourceFiles.size(); pageIndex++) {
+                ConversionScheduler.checkCancelled();
 
-            // Wait for all images to load and add them to PDF in order
-            List<ImagePage> imagePages = new ArrayList<>();
-            for (Future<ImagePage> future : futures) {
-                try {
-                    imagePages.add(future.get(60, TimeUnit.SECONDS));
-                } catch (Exception e) {
-                    throw new ConversionException("Error loading image: " + e.getMessage(), e);
+                // Keep the window full so workers stay busy while we append in order
+                while (nextToSubmit < sourceFiles.size() && window.size() < windowSize) {
+                    final File imageFile = sourceFiles.get(nextToSubmit++);
+                    window.addLast(scheduler.submit(jobId, ConversionScheduler.Lane.CPU,
+                            () -> encodeImage(imageFile)));
                 }
-            }
 
-            // Sort by original index to maintain order
-            imagePages.sort((a, b) -> Integer.compare(a.index, b.index));
-
-            // Add pages to document
-            for (ImagePage imagePage : imagePages) {
-                addImageToDocument(document, imagePage.file, imagePage.image);
+                File imageFile = sourceFiles.get(pageIndex);
+                LoadedImage loaded = awaitPage(window.pollFirst(), imageFile);
+                try (ImageFrames remainingFrames = loaded.remainingFrames()) {
+                    addImageToDocument(document, loaded.firstPage(), imageFile);
+                    heapProbe.sample();
+                    if (remainingFrames != null) {
+                        progressListener.pagesAppended(pageIndex, sourceFiles.size(), document.getNumberOfPages(),
+                                imageFile.getName());
+                    }
+
+                    // Further TIFF pages or GIF frames follow one at a time, still on the CPU lane
+                    while (remainingFrames != null && remainingFrames.hasNext()) {
+                        ConversionScheduler.checkCancelled();
+                        EncodedImage frame = awaitPage(scheduler.submit(jobId, ConversionScheduler.Lane.CPU,
+                                () -> encodeFrame(remainingFrames, imageFile)), imageFile);
+                        addImageToDocument(document, frame, imageFile);
+                        heapProbe.sample();
+                        if (remainingFrames.hasNext()) {
+                            progressListener.pagesAppended(pageIndex, sourceFiles.size(),
+                                    document.getNumberOfPages(), imageFile.getName());
+                        }
+                    }
+                }
+                progressListener.pagesAppended(pageIndex + 1, sourceFiles.size(), document.getNumberOfPages(),
+                        imageFile.getName());
             }
 
             // Save merged PDF
+            long start = System.nanoTime();
             document.save(outputFile);
-            log.info("Successfully merged {} images into {}", sourceFiles.size(), outputFile.getName());
+            stageTimer.record(ConversionStage.SAVE, outputFile, start);
+            heapProbe.report(outputFile.getName(), stageTimer);
+            log.info("Successfully merged {} images into {} ({} pages)", sourceFiles.size(), outputFile.getName(),
+                    document.getNumberOfPages());
 
         } catch (IOException e) {
             throw new ConversionException("Error creating merged PDF: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Image merge interrupted", e);
         } finally {
-            executor.shutdown();
+            // Release any work still queued or running after a failure
+            window.forEach(MergeImagesToPdfConverter::discard);
+        }
+    }
+
+    /**
+     * Encodes the first page of an image; multi-frame images stay open so the
+     * rest of their frames can be encoded when their turn comes
+     */
+    private LoadedImage encodeImage(File imageFile) throws IOException {
+        log.debug("Encoding image: {}", imageFile.getName());
+        long start = System.nanoTime();
+        ImageFrames frames = ImageFrames.open(imageFile, imageOptions);
+        if (frames == null) {
+            LoadedImage loaded = new LoadedImage(EncodedImage.fromFile(imageFile, imageOptions), null);
+            stageTimer.record(ConversionStage.DECODE, imageFile, start);
+            return loaded;
+        }
+        try {
+            LoadedImage loaded = new LoadedImage(frames.next(), frames);
+            stageTimer.record(ConversionStage.DECODE, imageFile, start);
+            return loaded;
+        } catch (IOException | RuntimeException e) {
+            frames.close();
+            throw e;
+        }
+    }
+
+    private EncodedImage encodeFrame(ImageFrames frames, File imageFile) throws IOException {
+        long start = System.nanoTime();
+        EncodedImage frame = frames.next();
+        stageTimer.record(ConversionStage.DECODE, imageFile, start);
+        return frame;
+    }
+
+    private static void discard(Future<LoadedImage> future) {
+        if (!future.cancel(true) && future.isDone()) {
             try {
-                executor.awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+                LoadedImage loaded = future.get();
+                if (loaded.remainingFrames() != null) {
+                    loaded.remainingFrames().close();
+                }
+            } catch (Exception e) {
+                log.debug("Discarded page failed: {}", e.getMessage());
             }
         }
     }
 
-    private ImagePage loadImage(File imageFile, int index) throws IOException {
-        log.debug("Loading image: {}", imageFile.getName());
-        BufferedImage image = ImageIO.read(imageFile);
-        if (image == null) {
-            throw new IOException("Unable to read image: " + imageFile.getName());
+    private <T> T awaitPage(Future<T> future, File imageFile)
+            throws ConversionException, InterruptedException {
+        try {
+            return future.get(60, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw new ConversionException("Error loading image " + imageFile.getName() + ": "
+                    + e.getCause().getMessage(), e.getCause());
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ConversionException("Timed out loading image: " + imageFile.getName(), e);
         }
-        return new ImagePage(index, imageFile, image);
     }
 
-    private void addImageToDocument(PDDocument document, File imageFile, BufferedImage bufferedImage)
+    private void addImageToDocument(PDDocument document, EncodedImage encodedImage, File imageFile)
             throws IOException {
+        long start = System.nanoTime();
+        PDImageXObject pdImage = encodedImage.toImageXObject(document);
 
-        PDImageXObject pdImage = PDImageXObject.createFromFile(imageFile.getAbsolutePath(), document);
-
-        float width = pdImage.getWidth();
-        float height = pdImage.getHeight();
+        // Layout uses the source size, so downsampling never changes the page size
+        float width = encodedImage.getDisplayWidth();
+        float height = encodedImage.getDisplayHeight();
 
         // Scale to A4 if too large
         PDRectangle pageSize = PDRectangle.A4;
@@ -112,18 +217,12 @@ public class MergeImagesToPdfConverter {
         try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
             contentStream.drawImage(pdImage, 0, 0, width, height);
         }
+        stageTimer.record(ConversionStage.RENDER, imageFile, start);
     }
 
-    // Helper class to maintain order
-    private static class ImagePage {
-        final int index;
-        final File file;
-        final BufferedImage image;
-
-        ImagePage(int index, File file, BufferedImage image) {
-            this.index = index;
-            this.file = file;
-            this.image = image;
-        }
+    /**
+     * First page of an image, plus the open frames still to come for multi-page images
+     */
+    private record LoadedImage(EncodedImage firstPage, ImageFrames remainingFrames) {
     }
 }
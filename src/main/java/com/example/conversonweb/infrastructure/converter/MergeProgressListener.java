@@ -0,0 +1,21 @@
+package com.example.conversonweb.infrastructure.converter;
+
+/**
+ * Notified by the merge converters each time pages are appended to the output.
+ * Sources are appended in order, so completedSources is always a prefix of the
+ * job's file list. Called on the merging thread.
+ */
+@FunctionalInterface
+public interface MergeProgressListener {
+
+    MergeProgressListener NONE = (completedSources, totalSources, pages, fileName) -> {
+    };
+
+    /**
+     * @param completedSources source files fully appended so far
+     * @param totalSources     source files in the merge
+     * @param pages            pages in the output so far
+     * @param fileName         source file the latest pages came from
+     */
+    void pagesAppended(int completedSources, int totalSources, int pages, String fileName);
+}
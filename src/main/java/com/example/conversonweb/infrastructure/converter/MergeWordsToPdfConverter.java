@@ -1,11 +1,13 @@
 package com.example.conversonweb.infrastructure.converter;
 
 import com.example.conversonweb.domain.exception.ConversionException;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.multipdf.PDFMergerUtility;
-import org.docx4j.Docx4J;
-import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.apache.pdfbox.pdmodel.PDDocument;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -13,65 +15,125 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Converter for merging multiple Word documents into a single PDF
- * Uses parallel processing for optimal performance
+ * Uses the shared conversion scheduler for parallel processing. Output pages are
+ * buffered through the merge memory policy, so large results spill to scratch
+ * files instead of the heap.
+ *
+ * Documents are appended in order as they become ready, but the output file is
+ * only written by the final save: PDFBox 2 writes the cross-reference table for
+ * the whole document at once and has no progressive output. Until then nothing
+ * exists on disk; progress is reported through the {@link MergeProgressListener}.
  */
 @Slf4j
 public class MergeWordsToPdfConverter {
 
-    private static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    private final ConversionScheduler scheduler;
+    private final PdfMemoryPolicy memoryPolicy;
+    private final WordRenderingEngine renderingEngine;
+    private final StageTimer stageTimer;
+
+    public MergeWordsToPdfConverter(ConversionScheduler scheduler, PdfMemoryPolicy memoryPolicy,
+            WordRenderingEngine renderingEngine) {
+        this(scheduler, memoryPolicy, renderingEngine, StageTimer.NONE);
+    }
+
+    public MergeWordsToPdfConverter(ConversionScheduler scheduler, PdfMemoryPolicy memoryPolicy,
+            WordRenderingEngine renderingEngine, StageTimer stageTimer) {
+        this.scheduler = scheduler;
+        this.memoryPolicy = memoryPolicy;
+        this.renderingEngine = renderingEngine;
+        this.stageTimer = stageTimer;
+    }
+
+    /**
+     * Merges multiple Word documents into a single PDF file
+     */
+    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile, String jobId)
+            throws ConversionException {
+        convertMultipleToPdf(sourceFiles, outputFile, jobId, MergeProgressListener.NONE);
+    }
 
     /**
      * Merges multiple Word documents into a single PDF file
-     * Each Word is converted to PDF in parallel, then merged
+     * Each Word is converted to PDF in parallel on the scheduler's document lane and
+     * appended to the output as soon as it and every document before it are ready.
+     * Documents finishing out of order wait on disk as temp PDFs.
      */
-    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile) throws ConversionException {
-        log.info("Merging {} Word documents into single PDF using {} threads",
-                sourceFiles.size(), THREAD_POOL_SIZE);
+    public void convertMultipleToPdf(List<File> sourceFiles, File outputFile, String jobId,
+            MergeProgressListener progressListener) throws ConversionException {
+        log.info("Merging {} Word documents into single PDF", sourceFiles.size());
 
-        ExecutorService executor = Executors.newFixedThreadPool(THREAD_POOL_SIZE);
         List<Future<TempPdf>> futures = new ArrayList<>();
         List<File> tempPdfFiles = new ArrayList<>();
+        List<PDDocument> sources = new ArrayList<>();
+        PDFMergerUtility merger = new PDFMergerUtility();
+        PdfMemoryPolicy.HeapProbe heapProbe = memoryPolicy.startHeapProbe();
 
-        try {
+        try (PDDocument destination = new PDDocument(memoryPolicy.createSetting())) {
             // Convert each Word to temporary PDF in parallel
             for (int i = 0; i < sourceFiles.size(); i++) {
                 final File wordFile = sourceFiles.get(i);
                 final int index = i;
 
-                futures.add(executor.submit(() -> convertWordToTempPdf(wordFile, index)));
+                futures.add(scheduler.submit(jobId, ConversionScheduler.Lane.DOCUMENT,
+                        () -> convertWordToTempPdf(wordFile, index)));
             }
 
-            // Wait for all conversions and collect temp PDFs in order
-            List<TempPdf> tempPdfs = new ArrayList<>();
-            for (Future<TempPdf> future : futures) {
+            // Append in order while later documents are still rendering
+            for (int i = 0; i < futures.size(); i++) {
+                TempPdf tempPdf;
                 try {
-                    tempPdfs.add(future.get(120, TimeUnit.SECONDS));
+                    tempPdf = futures.get(i).get(120, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw e;
                 } catch (Exception e) {
                     throw new ConversionException("Error converting Word to PDF: " + e.getMessage(), e);
                 }
-            }
-
-            // Sort by original index to maintain order
-            tempPdfs.sort((a, b) -> Integer.compare(a.index, b.index));
-
-            // Collect temp files for cleanup
-            for (TempPdf tempPdf : tempPdfs) {
+                // Tracked for cleanup as soon as it exists, so a later failure cannot leak it
                 tempPdfFiles.add(tempPdf.file);
+                ConversionScheduler.checkCancelled();
+
+                // Sources must stay open until the destination is saved; they buffer in scratch files only
+                long start = System.nanoTime();
+                PDDocument source = PDDocument.load(tempPdf.file, memoryPolicy.createSourceSetting());
+                sources.add(source);
+                merger.appendDocument(destination, source);
+                stageTimer.record(ConversionStage.MERGE, sourceFiles.get(i), start);
+                heapProbe.sample();
+                progressListener.pagesAppended(i + 1, sourceFiles.size(), destination.getNumberOfPages(),
+                        sourceFiles.get(i).getName());
             }
 
-            // Merge all PDFs into final output
-            mergePdfs(tempPdfFiles, outputFile);
-
-            log.info("Successfully merged {} Word documents into {}",
-                    sourceFiles.size(), outputFile.getName());
+            long start = System.nanoTime();
+            destination.save(outputFile);
+            stageTimer.record(ConversionStage.SAVE, outputFile, start);
+            heapProbe.report(outputFile.getName(), stageTimer);
+            log.info("Successfully merged {} Word documents into {} ({} pages)",
+                    sourceFiles.size(), outputFile.getName(), destination.getNumberOfPages());
 
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConversionException("Word merge interrupted", e);
         } catch (Exception e) {
             throw new ConversionException("Error creating merged PDF: " + e.getMessage(), e);
         } finally {
+            // Release any work still queued or running after a failure or timeout.
+            // Running renders stop at their next write; they delete their own temp file.
+            futures.forEach(future -> future.cancel(true));
+
+            for (PDDocument source : sources) {
+                try {
+                    source.close();
+                } catch (IOException e) {
+                    log.debug("Could not close merged source: {}", e.getMessage());
+                }
+            }
+
             // Cleanup temp files
             for (File tempFile : tempPdfFiles) {
                 try {
@@ -80,13 +142,6 @@ public class MergeWordsToPdfConverter {
                     log.warn("Could not delete temp file: {}", tempFile.getName());
                 }
             }
-
-            executor.shutdown();
-            try {
-                executor.awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
         }
     }
 
@@ -94,28 +149,23 @@ public class MergeWordsToPdfConverter {
         log.debug("Converting Word to PDF: {}", wordFile.getName());
 
         // Create temp PDF file
-        File tempPdf = File.createTempFile("word_to_pdf_", ".pdf");
+        File tempPdf = memoryPolicy.createTempFile("word_to_pdf_", ".pdf");
 
         // Convert Word to PDF
-        WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.load(wordFile);
-        try (FileOutputStream fos = new FileOutputStream(tempPdf)) {
-            Docx4J.toPDF(wordMLPackage, fos);
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tempPdf)) {
+                renderingEngine.convertToPdf(wordFile, fos, stageTimer);
+            }
+            // Cancelled (merge failed, timed out or job cancelled): nobody will collect the result
+            ConversionScheduler.checkCancelled();
+        } catch (Exception e) {
+            Files.deleteIfExists(tempPdf.toPath());
+            throw e;
         }
 
         return new TempPdf(index, tempPdf);
     }
 
-    private void mergePdfs(List<File> pdfFiles, File outputFile) throws IOException {
-        PDFMergerUtility merger = new PDFMergerUtility();
-        merger.setDestinationFileName(outputFile.getAbsolutePath());
-
-        for (File pdfFile : pdfFiles) {
-            merger.addSource(pdfFile);
-        }
-
-        merger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
-    }
-
     // Helper class to maintain order
     private static class TempPdf {
         final int index;
@@ -0,0 +1,110 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Memory policy for PDFBox documents built or loaded during conversions and merges.
+ * Keeps up to maxMainMemoryBytes of the document being built buffered in heap and
+ * spills the rest to scratch files, so outputs larger than the heap don't OOM.
+ * Sources appended into a merge stay open until it is saved, so they are buffered in
+ * scratch files only: the cap is one budget per merge, not per open document.
+ *
+ * - maxMainMemoryBytes &lt; 0: heap only (no scratch files)
+ * - maxMainMemoryBytes = 0: scratch files only
+ * - maxMainMemoryBytes &gt; 0: heap up to the cap, then scratch files
+ */
+@Slf4j
+public class PdfMemoryPolicy {
+
+    private final long maxMainMemoryBytes;
+    private final File scratchDir;
+
+    public PdfMemoryPolicy(long maxMainMemoryBytes, File scratchDir) {
+        this.maxMainMemoryBytes = maxMainMemoryBytes;
+        this.scratchDir = scratchDir;
+    }
+
+    /**
+     * Policy keeping everything in heap, for converters built without a scratch directory
+     */
+    public static PdfMemoryPolicy heapOnly() {
+        return new PdfMemoryPolicy(-1, null);
+    }
+
+    /**
+     * Creates a fresh setting; PDFBox settings must not be shared between documents
+     */
+    public MemoryUsageSetting createSetting() throws IOException {
+        if (maxMainMemoryBytes < 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+
+        Files.createDirectories(scratchDir.toPath());
+        MemoryUsageSetting setting = maxMainMemoryBytes == 0
+                ? MemoryUsageSetting.setupTempFileOnly()
+                : MemoryUsageSetting.setupMixed(maxMainMemoryBytes);
+        return setting.setTempDir(scratchDir);
+    }
+
+    /**
+     * Creates a fresh setting for a document loaded to be appended into a merge.
+     * Scratch files only, unless the policy is heap only.
+     */
+    public MemoryUsageSetting createSourceSetting() throws IOException {
+        if (maxMainMemoryBytes < 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+
+        Files.createDirectories(scratchDir.toPath());
+        return MemoryUsageSetting.setupTempFileOnly().setTempDir(scratchDir);
+    }
+
+    /**
+     * Creates a temp file for intermediate output in the scratch directory
+     */
+    public File createTempFile(String prefix, String suffix) throws IOException {
+        Files.createDirectories(scratchDir.toPath());
+        return File.createTempFile(prefix, suffix, scratchDir);
+    }
+
+    public HeapProbe startHeapProbe() {
+        return new HeapProbe();
+    }
+
+    /**
+     * Samples used heap during a merge and reports the peak seen to the merge's
+     * stage timer (conversion.merge.peak.heap).
+     * Heap is shared by all running jobs, so this is an upper bound for one merge.
+     */
+    public static class HeapProbe {
+        private final Runtime runtime = Runtime.getRuntime();
+        private final long startBytes;
+        private long peakBytes;
+
+        private HeapProbe() {
+            this.startBytes = usedHeap();
+            this.peakBytes = startBytes;
+        }
+
+        public void sample() {
+            peakBytes = Math.max(peakBytes, usedHeap());
+        }
+
+        public void report(String mergeName, StageTimer stageTimer) {
+            sample();
+            stageTimer.recordPeakHeap(peakBytes);
+            log.debug("Merge {} peak heap: {} MB (started at {} MB)",
+                    mergeName, peakBytes / (1024 * 1024), startBytes / (1024 * 1024));
+        }
+
+        private long usedHeap() {
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders one large Word document in parallel: the document is cut at page and
+ * section breaks (see {@link WordDocumentSplitter}), the chunks are rendered on the
+ * scheduler's document lane and the resulting PDFs stitched in order.
+ *
+ * The thread asking for the render works through the chunks itself, taking any
+ * chunk no worker has started yet, so it never waits on a lane it may be blocking.
+ * Every chunk is loaded from the file by the thread that renders it, as docx4j
+ * packages are not safe to share.
+ *
+ * Fidelity check: the stitched PDF is compared with the page count Word saved in
+ * the document. Cutting can only add pages, so a render with more pages than
+ * allowed by the tolerance is redone in one piece.
+ */
+@Slf4j
+public class SplitWordRenderer {
+
+    private final WordRenderingEngine renderingEngine;
+    private final ConversionScheduler scheduler;
+    private final PdfMemoryPolicy memoryPolicy;
+    private final long minDocumentBytes;
+    private final int maxChunks;
+    private final int pageCountTolerancePercent;
+
+    public SplitWordRenderer(WordRenderingEngine renderingEngine, ConversionScheduler scheduler,
+            PdfMemoryPolicy memoryPolicy, long minDocumentBytes, int maxChunks, int pageCountTolerancePercent) {
+        this.renderingEngine = renderingEngine;
+        this.scheduler = scheduler;
+        this.memoryPolicy = memoryPolicy;
+        this.minDocumentBytes = minDocumentBytes;
+        this.maxChunks = maxChunks;
+        this.pageCountTolerancePercent = pageCountTolerancePercent;
+    }
+
+    /**
+     * Whether the document is large enough to be worth splitting, and free of
+     * content that cannot be rendered in separate chunks. Reads the file's parts
+     * without loading the document.
+     */
+    public boolean shouldSplit(File wordFile) {
+        if (minDocumentBytes <= 0 || maxChunks < 2 || !wordFile.getName().toLowerCase().endsWith(".docx")) {
+            return false;
+        }
+        long documentSize = WordDocumentSplitter.mainDocumentSize(wordFile);
+        if (documentSize < minDocumentBytes) {
+            return false;
+        }
+        try {
+            if (WordDocumentSplitter.hasLayoutDependentContent(wordFile)) {
+                log.debug("{} has page number fields or notes; rendering in one piece", wordFile.getName());
+                return false;
+            }
+        } catch (IOException e) {
+            return false;
+        }
+        return true;
+    }
+
+    public void convertToPdf(File wordFile, File outputFile) throws Exception {
+        WordprocessingMLPackage document = WordprocessingMLPackage.load(wordFile);
+        int elements = document.getMainDocumentPart().getJaxbElement().getBody().getContent().size();
+        List<Integer> starts = WordDocumentSplitter.chunkStarts(document, maxChunks);
+        if (starts.size() < 2) {
+            log.debug("{} has no page breaks to split at; rendering in one piece", wordFile.getName());
+            renderWhole(document, outputFile);
+            return;
+        }
+        Integer savedPages = WordDocumentSplitter.savedPageCount(document);
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : elements;
+            chunks.add(new Chunk(starts.get(i), end));
+        }
+        log.info("Rendering {} in {} chunks", wordFile.getName(), chunks.size());
+
+        String jobId = ConversionScheduler.currentJobId() != null
+                ? ConversionScheduler.currentJobId()
+                : "split-" + wordFile.getName();
+        try {
+            for (Chunk chunk : chunks.subList(1, chunks.size())) {
+                chunk.file = memoryPolicy.createTempFile("word_chunk_", ".pdf");
+                chunk.future = scheduler.trySubmit(jobId, ConversionScheduler.Lane.DOCUMENT,
+                        () -> renderChunk(wordFile, null, chunk));
+            }
+            chunks.get(0).file = memoryPolicy.createTempFile("word_chunk_", ".pdf");
+
+            // The first chunk reuses the package already loaded; the rest unless a worker has them
+            for (Chunk chunk : chunks) {
+                ConversionScheduler.checkCancelled();
+                if (chunk.claimed.compareAndSet(false, true)) {
+                    render(wordFile, chunk == chunks.get(0) ? document : null, chunk);
+                } else {
+                    await(chunk.future);
+                }
+            }
+
+            int pages = stitch(chunks, outputFile);
+            if (savedPages != null && savedPages > 0
+                    && pages - savedPages > Math.max(1, savedPages * pageCountTolerancePercent / 100)) {
+                log.warn("Split render of {} has {} pages, the document says {}; rendering in one piece",
+                        wordFile.getName(), pages, savedPages);
+                renderWhole(WordprocessingMLPackage.load(wordFile), outputFile);
+            }
+        } finally {
+            for (Chunk chunk : chunks) {
+                if (chunk.future != null) {
+                    chunk.future.cancel(true);
+                }
+                if (chunk.file != null) {
+                    Files.deleteIfExists(chunk.file.toPath());
+                }
+            }
+        }
+    }
+
+    private Void renderChunk(File wordFile, WordprocessingMLPackage loaded, Chunk chunk) throws Exception {
+        // The requesting thread may have taken this chunk already
+        if (chunk.claimed.compareAndSet(false, true)) {
+            render(wordFile, loaded, chunk);
+        }
+        return null;
+    }
+
+    private void render(File wordFile, WordprocessingMLPackage loaded, Chunk chunk) throws Exception {
+        WordprocessingMLPackage wordMLPackage = loaded != null ? loaded : WordprocessingMLPackage.load(wordFile);
+        ConversionScheduler.checkCancelled();
+        WordDocumentSplitter.restrictTo(wordMLPackage, chunk.start, chunk.end);
+        try (FileOutputStream out = new FileOutputStream(chunk.file)) {
+            renderingEngine.renderPdf(wordMLPackage, out, true);
+        }
+        log.debug("Rendered elements {}-{} of {}", chunk.start, chunk.end, wordFile.getName());
+    }
+
+    private void renderWhole(WordprocessingMLPackage wordMLPackage, File outputFile) throws Exception {
+        try (FileOutputStream out = new FileOutputStream(outputFile)) {
+            renderingEngine.renderPdf(wordMLPackage, out);
+        }
+    }
+
+    private static void await(Future<?> future) throws Exception {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * @return the number of pages written
+     */
+    private int stitch(List<Chunk> chunks, File outputFile) throws IOException {
+        PDFMergerUtility merger = new PDFMergerUtility();
+        List<PDDocument> sources = new ArrayList<>();
+
+        try (PDDocument destination = new PDDocument(memoryPolicy.createSetting())) {
+            for (Chunk chunk : chunks) {
+                // Sources must stay open until the destination is saved; they buffer in scratch files only
+                PDDocument source = PDDocument.load(chunk.file, memoryPolicy.createSourceSetting());
+                sources.add(source);
+                merger.appendDocument(destination, source);
+            }
+            destination.save(outputFile);
+            return destination.getNumberOfPages();
+        } finally {
+            for (PDDocument source : sources) {
+                source.close();
+            }
+        }
+    }
+
+    /**
+     * Top-level body elements [start, end), rendered by whichever thread claims it first
+     */
+    private static class Chunk {
+        final int start;
+        final int end;
+        final AtomicBoolean claimed = new AtomicBoolean();
+        volatile File file;
+        Future<?> future;
+
+        Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+}
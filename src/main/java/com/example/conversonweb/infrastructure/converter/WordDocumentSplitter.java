@@ -0,0 +1,294 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import org.docx4j.XmlUtils;
+import org.docx4j.model.PropertyResolver;
+import org.docx4j.model.listnumbering.Emulator;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.openpackaging.parts.DocPropsExtendedPart;
+import org.docx4j.wml.Body;
+import org.docx4j.wml.Br;
+import org.docx4j.wml.ContentAccessor;
+import org.docx4j.wml.P;
+import org.docx4j.wml.PPr;
+import org.docx4j.wml.PPrBase;
+import org.docx4j.wml.R;
+import org.docx4j.wml.STBrType;
+import org.docx4j.wml.SdtBlock;
+import org.docx4j.wml.SectPr;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Cuts a Word document into chunks that render to the same pages as the whole
+ * document. Chunks only start where the whole document starts a new page anyway:
+ * after a next-page section break, after a paragraph ending in a page break, or
+ * before a paragraph with page-break-before. Chunks are expressed as ranges of the
+ * body's top-level elements.
+ *
+ * What cannot be carried across a cut makes a document unsplittable: page number
+ * fields (PAGE, NUMPAGES, SECTIONPAGES, PAGEREF) and footnote/endnote numbering
+ * would restart in every chunk. List numbering is carried over, see {@link #restrictTo}.
+ */
+final class WordDocumentSplitter {
+
+    private static final String MAIN_DOCUMENT = "word/document.xml";
+
+    private static final Pattern LAYOUT_FIELD = Pattern.compile(
+            "(?:<w:instrText[^>]*>|w:instr=[\"'])\\s*(?:PAGE|NUMPAGES|SECTIONPAGES|PAGEREF)\\b");
+    private static final Pattern NOTE_REFERENCE = Pattern.compile("<w:(?:footnote|endnote)Reference\\b");
+
+    private WordDocumentSplitter() {
+    }
+
+    /**
+     * Size of the main document XML, a far better measure of rendering work than
+     * the compressed file size
+     *
+     * @return the size in bytes, or -1 if the file is not a readable docx
+     */
+    static long mainDocumentSize(File docxFile) {
+        try (ZipFile zip = new ZipFile(docxFile)) {
+            ZipEntry entry = zip.getEntry(MAIN_DOCUMENT);
+            return entry != null ? entry.getSize() : -1;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Scans the raw XML parts, before anything is loaded, for content whose
+     * rendering depends on pages laid out in other chunks
+     */
+    static boolean hasLayoutDependentContent(File docxFile) throws IOException {
+        try (ZipFile zip = new ZipFile(docxFile)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                boolean mainDocument = name.equals(MAIN_DOCUMENT);
+                if (!mainDocument && !name.matches("word/(header|footer)\\d*\\.xml")) {
+                    continue;
+                }
+                String xml;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    xml = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                if (LAYOUT_FIELD.matcher(xml).find() || (mainDocument && NOTE_REFERENCE.matcher(xml).find())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Page count Word saved with the document (docProps/app.xml), if any
+     */
+    static Integer savedPageCount(WordprocessingMLPackage wordMLPackage) {
+        DocPropsExtendedPart extendedPart = wordMLPackage.getDocPropsExtendedPart();
+        if (extendedPart == null) {
+            return null;
+        }
+        try {
+            return extendedPart.getContents() != null ? extendedPart.getContents().getPages() : null;
+        } catch (Docx4JException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Picks up to maxChunks chunk starts, as evenly spread over the document's
+     * paragraphs as the available cut points allow
+     *
+     * @return top-level element indices where chunks start; the first is always 0
+     */
+    static List<Integer> chunkStarts(WordprocessingMLPackage wordMLPackage, int maxChunks) {
+        List<Object> content = body(wordMLPackage).getContent();
+
+        // Paragraphs before each element, tables and content controls included
+        int[] weightBefore = new int[content.size() + 1];
+        for (int i = 0; i < content.size(); i++) {
+            weightBefore[i + 1] = weightBefore[i] + 1 + countParagraphs(content.get(i));
+        }
+        int totalWeight = weightBefore[content.size()];
+
+        List<Integer> starts = new ArrayList<>();
+        starts.add(0);
+        int chunks = Math.min(maxChunks, content.size());
+        int candidate = 1;
+        for (int k = 1; k < chunks; k++) {
+            int target = (int) ((long) totalWeight * k / chunks);
+            // First cut point at or after the target; the remaining chunks spread from there
+            while (candidate < content.size() && (weightBefore[candidate] < target || !isCutPoint(content, candidate))) {
+                candidate++;
+            }
+            if (candidate >= content.size()) {
+                break;
+            }
+            starts.add(candidate++);
+        }
+        return starts;
+    }
+
+    /**
+     * Reduces a freshly loaded copy of the document to the elements [start, end),
+     * keeping what the chunk inherits from the elements cut away:
+     * - list counters are advanced past the numbered paragraphs before the chunk
+     * - the chunk's last section keeps its own page setup, read from the section
+     *   break that ends it
+     * - a section started in an earlier chunk does not get its first-page header again
+     * - the page break at the cut itself is dropped, so no chunk ends or starts
+     *   with a blank page
+     */
+    static void restrictTo(WordprocessingMLPackage wordMLPackage, int start, int end) {
+        Body body = body(wordMLPackage);
+        List<Object> content = body.getContent();
+
+        advanceListNumbering(wordMLPackage, content.subList(0, start));
+
+        // The section holding the chunk's last element ends at the next section break
+        for (int i = end - 1; i < content.size(); i++) {
+            SectPr sectionBreak = sectionBreak(content.get(i));
+            if (sectionBreak != null) {
+                if (i == end - 1) {
+                    paragraph(content.get(i)).getPPr().setSectPr(null);
+                }
+                body.setSectPr(sectionBreak);
+                break;
+            }
+        }
+
+        if (start > 0) {
+            SectPr firstSection = firstSection(body, content, start, end);
+            if (sectionBreak(content.get(start - 1)) == null && firstSection != null) {
+                firstSection.setTitlePg(null);
+            }
+            P first = paragraph(content.get(start));
+            if (first != null && first.getPPr() != null) {
+                first.getPPr().setPageBreakBefore(null);
+            }
+        }
+        if (end < content.size()) {
+            removeTrailingPageBreak(paragraph(content.get(end - 1)));
+        }
+
+        content.subList(end, content.size()).clear();
+        content.subList(0, start).clear();
+    }
+
+    private static boolean isCutPoint(List<Object> content, int index) {
+        Object previous = content.get(index - 1);
+        SectPr sectionBreak = sectionBreak(previous);
+        if (sectionBreak != null) {
+            // Odd/even page breaks may insert a blank page; continuous ones none at all
+            return sectionBreak.getType() == null || "nextPage".equals(sectionBreak.getType().getVal());
+        }
+        if (trailingPageBreak(paragraph(previous)) != null) {
+            return true;
+        }
+        P paragraph = paragraph(content.get(index));
+        return paragraph != null && paragraph.getPPr() != null && paragraph.getPPr().getPageBreakBefore() != null
+                && paragraph.getPPr().getPageBreakBefore().isVal();
+    }
+
+    private static SectPr firstSection(Body body, List<Object> content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            SectPr sectionBreak = sectionBreak(content.get(i));
+            if (sectionBreak != null) {
+                return sectionBreak;
+            }
+        }
+        return body.getSectPr();
+    }
+
+    /**
+     * Runs the list number emulator over earlier paragraphs the way the FO exporter
+     * does while rendering, so numbering in the chunk continues instead of restarting
+     */
+    private static void advanceListNumbering(WordprocessingMLPackage wordMLPackage, List<Object> before) {
+        if (before.isEmpty() || wordMLPackage.getMainDocumentPart().getNumberingDefinitionsPart() == null) {
+            return;
+        }
+        PropertyResolver propertyResolver = wordMLPackage.getMainDocumentPart().getPropertyResolver();
+        List<P> paragraphs = new ArrayList<>();
+        for (Object element : before) {
+            collectParagraphs(element, paragraphs);
+        }
+        for (P paragraph : paragraphs) {
+            PPr effective = propertyResolver.getEffectivePPr(paragraph.getPPr());
+            PPrBase.NumPr numPr = effective != null ? effective.getNumPr() : null;
+            if (numPr == null || numPr.getNumId() == null || numPr.getNumId().getVal() == null) {
+                continue;
+            }
+            String level = numPr.getIlvl() != null && numPr.getIlvl().getVal() != null
+                    ? numPr.getIlvl().getVal().toString()
+                    : "0";
+            String style = paragraph.getPPr() != null && paragraph.getPPr().getPStyle() != null
+                    ? paragraph.getPPr().getPStyle().getVal()
+                    : null;
+            Emulator.getNumber(wordMLPackage, style, numPr.getNumId().getVal().toString(), level);
+        }
+    }
+
+    private static void collectParagraphs(Object element, List<P> paragraphs) {
+        Object unwrapped = XmlUtils.unwrap(element);
+        if (unwrapped instanceof P paragraph) {
+            paragraphs.add(paragraph);
+        } else if (unwrapped instanceof SdtBlock sdt && sdt.getSdtContent() != null) {
+            sdt.getSdtContent().getContent().forEach(child -> collectParagraphs(child, paragraphs));
+        } else if (unwrapped instanceof ContentAccessor container) {
+            container.getContent().forEach(child -> collectParagraphs(child, paragraphs));
+        }
+    }
+
+    private static int countParagraphs(Object element) {
+        List<P> paragraphs = new ArrayList<>();
+        collectParagraphs(element, paragraphs);
+        return paragraphs.size();
+    }
+
+    private static void removeTrailingPageBreak(P paragraph) {
+        R run = trailingPageBreak(paragraph);
+        if (run != null) {
+            run.getContent().remove(run.getContent().size() - 1);
+        }
+    }
+
+    /**
+     * @return the run whose last content is a page break ending the paragraph, or null
+     */
+    private static R trailingPageBreak(P paragraph) {
+        if (paragraph == null || paragraph.getContent().isEmpty()) {
+            return null;
+        }
+        Object last = XmlUtils.unwrap(paragraph.getContent().get(paragraph.getContent().size() - 1));
+        if (!(last instanceof R run) || run.getContent().isEmpty()) {
+            return null;
+        }
+        Object lastInRun = XmlUtils.unwrap(run.getContent().get(run.getContent().size() - 1));
+        return lastInRun instanceof Br br && br.getType() == STBrType.PAGE ? run : null;
+    }
+
+    private static SectPr sectionBreak(Object element) {
+        P paragraph = paragraph(element);
+        return paragraph != null && paragraph.getPPr() != null ? paragraph.getPPr().getSectPr() : null;
+    }
+
+    private static P paragraph(Object element) {
+        return XmlUtils.unwrap(element) instanceof P paragraph ? paragraph : null;
+    }
+
+    private static Body body(WordprocessingMLPackage wordMLPackage) {
+        return wordMLPackage.getMainDocumentPart().getJaxbElement().getBody();
+    }
+}
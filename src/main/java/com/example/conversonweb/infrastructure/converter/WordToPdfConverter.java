@@ -2,30 +2,55 @@ package com.example.conversonweb.infrastructure.converter;
 
 import com.example.conversonweb.domain.exception.ConversionException;
 import com.example.conversonweb.domain.service.FileConverter;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
 import lombok.extern.slf4j.Slf4j;
-import org.docx4j.Docx4J;
-import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
 
 import java.io.File;
 import java.io.FileOutputStream;
 
 /**
- * Converter for Word documents to PDF using docx4j
+ * Converter for Word documents to PDF using docx4j through the shared rendering engine
  * Reused from desktop application
  */
 @Slf4j
 public class WordToPdfConverter implements FileConverter {
     private static final String[] SUPPORTED_EXTENSIONS = { ".doc", ".docx" };
 
+    private final WordRenderingEngine renderingEngine;
+    private final SplitWordRenderer splitRenderer;
+    private final StageTimer stageTimer;
+
+    public WordToPdfConverter(WordRenderingEngine renderingEngine) {
+        this(renderingEngine, null, StageTimer.NONE);
+    }
+
+    /**
+     * @param splitRenderer renders large documents in parallel chunks; null renders
+     *                      every document in one piece
+     */
+    public WordToPdfConverter(WordRenderingEngine renderingEngine, SplitWordRenderer splitRenderer,
+            StageTimer stageTimer) {
+        this.renderingEngine = renderingEngine;
+        this.splitRenderer = splitRenderer;
+        this.stageTimer = stageTimer;
+    }
+
     @Override
     public void convertToPdf(File sourceFile, File outputFile) throws ConversionException {
         log.info("Converting Word document {} to PDF", sourceFile.getName());
 
         try {
-            WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.load(sourceFile);
-
-            try (FileOutputStream fos = new FileOutputStream(outputFile)) {
-                Docx4J.toPDF(wordMLPackage, fos);
+            if (splitRenderer != null && splitRenderer.shouldSplit(sourceFile)) {
+                // Chunks load and render in parallel, so only the whole is timed
+                long start = System.nanoTime();
+                splitRenderer.convertToPdf(sourceFile, outputFile);
+                stageTimer.record(ConversionStage.RENDER, sourceFile, start);
+            } else {
+                try (FileOutputStream fos = new FileOutputStream(outputFile)) {
+                    renderingEngine.convertToPdf(sourceFile, fos, stageTimer);
+                }
             }
 
             log.info("Successfully converted {} to PDF", sourceFile.getName());
@@ -1,26 +1,85 @@
 package com.example.conversonweb.infrastructure.factory;
 
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.config.StorageConfig;
 import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.ImageOptions;
 import com.example.conversonweb.domain.service.FileConverter;
 import com.example.conversonweb.infrastructure.converter.ImageToPdfConverter;
+import com.example.conversonweb.infrastructure.converter.MergeImagesToPdfConverter;
+import com.example.conversonweb.infrastructure.converter.PdfMemoryPolicy;
+import com.example.conversonweb.infrastructure.converter.MergeWordsToPdfConverter;
+import com.example.conversonweb.infrastructure.converter.SplitWordRenderer;
 import com.example.conversonweb.infrastructure.converter.WordToPdfConverter;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.nio.file.Paths;
+
 /**
  * Factory for creating appropriate FileConverter instances
  * Implements Factory Pattern
  */
 @Component
+@RequiredArgsConstructor
 public class ConverterFactory {
 
-    public FileConverter createConverter(ConversionType conversionType) {
+    private final ConversionScheduler conversionScheduler;
+    private final ConversionConfig conversionConfig;
+    private final StorageConfig storageConfig;
+    private final WordRenderingEngine wordRenderingEngine;
+    private final ConversionMetrics conversionMetrics;
+
+    /**
+     * Creates a converter; image options only apply to image conversions
+     *
+     * @param jobId job whose trace the converter's stages are added to; null for none
+     */
+    public FileConverter createConverter(ConversionType conversionType, ImageOptions imageOptions, String jobId) {
         if (conversionType == null) {
             throw new IllegalArgumentException("Conversion type cannot be null");
         }
 
         return switch (conversionType) {
-            case WORD_TO_PDF, MERGE_WORDS_TO_PDF -> new WordToPdfConverter();
-            case IMAGE_TO_PDF, MERGE_IMAGES_TO_PDF -> new ImageToPdfConverter();
+            case WORD_TO_PDF, MERGE_WORDS_TO_PDF -> new WordToPdfConverter(wordRenderingEngine,
+                    createSplitWordRenderer(), conversionMetrics.stageTimer(conversionType, jobId));
+            case IMAGE_TO_PDF, MERGE_IMAGES_TO_PDF -> new ImageToPdfConverter(imageOptions,
+                    createPdfMemoryPolicy(), conversionMetrics.stageTimer(conversionType, jobId));
         };
     }
+
+    /**
+     * @param jobId job whose trace the converter's stages are added to; null for none
+     */
+    public MergeImagesToPdfConverter createImageMergeConverter(ImageOptions imageOptions, String jobId) {
+        return new MergeImagesToPdfConverter(conversionScheduler, conversionConfig.getMergeWindowSize(),
+                createPdfMemoryPolicy(), imageOptions,
+                conversionMetrics.stageTimer(ConversionType.MERGE_IMAGES_TO_PDF, jobId));
+    }
+
+    /**
+     * @param jobId job whose trace the converter's stages are added to; null for none
+     */
+    public MergeWordsToPdfConverter createWordMergeConverter(String jobId) {
+        return new MergeWordsToPdfConverter(conversionScheduler, createPdfMemoryPolicy(),
+                wordRenderingEngine, conversionMetrics.stageTimer(ConversionType.MERGE_WORDS_TO_PDF, jobId));
+    }
+
+    private SplitWordRenderer createSplitWordRenderer() {
+        ConversionConfig.WordEngine settings = conversionConfig.getWordEngine();
+        return new SplitWordRenderer(wordRenderingEngine, conversionScheduler, createPdfMemoryPolicy(),
+                settings.getSplitMinDocumentKb() * 1024L, settings.getSplitMaxChunks(),
+                settings.getSplitPageCountTolerancePercent());
+    }
+
+    private PdfMemoryPolicy createPdfMemoryPolicy() {
+        long maxMainMemoryMb = storageConfig.getMergeMaxMainMemoryMb();
+        long maxMainMemoryBytes = maxMainMemoryMb < 0 ? -1 : maxMainMemoryMb * 1024 * 1024;
+        File scratchDir = Paths.get(storageConfig.getScratchDir()).toAbsolutePath().normalize().toFile();
+        return new PdfMemoryPolicy(maxMainMemoryBytes, scratchDir);
+    }
 }
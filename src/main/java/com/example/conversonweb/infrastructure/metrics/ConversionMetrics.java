@@ -0,0 +1,150 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import com.example.conversonweb.infrastructure.scheduling.JobScheduler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the conversion pipeline, exposed on /actuator/prometheus:
+ *
+ * - conversion.stage: timer with histogram per stage and conversion type
+ * - conversion.merge.peak.heap: most heap in use during each merge, per conversion type
+ * - conversion.input / conversion.output: bytes converted per conversion type
+ * - conversion.scheduler.queued.tasks (per lane), conversion.scheduler.pending.tasks:
+ *   work waiting for and admitted to the converter threads
+ * - conversion.jobs.queued / conversion.jobs.running: the job queue
+ *
+ * Stages not tied to a conversion type, such as uploads before a conversion is
+ * started, are tagged type=NONE.
+ */
+@Component
+public class ConversionMetrics {
+
+    private static final String NO_TYPE = "NONE";
+    private static final long MIN_EXPECTED_HEAP_BYTES = 16L * 1024 * 1024;
+    private static final long MAX_EXPECTED_HEAP_BYTES = 32L * 1024 * 1024 * 1024;
+
+    private final MeterRegistry registry;
+    private final JobTraces jobTraces;
+    private final Map<String, StageTimer> stageTimers = new ConcurrentHashMap<>();
+
+    public ConversionMetrics(MeterRegistry registry, JobTraces jobTraces, ConversionScheduler conversionScheduler,
+            JobScheduler jobScheduler) {
+        this.registry = registry;
+        this.jobTraces = jobTraces;
+
+        for (ConversionScheduler.Lane lane : ConversionScheduler.Lane.values()) {
+            Gauge.builder("conversion.scheduler.queued.tasks", conversionScheduler,
+                            scheduler -> scheduler.getQueuedTasks(lane))
+                    .description("Converter tasks waiting for a thread")
+                    .tag("lane", lane.name())
+                    .register(registry);
+        }
+        Gauge.builder("conversion.scheduler.pending.tasks", conversionScheduler,
+                        ConversionScheduler::getPendingTasks)
+                .description("Converter tasks admitted and not yet finished, across lanes")
+                .register(registry);
+        Gauge.builder("conversion.jobs.queued", jobScheduler, JobScheduler::getQueuedJobs)
+                .description("Conversion jobs waiting for a runner")
+                .register(registry);
+        Gauge.builder("conversion.jobs.running", jobScheduler, JobScheduler::getRunningJobs)
+                .description("Conversion jobs running")
+                .register(registry);
+    }
+
+    /**
+     * @param conversionType null for stages not tied to a conversion
+     */
+    public StageTimer stageTimer(ConversionType conversionType) {
+        return stageTimers.computeIfAbsent(typeTag(conversionType), this::createStageTimer);
+    }
+
+    /**
+     * Timer that also adds the stages to the job's trace, see {@link JobTraces}
+     *
+     * @param jobId null for work outside a job
+     */
+    public StageTimer stageTimer(ConversionType conversionType, String jobId) {
+        StageTimer traceTimer = jobTraces.stageTimer(jobId);
+        return traceTimer == StageTimer.NONE
+                ? stageTimer(conversionType)
+                : stageTimer(conversionType).andThen(traceTimer);
+    }
+
+    public void recordStage(ConversionType conversionType, ConversionStage stage, long startNanos) {
+        stageTimer(conversionType).record(stage, null, startNanos);
+    }
+
+    public void recordStage(ConversionType conversionType, String jobId, ConversionStage stage, File file,
+            long startNanos) {
+        stageTimer(conversionType, jobId).record(stage, file, startNanos);
+    }
+
+    public void countInput(ConversionType conversionType, long bytes) {
+        bytesCounter("conversion.input", "Source bytes converted", conversionType).increment(bytes);
+    }
+
+    public void countOutput(ConversionType conversionType, long bytes) {
+        bytesCounter("conversion.output", "PDF bytes produced", conversionType).increment(bytes);
+    }
+
+    /**
+     * Meters are registered on first use, so stages a type never goes through
+     * don't export empty histograms
+     */
+    private StageTimer createStageTimer(String typeTag) {
+        Map<ConversionStage, Timer> timers = new ConcurrentHashMap<>();
+        return new StageTimer() {
+            @Override
+            public void record(ConversionStage stage, File file, long startNanos) {
+                timers.computeIfAbsent(stage, s -> Timer.builder("conversion.stage")
+                                .description("Time spent in each conversion stage")
+                                .tag("stage", s.tagValue())
+                                .tag("type", typeTag)
+                                .publishPercentileHistogram()
+                                .minimumExpectedValue(Duration.ofMillis(1))
+                                .maximumExpectedValue(Duration.ofMinutes(10))
+                                .register(registry))
+                        .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void recordPeakHeap(long bytes) {
+                DistributionSummary.builder("conversion.merge.peak.heap")
+                        .description("Most heap in use during a merge; heap is shared, so an upper bound")
+                        .baseUnit(BaseUnits.BYTES)
+                        .tag("type", typeTag)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue((double) MIN_EXPECTED_HEAP_BYTES)
+                        .maximumExpectedValue((double) MAX_EXPECTED_HEAP_BYTES)
+                        .register(registry)
+                        .record(bytes);
+            }
+        };
+    }
+
+    private Counter bytesCounter(String name, String description, ConversionType conversionType) {
+        return Counter.builder(name)
+                .description(description)
+                .baseUnit(BaseUnits.BYTES)
+                .tag("type", typeTag(conversionType))
+                .register(registry);
+    }
+
+    private static String typeTag(ConversionType conversionType) {
+        return conversionType != null ? conversionType.name() : NO_TYPE;
+    }
+}
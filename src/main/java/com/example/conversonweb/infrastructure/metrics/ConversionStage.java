@@ -0,0 +1,28 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+/**
+ * Stages a file goes through on its way from upload to download, timed separately
+ * so the metrics show where the time goes
+ */
+public enum ConversionStage {
+    /** Storing an uploaded file; for streaming uploads this includes receiving it */
+    UPLOAD_WRITE,
+    /** From submitting a job until a job runner picks it up */
+    QUEUE_WAIT,
+    /** From submitting a file of a running job until a converter thread picks it up */
+    SCHEDULE_WAIT,
+    /** Reading a source file: decoding an image, loading a Word document */
+    DECODE,
+    /** Laying out PDF pages from a decoded source */
+    RENDER,
+    /** Appending rendered PDFs to a merged output */
+    MERGE,
+    /** Writing the finished PDF */
+    SAVE,
+    /** Serving a converted file */
+    DOWNLOAD;
+
+    String tagValue() {
+        return name().toLowerCase();
+    }
+}
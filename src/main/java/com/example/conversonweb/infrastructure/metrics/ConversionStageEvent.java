@@ -0,0 +1,46 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a traced conversion stage, so a recording shows the
+ * stages of a slow job next to GC pauses, locks and I/O of the same moment.
+ * Costs nothing unless a recording is running, e.g. started with jcmd JFR.start.
+ *
+ * Stages are recorded once they have ended, so the event itself has no duration;
+ * it is committed at the end of the stage and stageDuration holds its length.
+ */
+@Name("com.example.conversonweb.ConversionStage")
+@Label("Conversion Stage")
+@Category({"ConversonWeb", "Conversion"})
+@Description("A stage of a conversion job")
+@StackTrace(false)
+class ConversionStageEvent extends Event {
+
+    @Label("Job Id")
+    String jobId;
+
+    @Label("Conversion Type")
+    String conversionType;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("File")
+    String file;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Stage Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long stageDuration;
+}
@@ -0,0 +1,179 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionType;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Timeline of the stages of recent jobs, file by file, to find out afterwards where
+ * a slow job spent its time: queued, loading, rendering, merging or saving.
+ *
+ * Only the last max-jobs jobs are kept, the oldest dropped as new ones start, and
+ * each keeps at most max-spans-per-job spans; later ones are only counted. Every
+ * span is also committed as a {@link ConversionStageEvent} for Flight Recorder.
+ */
+@Component
+public class JobTraces {
+
+    private final int maxSpansPerJob;
+    private final Map<String, Trace> traces;
+
+    public JobTraces(ConversionConfig conversionConfig) {
+        ConversionConfig.Trace settings = conversionConfig.getTrace();
+        int maxJobs = Math.max(1, settings.getMaxJobs());
+        this.maxSpansPerJob = Math.max(1, settings.getMaxSpansPerJob());
+        this.traces = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Trace> eldest) {
+                return size() > maxJobs;
+            }
+        };
+    }
+
+    /**
+     * Starts tracing a job; spans are offset from this moment, when the job was queued
+     */
+    public void start(String jobId, ConversionType conversionType) {
+        synchronized (traces) {
+            traces.put(jobId, new Trace(jobId, conversionType));
+        }
+    }
+
+    /**
+     * Marks a traced job as finished, however it ended
+     */
+    public void finish(String jobId) {
+        Trace trace = get(jobId);
+        if (trace != null) {
+            trace.finish();
+        }
+    }
+
+    /**
+     * Timer adding spans to a job's trace, or {@link StageTimer#NONE} if the job
+     * is not traced. Spans recorded after the trace was dropped are lost.
+     */
+    public StageTimer stageTimer(String jobId) {
+        Trace trace = get(jobId);
+        return trace != null ? trace::record : StageTimer.NONE;
+    }
+
+    public Optional<JobTrace> find(String jobId) {
+        return Optional.ofNullable(get(jobId)).map(Trace::snapshot);
+    }
+
+    private Trace get(String jobId) {
+        if (jobId == null) {
+            return null;
+        }
+        synchronized (traces) {
+            return traces.get(jobId);
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * A job's trace as returned to clients. Offsets and durations are in
+     * milliseconds; stage totals add up spans, so stages of files converted in
+     * parallel can add up to more than the job took.
+     */
+    public record JobTrace(String jobId, ConversionType conversionType, Instant queuedAt, Instant finishedAt,
+            Double elapsedMs, Map<ConversionStage, Double> stageTotalsMs, int droppedSpans, List<Span> spans) {
+    }
+
+    /**
+     * One stage of a job. file is null for stages of the whole job, such as
+     * waiting in the job queue; bytes is -1 when there is no file.
+     */
+    public record Span(ConversionStage stage, String file, long bytes, String thread, Instant startedAt,
+            double offsetMs, double durationMs) {
+    }
+
+    private record SpanRecord(ConversionStage stage, String file, long bytes, String thread, long offsetNanos,
+            long durationNanos) {
+    }
+
+    private class Trace {
+        private final String jobId;
+        private final ConversionType conversionType;
+        private final Instant queuedAt = Instant.now();
+        private final long queuedAtNanos = System.nanoTime();
+        private final List<SpanRecord> spans = new ArrayList<>();
+        private boolean finished;
+        private long finishedAtNanos;
+        private int droppedSpans;
+
+        Trace(String jobId, ConversionType conversionType) {
+            this.jobId = jobId;
+            this.conversionType = conversionType;
+        }
+
+        void record(ConversionStage stage, File file, long startNanos) {
+            long endNanos = System.nanoTime();
+            String fileName = file != null ? file.getName() : null;
+            long bytes = file != null ? file.length() : -1;
+            String thread = Thread.currentThread().getName();
+
+            ConversionStageEvent event = new ConversionStageEvent();
+            if (event.shouldCommit()) {
+                event.jobId = jobId;
+                event.conversionType = conversionType != null ? conversionType.name() : null;
+                event.stage = stage.name();
+                event.file = fileName;
+                event.bytes = bytes;
+                event.stageDuration = endNanos - startNanos;
+                event.commit();
+            }
+
+            SpanRecord span = new SpanRecord(stage, fileName, bytes, thread, startNanos - queuedAtNanos,
+                    endNanos - startNanos);
+            synchronized (this) {
+                if (spans.size() < maxSpansPerJob) {
+                    spans.add(span);
+                } else {
+                    droppedSpans++;
+                }
+            }
+        }
+
+        synchronized void finish() {
+            finished = true;
+            finishedAtNanos = System.nanoTime();
+        }
+
+        synchronized JobTrace snapshot() {
+            Map<ConversionStage, Long> stageTotals = new EnumMap<>(ConversionStage.class);
+            List<Span> timeline = new ArrayList<>(spans.size());
+            // Spans are recorded as they end; the timeline lists them as they started
+            List<SpanRecord> byStart = new ArrayList<>(spans);
+            byStart.sort(Comparator.comparingLong(SpanRecord::offsetNanos));
+            for (SpanRecord span : byStart) {
+                stageTotals.merge(span.stage(), span.durationNanos(), Long::sum);
+                timeline.add(new Span(span.stage(), span.file(), span.bytes(), span.thread(),
+                        queuedAt.plusNanos(span.offsetNanos()), millis(span.offsetNanos()),
+                        millis(span.durationNanos())));
+            }
+            Map<ConversionStage, Double> stageTotalsMs = new EnumMap<>(ConversionStage.class);
+            stageTotals.forEach((stage, nanos) -> stageTotalsMs.put(stage, millis(nanos)));
+
+            long elapsedNanos = finishedAtNanos - queuedAtNanos;
+            return new JobTrace(jobId, conversionType, queuedAt,
+                    finished ? queuedAt.plusNanos(elapsedNanos) : null,
+                    finished ? millis(elapsedNanos) : null,
+                    stageTotalsMs, droppedSpans, timeline);
+        }
+    }
+}
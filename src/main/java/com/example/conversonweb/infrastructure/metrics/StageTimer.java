@@ -0,0 +1,50 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import java.io.File;
+
+/**
+ * Records conversion stage durations for one conversion type, and for one job when
+ * it is traced, plus the peak heap of merges. Converters get one from the converter
+ * factory; converters built directly, e.g. in benchmarks, use {@link #NONE}.
+ */
+@FunctionalInterface
+public interface StageTimer {
+
+    StageTimer NONE = (stage, file, startNanos) -> {
+    };
+
+    /**
+     * Records a stage that started at startNanos, a {@link System#nanoTime()} value,
+     * and ends now
+     *
+     * @param file the file the stage worked on, for the job trace: the source file,
+     *             or the output for {@link ConversionStage#SAVE}; null if none
+     */
+    void record(ConversionStage stage, File file, long startNanos);
+
+    /**
+     * Records the most heap in use at any point of a merge; ignored unless metrics are kept
+     */
+    default void recordPeakHeap(long bytes) {
+    }
+
+    /**
+     * Timer that records to this one and then to other
+     */
+    default StageTimer andThen(StageTimer other) {
+        StageTimer first = this;
+        return new StageTimer() {
+            @Override
+            public void record(ConversionStage stage, File file, long startNanos) {
+                first.record(stage, file, startNanos);
+                other.record(stage, file, startNanos);
+            }
+
+            @Override
+            public void recordPeakHeap(long bytes) {
+                first.recordPeakHeap(bytes);
+                other.recordPeakHeap(bytes);
+            }
+        };
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.conversonweb.infrastructure.persistence;
+
+import com.example.conversonweb.application.service.FileStorageService;
+import com.example.conversonweb.config.JobStoreConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Job repository backed by one JSON file per job under {output-dir}/.jobs.
+ * Jobs live next to their converted files, so instances sharing the output
+ * volume also share job status.
+ *
+ * - O(1) lookups: a job is found by its file name, never by scanning
+ * - Bounded memory: only finished jobs are cached, in an LRU of max-cached-jobs.
+ *   Jobs in progress are always read from disk so updates written by another
+ *   instance are seen immediately
+ * - TTL: expired jobs are hidden on lookup and deleted by a periodic sweep
+ * - Restarts: jobs stored as processing are failed on startup, since nothing will
+ *   ever finish them; otherwise they would report progress forever and refuse to
+ *   be deleted (see fail-interrupted-on-startup)
+ */
+@Repository
+@Slf4j
+@ConditionalOnProperty(prefix = "app.jobs", name = "store", havingValue = "file", matchIfMissing = true)
+public class FileConversionJobRepository implements ConversionJobRepository {
+
+    private static final String JOBS_DIR_NAME = ".jobs";
+    private static final String JOB_SUFFIX = ".json";
+
+    private final FileStorageService fileStorageService;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final boolean failInterruptedOnStartup;
+    private final Map<String, ConversionJob> finishedJobs;
+    private Path jobsLocation;
+
+    public FileConversionJobRepository(FileStorageService fileStorageService, ObjectMapper objectMapper,
+            JobStoreConfig jobStoreConfig) {
+        this.fileStorageService = fileStorageService;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofHours(jobStoreConfig.getTtlHours());
+        this.failInterruptedOnStartup = jobStoreConfig.isFailInterruptedOnStartup();
+
+        int maxCachedJobs = Math.max(0, jobStoreConfig.getMaxCachedJobs());
+        this.finishedJobs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ConversionJob> eldest) {
+                return size() > maxCachedJobs;
+            }
+        };
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            jobsLocation = fileStorageService.getOutputLocation().resolve(JOBS_DIR_NAME);
+            Files.createDirectories(jobsLocation);
+            int evicted = evictExpired();
+            int interrupted = failInterruptedOnStartup ? failInterrupted() : 0;
+            log.info("Job store at {} (evicted {} expired jobs, failed {} interrupted jobs)",
+                    jobsLocation, evicted, interrupted);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not initialize job store", e);
+        }
+    }
+
+    @Override
+    public void save(ConversionJob job) {
+        if (!ConversionJob.isValidJobId(job.getJobId())) {
+            throw new IllegalArgumentException("Invalid job id: " + job.getJobId());
+        }
+
+        Path jobFile = jobPath(job.getJobId());
+        try {
+            // Write under a temp name and move into place so readers never see partial files
+            Path tempFile = Files.createTempFile(jobsLocation, job.getJobId(), ".tmp");
+            try {
+                objectMapper.writeValue(tempFile.toFile(), job);
+                Files.move(tempFile, jobFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store job " + job.getJobId(), e);
+        }
+
+        synchronized (finishedJobs) {
+            if (job.getStatus().isTerminal()) {
+                finishedJobs.put(job.getJobId(), job);
+            } else {
+                finishedJobs.remove(job.getJobId());
+            }
+        }
+    }
+
+    @Override
+    public Optional<ConversionJob> findById(String jobId) {
+        if (!ConversionJob.isValidJobId(jobId)) {
+            return Optional.empty();
+        }
+
+        ConversionJob job;
+        synchronized (finishedJobs) {
+            job = finishedJobs.get(jobId);
+        }
+        if (job == null) {
+            job = readJob(jobId);
+        }
+        if (job == null) {
+            return Optional.empty();
+        }
+
+        if (isExpired(job)) {
+            delete(jobId);
+            return Optional.empty();
+        }
+
+        if (job.getStatus().isTerminal()) {
+            synchronized (finishedJobs) {
+                finishedJobs.put(jobId, job);
+            }
+        }
+        return Optional.of(job);
+    }
+
+    @Override
+    public void delete(String jobId) {
+        if (!ConversionJob.isValidJobId(jobId)) {
+            return;
+        }
+        synchronized (finishedJobs) {
+            finishedJobs.remove(jobId);
+        }
+        try {
+            Files.deleteIfExists(jobPath(jobId));
+        } catch (IOException e) {
+            log.warn("Could not delete job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jobs.sweep-interval-minutes:10}", timeUnit = TimeUnit.MINUTES)
+    public void sweep() {
+        evictExpired();
+    }
+
+    @Override
+    public int evictExpired() {
+        long cutoff = Instant.now().minus(ttl).toEpochMilli();
+        int evicted = 0;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(jobsLocation, "*" + JOB_SUFFIX)) {
+            for (Path jobFile : stream) {
+                // The file is rewritten on every update, so its mtime is the job's last update
+                if (jobFile.toFile().lastModified() < cutoff) {
+                    String name = jobFile.getFileName().toString();
+                    delete(name.substring(0, name.length() - JOB_SUFFIX.length()));
+                    evicted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not sweep job store: {}", e.getMessage());
+        }
+
+        if (evicted > 0) {
+            log.info("Evicted {} expired jobs", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Fails the jobs left processing by the previous run
+     */
+    private int failInterrupted() throws IOException {
+        int interrupted = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(jobsLocation, "*" + JOB_SUFFIX)) {
+            for (Path jobFile : stream) {
+                String name = jobFile.getFileName().toString();
+                ConversionJob job = readJob(name.substring(0, name.length() - JOB_SUFFIX.length()));
+                if (job != null && !job.getStatus().isTerminal()) {
+                    save(job.failed("el servidor se reinició antes de terminarla"));
+                    interrupted++;
+                }
+            }
+        }
+        if (interrupted > 0) {
+            log.warn("Marked {} jobs interrupted by a restart as failed", interrupted);
+        }
+        return interrupted;
+    }
+
+    private ConversionJob readJob(String jobId) {
+        Path jobFile = jobPath(jobId);
+        if (!Files.exists(jobFile)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(jobFile.toFile(), ConversionJob.class);
+        } catch (IOException e) {
+            log.warn("Could not read job {}: {}", jobId, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isExpired(ConversionJob job) {
+        return job.getUpdatedAt() != null && job.getUpdatedAt().plus(ttl).isBefore(Instant.now());
+    }
+
+    private Path jobPath(String jobId) {
+        return jobsLocation.resolve(jobId + JOB_SUFFIX);
+    }
+}
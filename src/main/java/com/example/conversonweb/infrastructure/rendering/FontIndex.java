@@ -0,0 +1,164 @@
+package com.example.conversonweb.infrastructure.rendering;
+
+import com.example.conversonweb.config.ConversionConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.docx4j.fonts.PhysicalFonts;
+import org.docx4j.fonts.fop.fonts.FontCache;
+import org.docx4j.fonts.fop.fonts.FontEventAdapter;
+import org.docx4j.fonts.fop.fonts.autodetect.FontFileFinder;
+import org.docx4j.org.apache.fop.events.DefaultEventBroadcaster;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the physical fonts available to docx4j.
+ * docx4j normally scans every platform font directory the first time a document
+ * is rendered, parsing each font file. This index does the scan once at startup,
+ * restricted to the configured directories and regex, and persists the parsed
+ * font metrics to disk so a restart only parses fonts that are new or modified.
+ */
+@Component
+@Slf4j
+public class FontIndex {
+
+    private final ConversionConfig.Fonts settings;
+    private volatile boolean loaded;
+    private volatile int indexedFonts;
+
+    public FontIndex(ConversionConfig conversionConfig) {
+        this.settings = conversionConfig.getFonts();
+    }
+
+    /**
+     * Scans the configured font directories and registers matching fonts with docx4j
+     */
+    public synchronized void load() {
+        if (!settings.isScanOnStartup()) {
+            log.info("Font index disabled, docx4j will scan fonts on first use");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        File indexFile = new File(settings.getIndexFile());
+        try {
+            FontCache fontCache = loadIndex(indexFile);
+            IndexedPhysicalFonts.useCache(fontCache);
+
+            Pattern filter = null;
+            if (hasText(settings.getIncludeRegex())) {
+                PhysicalFonts.setRegex(settings.getIncludeRegex());
+                filter = Pattern.compile(settings.getIncludeRegex());
+            }
+
+            int scanned = 0;
+            int reused = 0;
+            for (URL fontUrl : findFontFiles()) {
+                URI fontUri = fontUrl.toURI();
+                if (filter != null && !filter.matcher(fontUri.toString()).matches()) {
+                    continue;
+                }
+                scanned++;
+                if (fontCache.containsFont(fontUri.toASCIIString())) {
+                    reused++;
+                }
+                PhysicalFonts.addPhysicalFont(fontUri);
+            }
+
+            if (fontCache.hasChanged()) {
+                saveIndex(fontCache, indexFile);
+            }
+
+            indexedFonts = PhysicalFonts.getPhysicalFonts().size();
+            loaded = true;
+            log.info("Font index ready in {} ms: {} fonts from {} files ({} reused from {})",
+                    System.currentTimeMillis() - start, indexedFonts, scanned, reused, indexFile);
+        } catch (Exception e) {
+            log.warn("Could not build font index, docx4j will scan fonts on first use: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * True once the startup scan has registered the physical fonts
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int getIndexedFonts() {
+        return indexedFonts;
+    }
+
+    private List<URL> findFontFiles() throws IOException {
+        FontFileFinder finder = new FontFileFinder(new FontEventAdapter(new DefaultEventBroadcaster()));
+
+        List<String> directories = settings.getDirectories().stream()
+                .filter(FontIndex::hasText)
+                .toList();
+        if (directories.isEmpty()) {
+            return finder.find();
+        }
+
+        List<URL> fontFiles = new ArrayList<>();
+        for (String directory : directories) {
+            if (!new File(directory).isDirectory()) {
+                log.warn("Font directory not found: {}", directory);
+                continue;
+            }
+            fontFiles.addAll(finder.find(directory));
+        }
+        return fontFiles;
+    }
+
+    private FontCache loadIndex(File indexFile) {
+        if (indexFile.isFile()) {
+            FontCache fontCache = FontCache.loadFrom(indexFile);
+            if (fontCache != null) {
+                return fontCache;
+            }
+            log.warn("Ignoring unreadable font index {}", indexFile);
+        }
+        return new FontCache();
+    }
+
+    private void saveIndex(FontCache fontCache, File indexFile) {
+        try {
+            Path indexPath = indexFile.toPath().toAbsolutePath();
+            Files.createDirectories(indexPath.getParent());
+
+            // Write under a temp name and move into place so a crash never leaves a partial index
+            Path tempFile = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+            try {
+                fontCache.saveTo(tempFile.toFile());
+                Files.move(tempFile, indexPath, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (Exception e) {
+            log.warn("Could not save font index to {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Gives access to docx4j's shared font cache, which is only exposed to subclasses
+     */
+    private static final class IndexedPhysicalFonts extends PhysicalFonts {
+        static void useCache(FontCache cache) {
+            fontCache = cache;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.conversonweb.infrastructure.rendering;
+
+import lombok.extern.slf4j.Slf4j;
+import org.docx4j.fonts.Mapper;
+import org.docx4j.fonts.PhysicalFont;
+import org.docx4j.fonts.PhysicalFonts;
+import org.docx4j.wml.Fonts;
+
+import java.util.Set;
+
+/**
+ * Identity font mapper over the fonts registered by {@link FontIndex}.
+ * Same mapping rules as docx4j's IdentityPlusMapper, but without its static
+ * initializer, which rescans every platform font directory on first use.
+ */
+@Slf4j
+class IndexedFontMapper extends Mapper {
+
+    @Override
+    public void populateFontMappings(Set<String> documentFontNames, Fonts wmlFonts) {
+        for (String documentFontName : documentFontNames) {
+            PhysicalFont physicalFont = PhysicalFonts.get(documentFontName);
+            if (physicalFont == null) {
+                // Fonts embedded in the document itself
+                physicalFont = firstNonNull(regularForms.get(documentFontName), boldForms.get(documentFontName),
+                        italicForms.get(documentFontName), boldItalicForms.get(documentFontName));
+            }
+
+            if (physicalFont != null) {
+                put(documentFontName, physicalFont);
+            } else {
+                log.debug("Font '{}' is not in the font index, using fallback", documentFontName);
+            }
+        }
+    }
+
+    private static PhysicalFont firstNonNull(PhysicalFont... candidates) {
+        for (PhysicalFont candidate : candidates) {
+            if (candidate != null) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+}
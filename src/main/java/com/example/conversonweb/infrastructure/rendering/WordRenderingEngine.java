@@ -0,0 +1,220 @@
+package com.example.conversonweb.infrastructure.rendering;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.StageTimer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fop.apps.FopFactory;
+import org.docx4j.Docx4J;
+import org.docx4j.XmlUtils;
+import org.docx4j.convert.out.ConversionFeatures;
+import org.docx4j.convert.out.FOSettings;
+import org.docx4j.convert.out.fo.renderers.FORendererApacheFOP;
+import org.docx4j.jaxb.Context;
+import org.docx4j.openpackaging.exceptions.Docx4JException;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared Word to PDF rendering engine.
+ * Replaces the cold Docx4J.toPDF path: the JAXB contexts and XSLT templates
+ * are warmed once at startup, fonts come from the startup {@link FontIndex},
+ * and FOP factories are reused across documents instead of being rebuilt for
+ * every conversion.
+ *
+ * A FopFactory depends on the fonts a document uses, so factories are cached
+ * by their FOP configuration (bounded LRU). FopFactory is thread-safe, so one
+ * instance per configuration serves every document lane thread.
+ */
+@Component
+@Slf4j
+public class WordRenderingEngine {
+
+    private final ConversionConfig.WordEngine settings;
+    private final FontIndex fontIndex;
+    private final Map<String, FopFactory> fopFactories;
+    private volatile boolean warm;
+
+    public WordRenderingEngine(ConversionConfig conversionConfig, FontIndex fontIndex) {
+        this.settings = conversionConfig.getWordEngine();
+        this.fontIndex = fontIndex;
+        int maxFactories = Math.max(1, settings.getMaxCachedFopFactories());
+        this.fopFactories = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FopFactory> eldest) {
+                return size() > maxFactories;
+            }
+        };
+    }
+
+    /**
+     * Warms the engine in the background once the application is ready, so
+     * startup isn't blocked and the first conversion doesn't pay the cold cost
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!settings.isWarmUpOnStartup()) {
+            return;
+        }
+
+        Thread warmUpThread = new Thread(this::warmUp, "word-engine-warmup");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
+    /**
+     * Loads the JAXB contexts and renders a small generated document once
+     */
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            // Static initializers: WML and FOP config JAXB contexts
+            Context.jc.hashCode();
+            Context.getFopConfigContext();
+
+            WordprocessingMLPackage sample = WordprocessingMLPackage.createPackage();
+            sample.getMainDocumentPart().addParagraphOfText("Conversor de Archivos a PDF");
+            renderPdf(sample, OutputStream.nullOutputStream());
+
+            warm = true;
+            log.info("Word rendering engine warmed up in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("Word rendering engine warm-up failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Loads a Word document and renders it to PDF
+     */
+    public void convertToPdf(File wordFile, OutputStream out) throws Docx4JException {
+        convertToPdf(wordFile, out, StageTimer.NONE);
+    }
+
+    /**
+     * Loads a Word document and renders it to PDF, timing the load as the decode
+     * stage and the render, which writes the PDF as it goes, as the render stage
+     */
+    public void convertToPdf(File wordFile, OutputStream out, StageTimer stageTimer) throws Docx4JException {
+        long start = System.nanoTime();
+        WordprocessingMLPackage wordMLPackage = WordprocessingMLPackage.load(wordFile);
+        stageTimer.record(ConversionStage.DECODE, wordFile, start);
+        if (Thread.currentThread().isInterrupted()) {
+            throw new Docx4JException("Rendering of " + wordFile.getName() + " interrupted");
+        }
+
+        start = System.nanoTime();
+        renderPdf(wordMLPackage, out);
+        stageTimer.record(ConversionStage.RENDER, wordFile, start);
+    }
+
+    /**
+     * Renders an already loaded package to PDF, equivalent to Docx4J.toPDF
+     * but with a reused FopFactory. An interrupt only fails the next write to out,
+     * and FOP may hold back laid out pages before writing them, so a render can run
+     * on for a while after it was interrupted.
+     */
+    public void renderPdf(WordprocessingMLPackage wordMLPackage, OutputStream out) throws Docx4JException {
+        renderPdf(wordMLPackage, out, false);
+    }
+
+    /**
+     * @param disposable the package is not used after the render: docx4j preprocesses
+     *                   it in place instead of deep copying it first. State set up on
+     *                   the package beforehand, such as list counters, then carries
+     *                   into the render.
+     */
+    public void renderPdf(WordprocessingMLPackage wordMLPackage, OutputStream out, boolean disposable)
+            throws Docx4JException {
+        if (fontIndex.isLoaded()) {
+            try {
+                wordMLPackage.setFontMapper(new IndexedFontMapper());
+            } catch (Exception e) {
+                throw new Docx4JException("Could not map document fonts: " + e.getMessage(), e);
+            }
+        }
+
+        FOSettings foSettings = Docx4J.createFOSettings();
+        foSettings.setOpcPackage(wordMLPackage);
+        foSettings.setApacheFopMime(FOSettings.MIME_PDF);
+        if (disposable) {
+            foSettings.getFeatures().remove(ConversionFeatures.PP_COMMON_DEEP_COPY);
+        }
+
+        try {
+            FORendererApacheFOP.getFOUserAgent(foSettings, fopFactoryFor(foSettings));
+        } catch (Exception e) {
+            throw new Docx4JException("Could not set up FOP: " + e.getMessage(), e);
+        }
+
+        Docx4J.toFO(foSettings, new InterruptibleOutputStream(out), Docx4J.FLAG_NONE);
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public int getCachedFopFactories() {
+        synchronized (fopFactories) {
+            return fopFactories.size();
+        }
+    }
+
+    private FopFactory fopFactoryFor(FOSettings foSettings) throws Exception {
+        String configKey = XmlUtils.marshaltoString(foSettings.getFopConfig(), true, false,
+                Context.getFopConfigContext());
+
+        synchronized (fopFactories) {
+            FopFactory cached = fopFactories.get(configKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // Build outside the lock; a rare duplicate build for the same fonts is harmless
+        FopFactory fopFactory = FORendererApacheFOP.getFopFactoryBuilder(foSettings).build();
+        synchronized (fopFactories) {
+            fopFactories.putIfAbsent(configKey, fopFactory);
+            return fopFactories.get(configKey);
+        }
+    }
+
+    /**
+     * Fails the next write once the rendering thread has been interrupted (job
+     * cancelled or timed out); FOP itself never checks. Work between writes, such
+     * as laying out pages FOP has not flushed yet, still runs to the next one.
+     */
+    private static final class InterruptibleOutputStream extends FilterOutputStream {
+
+        InterruptibleOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            checkInterrupted();
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            checkInterrupted();
+            out.write(b, off, len);
+        }
+
+        private static void checkInterrupted() throws InterruptedIOException {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Rendering interrupted");
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.example.conversonweb.infrastructure.scheduling;
+
+import com.example.conversonweb.config.ConversionConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Application-wide scheduler for page/document level conversion work.
+ * All converters submit their work here instead of creating their own thread pools.
+ *
+ * - Two lanes with fixed worker threads: CPU (image work) and DOCUMENT (docx4j rendering)
+ * - Global admission control: submitters block once max-pending-tasks is reached
+ * - Per-job fairness: each lane serves jobs round-robin, one task at a time
+ * - Cancellation: cancelling a job cancels its queued tasks, interrupts its running
+ *   ones and refuses new ones; long tasks call {@link #checkCancelled()} between steps
+ */
+@Component
+@Slf4j
+public class ConversionScheduler {
+
+    public enum Lane {
+        CPU, DOCUMENT
+    }
+
+    private static final ThreadLocal<String> CURRENT_JOB = new ThreadLocal<>();
+
+    private final Map<Lane, LaneWorkers> lanes = new HashMap<>();
+    private final Map<String, Set<ScheduledTask<?>>> activeTasks = new ConcurrentHashMap<>();
+    private final Map<String, Long> cancelledJobs = new ConcurrentHashMap<>();
+    // Only touched while computing the job's activeTasks entry, which serializes them per job
+    private final Map<String, List<CompletableFuture<Void>>> drainWaiters = new ConcurrentHashMap<>();
+    private final Semaphore admission;
+    private final int maxPendingTasks;
+    private final long cancelledJobRetentionMillis;
+
+    public ConversionScheduler(ConversionConfig conversionConfig) {
+        ConversionConfig.Scheduler settings = conversionConfig.getScheduler();
+        this.maxPendingTasks = Math.max(1, settings.getMaxPendingTasks());
+        this.admission = new Semaphore(maxPendingTasks, true);
+        this.cancelledJobRetentionMillis = TimeUnit.MINUTES.toMillis(settings.getCancelledJobRetentionMinutes());
+
+        lanes.put(Lane.CPU, new LaneWorkers("conversion-cpu-", Math.max(1, settings.getCpuThreads())));
+        lanes.put(Lane.DOCUMENT, new LaneWorkers("conversion-doc-", Math.max(1, settings.getDocumentThreads())));
+
+        log.info("Conversion scheduler started: {} CPU threads, {} document threads, {} max pending tasks",
+                settings.getCpuThreads(), settings.getDocumentThreads(), maxPendingTasks);
+    }
+
+    /**
+     * Submits a unit of work for a job. Blocks while the scheduler is saturated.
+     *
+     * @throws CancellationException if the job has been cancelled
+     */
+    public <T> Future<T> submit(String jobId, Lane lane, Callable<T> task) throws InterruptedException {
+        return submit(jobId, lane, task, null);
+    }
+
+    /**
+     * Submits a unit of work for a job, running onDone once the task is over for any
+     * reason: finished, failed, or cancelled, including while still queued. It does
+     * not run if this method throws.
+     *
+     * @throws CancellationException if the job has been cancelled
+     */
+    public <T> Future<T> submit(String jobId, Lane lane, Callable<T> task, Runnable onDone)
+            throws InterruptedException {
+        checkNotCancelled(jobId);
+        admission.acquire();
+        return enqueue(jobId, lane, task, onDone);
+    }
+
+    /**
+     * Submits a unit of work only if that does not block. For tasks that submit
+     * further work and wait on it: a task blocking on admission would hold a worker
+     * the submitted work may need, so the caller does that work itself instead.
+     *
+     * @return the task, or null if the scheduler is saturated
+     * @throws CancellationException if the job has been cancelled
+     */
+    public <T> Future<T> trySubmit(String jobId, Lane lane, Callable<T> task) {
+        checkNotCancelled(jobId);
+        if (!admission.tryAcquire()) {
+            return null;
+        }
+        return enqueue(jobId, lane, task, null);
+    }
+
+    /**
+     * Job of the task running on the current thread, or null outside scheduled tasks.
+     * Lets converters that split their work submit it under the same job.
+     */
+    public static String currentJobId() {
+        return CURRENT_JOB.get();
+    }
+
+    private <T> Future<T> enqueue(String jobId, Lane lane, Callable<T> task, Runnable onDone) {
+        ScheduledTask<T> scheduledTask = new ScheduledTask<>(jobId, task, onDone);
+        activeTasks.compute(jobId, (id, tasks) -> {
+            Set<ScheduledTask<?>> jobTasks = tasks != null ? tasks : ConcurrentHashMap.newKeySet();
+            jobTasks.add(scheduledTask);
+            return jobTasks;
+        });
+        try {
+            // Re-check: the job may have been cancelled while waiting for admission
+            checkNotCancelled(jobId);
+            lanes.get(lane).enqueue(jobId, scheduledTask);
+        } catch (RuntimeException e) {
+            forget(scheduledTask);
+            admission.release();
+            throw e;
+        }
+        return scheduledTask;
+    }
+
+    /**
+     * Cancels every queued and running task of a job, and refuses the tasks it submits from now on.
+     * Running tasks are interrupted; they stop at their next cancellation check.
+     */
+    public void cancelJob(String jobId) {
+        cancelledJobs.put(jobId, System.currentTimeMillis());
+
+        Set<ScheduledTask<?>> tasks = activeTasks.get(jobId);
+        if (tasks != null) {
+            tasks.forEach(task -> task.cancel(true));
+            log.debug("Cancelled {} tasks of job {}", tasks.size(), jobId);
+        }
+    }
+
+    /**
+     * Whether the job was cancelled, for cancelled-job-retention-minutes after that,
+     * including once it has stopped
+     */
+    public boolean isCancelled(String jobId) {
+        return cancelledJobs.containsKey(jobId);
+    }
+
+    /**
+     * Forgets jobs cancelled longer ago than the retention. Not done when a job's last
+     * task drains: uploads still streaming into a cancelled job submit after that.
+     */
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
+    public void pruneCancelledJobs() {
+        long cutoff = System.currentTimeMillis() - cancelledJobRetentionMillis;
+        cancelledJobs.values().removeIf(cancelledAt -> cancelledAt <= cutoff);
+    }
+
+    /**
+     * Completes once none of a job's tasks is queued or running, right away if none is.
+     * A task cancelled while queued is done at once, but an interrupted running task
+     * counts until it has actually stopped, at its next cancellation check.
+     */
+    public CompletableFuture<Void> whenDrained(String jobId) {
+        CompletableFuture<Void> drained = new CompletableFuture<>();
+        activeTasks.compute(jobId, (id, tasks) -> {
+            if (tasks == null) {
+                drained.complete(null);
+            } else {
+                drainWaiters.computeIfAbsent(id, key -> new ArrayList<>()).add(drained);
+            }
+            return tasks;
+        });
+        return drained;
+    }
+
+    /**
+     * Cooperative cancellation point for long-running work, e.g. between pages:
+     * tasks of a cancelled job are interrupted, and stop here
+     */
+    public static void checkCancelled() throws InterruptedException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Conversion cancelled");
+        }
+    }
+
+    private void checkNotCancelled(String jobId) {
+        if (cancelledJobs.containsKey(jobId)) {
+            throw new CancellationException("Job cancelled: " + jobId);
+        }
+    }
+
+    private void forget(ScheduledTask<?> task) {
+        List<CompletableFuture<Void>> drained = new ArrayList<>();
+        activeTasks.computeIfPresent(task.jobId, (id, tasks) -> {
+            tasks.remove(task);
+            if (!tasks.isEmpty()) {
+                return tasks;
+            }
+            List<CompletableFuture<Void>> waiters = drainWaiters.remove(id);
+            if (waiters != null) {
+                drained.addAll(waiters);
+            }
+            return null;
+        });
+        drained.forEach(waiter -> waiter.complete(null));
+    }
+
+    /**
+     * Number of tasks admitted but not yet finished, across all lanes
+     */
+    public int getPendingTasks() {
+        return maxPendingTasks - admission.availablePermits();
+    }
+
+    /**
+     * Number of tasks waiting in a lane queue
+     */
+    public int getQueuedTasks(Lane lane) {
+        return lanes.get(lane).queuedTasks();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lanes.values().forEach(LaneWorkers::shutdown);
+    }
+
+    /**
+     * Future that returns its admission permit once a worker has dequeued it.
+     * Tasks cancelled while queued are still dequeued (as a no-op) and release then.
+     */
+    private class ScheduledTask<T> extends FutureTask<T> {
+        private final String jobId;
+        private final Runnable onDone;
+        private volatile boolean started;
+
+        ScheduledTask(String jobId, Callable<T> callable, Runnable onDone) {
+            super(callable);
+            this.jobId = jobId;
+            this.onDone = onDone;
+        }
+
+        /**
+         * Called once on completion or cancellation; a task cancelled while queued
+         * never runs, so this is the only hook that sees it end
+         */
+        @Override
+        protected void done() {
+            // Cancelled before it started, it will never touch its files; the worker
+            // dequeuing it later still returns the admission permit
+            if (isCancelled() && !started) {
+                forget(this);
+            }
+            if (onDone != null) {
+                onDone.run();
+            }
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            CURRENT_JOB.set(jobId);
+            try {
+                super.run();
+            } finally {
+                CURRENT_JOB.remove();
+                forget(this);
+                admission.release();
+            }
+        }
+    }
+
+    /**
+     * Fixed set of worker threads serving per-job queues in round-robin order
+     */
+    private static class LaneWorkers {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Map<String, ArrayDeque<Runnable>> jobQueues = new HashMap<>();
+        private final ArrayDeque<String> readyJobs = new ArrayDeque<>();
+        private final List<Thread> workers = new ArrayList<>();
+        private int queued;
+        private boolean running = true;
+
+        LaneWorkers(String threadNamePrefix, int threads) {
+            for (int i = 1; i <= threads; i++) {
+                Thread worker = new Thread(this::workLoop, threadNamePrefix + i);
+                worker.setDaemon(true);
+                worker.start();
+                workers.add(worker);
+            }
+        }
+
+        void enqueue(String jobId, Runnable task) {
+            lock.lock();
+            try {
+                if (!running) {
+                    throw new IllegalStateException("Conversion scheduler is shut down");
+                }
+                ArrayDeque<Runnable> queue = jobQueues.computeIfAbsent(jobId, id -> new ArrayDeque<>());
+                if (queue.isEmpty()) {
+                    readyJobs.addLast(jobId);
+                }
+                queue.addLast(task);
+                queued++;
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int queuedTasks() {
+            lock.lock();
+            try {
+                return queued;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Runnable take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (running && readyJobs.isEmpty()) {
+                    notEmpty.await();
+                }
+                if (!running) {
+                    return null;
+                }
+
+                String jobId = readyJobs.pollFirst();
+                ArrayDeque<Runnable> queue = jobQueues.get(jobId);
+                Runnable task = queue.pollFirst();
+                queued--;
+
+                // Re-queue the job at the tail so other jobs get their turn
+                if (queue.isEmpty()) {
+                    jobQueues.remove(jobId);
+                } else {
+                    readyJobs.addLast(jobId);
+                }
+                return task;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void workLoop() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == null) {
+                    return;
+                }
+                task.run();
+                // Clear any interrupt left by a cancelled task before taking the next one
+                Thread.interrupted();
+            }
+        }
+
+        void shutdown() {
+            lock.lock();
+            try {
+                running = false;
+                jobQueues.values().forEach(queue -> queue.forEach(task -> ((Future<?>) task).cancel(false)));
+                jobQueues.clear();
+                readyJobs.clear();
+                queued = 0;
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            workers.forEach(Thread::interrupt);
+        }
+    }
+}
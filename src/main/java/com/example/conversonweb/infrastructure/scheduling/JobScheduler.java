@@ -0,0 +1,474 @@
+package com.example.conversonweb.infrastructure.scheduling;
+
+import com.example.conversonweb.config.ConversionConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission and ordering of whole conversion jobs, in front of the task-level
+ * {@link ConversionScheduler}. A job holds one runner thread from start to finish.
+ *
+ * - Cost: every job carries an estimate of its work in milliseconds, from its type and file sizes
+ * - Fair share: the next job comes from the client with the fewest running jobs,
+ *   the least recently served one on a tie
+ * - Short jobs first: within a client the cheapest job runs first. Waiting makes a job
+ *   look cheaper (aging), so large jobs are delayed but never starved
+ * - Express runners: some runners only take short jobs, so small conversions never
+ *   wait behind a full set of large merges
+ * - Bounded queue: over max-queued-jobs (or the per-client limit) new jobs are rejected
+ *   with {@link SchedulerSaturatedException}, carrying an estimated wait
+ * - Cancellation: queued jobs are dropped, running ones have their runner interrupted
+ */
+@Component
+@Slf4j
+public class JobScheduler {
+
+    // A job that waited this long looks half as expensive
+    private static final double AGING_MILLIS = 30_000;
+    private static final double SMOOTHING = 0.2;
+    private static final int MIN_RETRY_AFTER_SECONDS = 1;
+    private static final int MAX_RETRY_AFTER_SECONDS = 300;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition jobsAvailable = lock.newCondition();
+    private final Map<String, ClientQueue> clients = new HashMap<>();
+    private final Map<String, QueuedJob<?>> jobs = new HashMap<>();
+    private final Map<String, Reservation> reservations = new HashMap<>();
+    private final List<Thread> runners = new ArrayList<>();
+    private final int maxQueuedJobs;
+    private final int maxQueuedJobsPerClient;
+    private final long shortJobMaxCostMs;
+    private final int concurrentJobs;
+    private long sequence;
+    private int queuedJobs;
+    private long queuedCostMs;
+    private int runningJobs;
+    private boolean running = true;
+
+    // Measured run time over estimated cost, to correct the estimates in Retry-After
+    private double costCorrection = 1.0;
+
+    public JobScheduler(ConversionConfig conversionConfig) {
+        ConversionConfig.JobQueue settings = conversionConfig.getJobQueue();
+        this.concurrentJobs = Math.max(1, settings.getConcurrentJobs());
+        this.maxQueuedJobs = Math.max(1, settings.getMaxQueuedJobs());
+        this.maxQueuedJobsPerClient = Math.max(1, settings.getMaxQueuedJobsPerClient());
+        this.shortJobMaxCostMs = settings.getShortJobMaxCostMs();
+
+        // At least one runner must accept every job
+        int expressRunners = Math.max(0, Math.min(settings.getShortJobRunners(), concurrentJobs - 1));
+        for (int i = 1; i <= concurrentJobs; i++) {
+            boolean express = i <= expressRunners;
+            Thread runner = new Thread(() -> runLoop(express),
+                    (express ? "conversion-job-express-" : "conversion-job-") + i);
+            runner.setDaemon(true);
+            runner.start();
+            runners.add(runner);
+        }
+
+        log.info("Job scheduler started: {} concurrent jobs ({} for short jobs), {} max queued jobs, {} per client",
+                concurrentJobs, expressRunners, maxQueuedJobs, maxQueuedJobsPerClient);
+    }
+
+    /**
+     * Queues a job whose cost is known up front
+     *
+     * @throws SchedulerSaturatedException if the queue or the client's share of it is full
+     */
+    public <T> CompletableFuture<T> submit(String jobId, String clientId, long costMs, Callable<T> job) {
+        return reserve(jobId, clientId).submit(costMs, job);
+    }
+
+    /**
+     * Holds a queue slot for a job whose files are still arriving, so it cannot be
+     * rejected after they have been received. The slot counts against the limits
+     * until the job is submitted or the reservation released.
+     *
+     * @throws SchedulerSaturatedException if the queue or the client's share of it is full
+     */
+    public Reservation reserve(String jobId, String clientId) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Job scheduler is shut down");
+            }
+            if (queuedJobs >= maxQueuedJobs) {
+                log.warn("Rejecting job {}: {} jobs queued", jobId, queuedJobs);
+                throw new SchedulerSaturatedException(false, estimateWaitSeconds());
+            }
+            ClientQueue existing = clients.get(clientId);
+            if (existing != null && existing.queued() >= maxQueuedJobsPerClient) {
+                log.warn("Rejecting job {}: client {} has {} jobs queued", jobId, clientId, existing.queued());
+                throw new SchedulerSaturatedException(true, estimateWaitSeconds());
+            }
+            ClientQueue client = existing != null ? existing : clients.computeIfAbsent(clientId, ClientQueue::new);
+            client.reserved++;
+            queuedJobs++;
+            Reservation reservation = new Reservation(jobId, client);
+            reservations.put(jobId, reservation);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels a job. A queued job never starts; a running job's future completes with
+     * a CancellationException right away and its runner is interrupted, so the job
+     * stops at its next cancellation check. A reservation is released, and submitting
+     * into it afterwards yields a cancelled future.
+     *
+     * @return false if the job is unknown here or has already finished
+     */
+    public boolean cancel(String jobId) {
+        return cancel(jobId, () -> {
+        });
+    }
+
+    /**
+     * Cancels a job, running onCancelled once it is known to be cancellable and before
+     * its runner is interrupted, so the job sees whatever onCancelled marks as it stops
+     *
+     * @return false if the job is unknown here or has already finished
+     */
+    public boolean cancel(String jobId, Runnable onCancelled) {
+        QueuedJob<?> dropped = null;
+        lock.lock();
+        try {
+            Reservation reservation = reservations.get(jobId);
+            if (reservation != null) {
+                reservation.cancelled = true;
+                reservation.releaseSlot();
+                onCancelled.run();
+                log.info("Cancelled job {} before it was queued", jobId);
+                return true;
+            }
+
+            QueuedJob<?> job = jobs.get(jobId);
+            if (job == null || !job.future.cancel(false)) {
+                return false;
+            }
+            onCancelled.run();
+            if (job.runner == null) {
+                job.client.jobs.remove(job);
+                jobs.remove(jobId);
+                queuedJobs--;
+                queuedCostMs -= job.costMs;
+                removeIfIdle(job.client);
+                dropped = job;
+                log.info("Cancelled queued job {}", jobId);
+            } else {
+                job.runner.interrupt();
+                log.info("Cancelled running job {}", jobId);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+            if (dropped != null) {
+                dropped.stopped.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Completes once a job's runner has returned, right away if the job never got one
+     * or has already finished. The future of a cancelled job completes before its
+     * runner has stopped; cleanup that must wait for the job to let go of its files
+     * waits for this instead.
+     */
+    public CompletableFuture<Void> whenStopped(String jobId) {
+        lock.lock();
+        try {
+            QueuedJob<?> job = jobs.get(jobId);
+            return job != null ? job.stopped.copy() : CompletableFuture.completedFuture(null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Jobs waiting for a runner, including reservations
+     */
+    public int getQueuedJobs() {
+        lock.lock();
+        try {
+            return queuedJobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getRunningJobs() {
+        lock.lock();
+        try {
+            return runningJobs;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<QueuedJob<?>> abandoned = new ArrayList<>();
+        lock.lock();
+        try {
+            running = false;
+            clients.values().forEach(client -> abandoned.addAll(client.jobs));
+            clients.clear();
+            jobs.clear();
+            reservations.clear();
+            queuedJobs = 0;
+            queuedCostMs = 0;
+            jobsAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        abandoned.forEach(job -> {
+            job.future.cancel(false);
+            job.stopped.complete(null);
+        });
+        runners.forEach(Thread::interrupt);
+    }
+
+    /**
+     * Queue wait for a new job: the queued work spread over all runners
+     */
+    private int estimateWaitSeconds() {
+        double seconds = queuedCostMs * costCorrection / concurrentJobs / 1000.0;
+        return (int) Math.max(MIN_RETRY_AFTER_SECONDS, Math.min(MAX_RETRY_AFTER_SECONDS, Math.ceil(seconds)));
+    }
+
+    private void runLoop(boolean express) {
+        while (true) {
+            QueuedJob<?> job;
+            try {
+                job = take(express);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (job == null) {
+                return;
+            }
+
+            long started = System.nanoTime();
+            try {
+                job.run();
+            } finally {
+                finished(job, (System.nanoTime() - started) / 1_000_000);
+                // Clear any interrupt left by a cancelled job before taking the next one
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private QueuedJob<?> take(boolean express) throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                if (!running) {
+                    return null;
+                }
+                QueuedJob<?> job = selectNext(express, System.nanoTime());
+                if (job != null) {
+                    job.client.jobs.remove(job);
+                    job.client.running++;
+                    job.client.lastServed = ++sequence;
+                    job.runner = Thread.currentThread();
+                    queuedJobs--;
+                    queuedCostMs -= job.costMs;
+                    runningJobs++;
+                    return job;
+                }
+                jobsAvailable.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fair share across clients first, then the cheapest (aged) job of the chosen client
+     */
+    private QueuedJob<?> selectNext(boolean express, long now) {
+        ClientQueue chosenClient = null;
+        QueuedJob<?> chosenJob = null;
+        for (ClientQueue client : clients.values()) {
+            QueuedJob<?> best = null;
+            for (QueuedJob<?> job : client.jobs) {
+                if (express && job.costMs > shortJobMaxCostMs) {
+                    continue;
+                }
+                if (best == null || job.agedCost(now) < best.agedCost(now)) {
+                    best = job;
+                }
+            }
+            if (best == null) {
+                continue;
+            }
+            if (chosenClient == null
+                    || client.running < chosenClient.running
+                    || (client.running == chosenClient.running && client.lastServed < chosenClient.lastServed)) {
+                chosenClient = client;
+                chosenJob = best;
+            }
+        }
+        return chosenJob;
+    }
+
+    private void finished(QueuedJob<?> job, long elapsedMs) {
+        lock.lock();
+        try {
+            runningJobs--;
+            job.client.running--;
+            jobs.remove(job.jobId);
+            if (job.costMs > 0 && !job.future.isCancelled()) {
+                double ratio = (double) elapsedMs / job.costMs;
+                costCorrection += SMOOTHING * (ratio - costCorrection);
+            }
+            removeIfIdle(job.client);
+        } finally {
+            lock.unlock();
+        }
+        job.stopped.complete(null);
+        log.debug("Job {} finished in {} ms (estimated {} ms)", job.jobId, elapsedMs, job.costMs);
+    }
+
+    private void removeIfIdle(ClientQueue client) {
+        if (client.jobs.isEmpty() && client.reserved == 0 && client.running == 0) {
+            clients.remove(client.clientId);
+        }
+    }
+
+    /**
+     * Queue slot held for a job until it is submitted or released
+     */
+    public class Reservation {
+        private final String jobId;
+        private final ClientQueue client;
+        private boolean open = true;
+        private boolean cancelled;
+
+        private Reservation(String jobId, ClientQueue client) {
+            this.jobId = jobId;
+            this.client = client;
+        }
+
+        /**
+         * Queues the job in the reserved slot; the future completes with its result
+         */
+        public <T> CompletableFuture<T> submit(long costMs, Callable<T> job) {
+            QueuedJob<T> queuedJob = new QueuedJob<>(jobId, client, Math.max(0, costMs), job, System.nanoTime());
+            lock.lock();
+            try {
+                if (cancelled) {
+                    return CompletableFuture.failedFuture(new CancellationException("Job cancelled: " + jobId));
+                }
+                if (!open) {
+                    throw new IllegalStateException("Reservation already used: " + jobId);
+                }
+                if (!running) {
+                    throw new IllegalStateException("Job scheduler is shut down");
+                }
+                open = false;
+                reservations.remove(jobId);
+                client.reserved--;
+                client.jobs.add(queuedJob);
+                jobs.put(jobId, queuedJob);
+                queuedCostMs += queuedJob.costMs;
+                jobsAvailable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            log.debug("Queued job {} for client {} (estimated {} ms)", jobId, client.clientId, queuedJob.costMs);
+            return queuedJob.future;
+        }
+
+        /**
+         * Gives the slot back without running anything. No-op once submitted.
+         */
+        public void release() {
+            lock.lock();
+            try {
+                releaseSlot();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseSlot() {
+            if (!open) {
+                return;
+            }
+            open = false;
+            reservations.remove(jobId);
+            client.reserved--;
+            if (running) {
+                queuedJobs--;
+            }
+            removeIfIdle(client);
+        }
+    }
+
+    private static class ClientQueue {
+        private final String clientId;
+        private final List<QueuedJob<?>> jobs = new ArrayList<>();
+        private int reserved;
+        private int running;
+        private long lastServed;
+
+        ClientQueue(String clientId) {
+            this.clientId = clientId;
+        }
+
+        int queued() {
+            return jobs.size() + reserved;
+        }
+    }
+
+    private static class QueuedJob<T> {
+        private final String jobId;
+        private final ClientQueue client;
+        private final long costMs;
+        private final Callable<T> job;
+        private final long queuedAt;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final CompletableFuture<Void> stopped = new CompletableFuture<>();
+        private Thread runner;
+
+        QueuedJob(String jobId, ClientQueue client, long costMs, Callable<T> job, long queuedAt) {
+            this.jobId = jobId;
+            this.client = client;
+            this.costMs = costMs;
+            this.job = job;
+            this.queuedAt = queuedAt;
+        }
+
+        double agedCost(long now) {
+            double waitedMs = (now - queuedAt) / 1_000_000.0;
+            return costMs / (1 + waitedMs / AGING_MILLIS);
+        }
+
+        void run() {
+            if (future.isDone()) {
+                // Cancelled while queued
+                return;
+            }
+            try {
+                future.complete(job.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.conversonweb.infrastructure.scheduling;
+
+/**
+ * Thrown when a job cannot be queued because the job scheduler is full,
+ * either overall or for the submitting client
+ */
+public class SchedulerSaturatedException extends RuntimeException {
+    private final boolean clientLimit;
+    private final int retryAfterSeconds;
+
+    public SchedulerSaturatedException(boolean clientLimit, int retryAfterSeconds) {
+        super(clientLimit ? "Too many queued jobs for this client" : "Too many queued jobs");
+        this.clientLimit = clientLimit;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * True if only the submitting client is over its share; other clients can still submit
+     */
+    public boolean isClientLimit() {
+        return clientLimit;
+    }
+
+    /**
+     * Estimated seconds until a slot frees up
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
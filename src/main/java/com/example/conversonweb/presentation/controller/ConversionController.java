@@ -2,19 +2,36 @@ package com.example.conversonweb.presentation.controller;
 
 import com.example.conversonweb.application.dto.ConversionRequestDto;
 import com.example.conversonweb.application.dto.ConversionResponseDto;
+import com.example.conversonweb.application.service.ConversionCacheService;
 import com.example.conversonweb.application.service.ConversionService;
-import com.example.conversonweb.domain.model.ConversionResult;
+import com.example.conversonweb.application.service.FileStorageService;
+import com.example.conversonweb.application.service.UploadRegistry;
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import com.example.conversonweb.infrastructure.metrics.JobTraces;
+import com.example.conversonweb.infrastructure.scheduling.SchedulerSaturatedException;
+import com.example.conversonweb.presentation.multipart.MultipartStreamReader;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
 
 /**
  * REST Controller for file conversion operations
@@ -27,43 +44,54 @@ import java.util.concurrent.ConcurrentHashMap;
 public class ConversionController {
 
     private final ConversionService conversionService;
-    private final FileUploadController fileUploadController;
-
-    // Store job results
-    private final Map<String, ConversionResult> jobResults = new ConcurrentHashMap<>();
-    private final Map<String, String> jobStatus = new ConcurrentHashMap<>();
+    private final ConversionCacheService conversionCacheService;
+    private final UploadRegistry uploadRegistry;
+    private final ConversionJobRepository jobRepository;
+    private final FileStorageService fileStorageService;
+    private final ConversionConfig conversionConfig;
+    private final ConversionMetrics conversionMetrics;
+    private final JobTraces jobTraces;
 
+    /**
+     * Queues a conversion of uploaded files. Answers 429 with Retry-After when the
+     * job queue, or the caller's share of it, is full.
+     */
     @PostMapping("/start")
-    public ResponseEntity<?> startConversion(@Valid @RequestBody ConversionRequestDto request) {
-        try {
-            String jobId = UUID.randomUUID().toString();
-
-            // Get uploaded files
-            List<File> files = request.getFileIds().stream()
-                    .map(fileUploadController::getUploadedFile)
-                    .filter(java.util.Objects::nonNull)
-                    .toList();
+    public ResponseEntity<?> startConversion(@Valid @RequestBody ConversionRequestDto request,
+            HttpServletRequest httpRequest) {
+        // Pin the uploaded files so they can't be evicted while converting
+        List<File> files = uploadRegistry.acquire(request.getFileIds());
 
-            if (files.isEmpty()) {
-                return ResponseEntity.badRequest().body(Map.of(
-                        "success", false,
-                        "error", "No se encontraron archivos válidos"));
-            }
+        if (files.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "No se encontraron archivos válidos"));
+        }
 
+        String jobId = UUID.randomUUID().toString();
+        try {
             // Mark job as processing
-            jobStatus.put(jobId, "PROCESSING");
+            ConversionJob job = ConversionJob.started(jobId, request.getConversionType(), files.size());
+            jobRepository.save(job);
 
             // Start async conversion
-            conversionService.convertFilesAsync(files, request.getConversionType(), jobId)
+            conversionService.convertFilesAsync(files, request.getConversionType(), request.toImageOptions(), jobId,
+                            clientId(httpRequest))
                     .thenAccept(result -> {
-                        jobResults.put(jobId, result);
-                        jobStatus.put(jobId, "COMPLETED");
+                        jobRepository.save(job.completed(result));
                         // Clean up uploaded files
-                        fileUploadController.clearUploadedFiles(request.getFileIds());
+                        uploadRegistry.remove(request.getFileIds());
                     })
                     .exceptionally(ex -> {
-                        log.error("Conversion job {} failed", jobId, ex);
-                        jobStatus.put(jobId, "FAILED");
+                        Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                        // A cancelled job has already been recorded as such
+                        if (!(cause instanceof CancellationException)) {
+                            log.error("Conversion job {} failed", jobId, ex);
+                            jobRepository.save(job.failed(cause.getMessage()));
+                        }
+                        // Interrupted conversions may still be reading the uploads
+                        conversionService.whenStopped(jobId)
+                                .thenRun(() -> uploadRegistry.release(request.getFileIds()));
                         return null;
                     });
 
@@ -79,40 +107,253 @@ public class ConversionController {
 
             return ResponseEntity.accepted().body(response);
 
+        } catch (SchedulerSaturatedException e) {
+            jobRepository.delete(jobId);
+            uploadRegistry.release(request.getFileIds());
+            return tooManyJobs(e);
         } catch (Exception e) {
             log.error("Error starting conversion", e);
+            uploadRegistry.release(request.getFileIds());
             return ResponseEntity.badRequest().body(Map.of(
                     "success", false,
                     "error", e.getMessage()));
         }
     }
 
+    /**
+     * Uploads and converts in a single request. The multipart body is read as it
+     * arrives: each file part is stored and handed to the converter as soon as it is
+     * complete, so conversions overlap with the upload of the remaining files.
+     * Merges start once the last part has arrived. Non-file parts are ignored.
+     *
+     * The conversion type is a path variable on purpose: reading a request parameter
+     * would make the servlet container parse the whole multipart body up front.
+     */
+    @PostMapping(value = "/stream/{conversionType}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> uploadAndConvert(@PathVariable ConversionType conversionType,
+            HttpServletRequest request) {
+        String boundary;
+        try {
+            boundary = MultipartStreamReader.boundary(request.getContentType());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage()));
+        }
+
+        String jobId = UUID.randomUUID().toString();
+        ConversionJob job = ConversionJob.started(jobId, conversionType, 0);
+        List<File> storedFiles = new ArrayList<>();
+        ConversionService.StreamingConversion conversion = null;
+
+        try {
+            jobRepository.save(job);
+            conversion = conversionService.startStreamingConversion(conversionType, jobId, clientId(request));
+
+            long maxFileBytes = conversionConfig.getMaxFileSizeMb() * 1024L * 1024L;
+            MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, maxFileBytes);
+            MultipartStreamReader.Part part;
+            long start = System.nanoTime();
+            while ((part = reader.nextPart()) != null) {
+                if (!part.isFile() || part.filename().isEmpty()) {
+                    continue;
+                }
+                if (conversion.size() >= conversionConfig.getMaxFiles()) {
+                    throw new IllegalArgumentException(
+                            "Se permiten como máximo " + conversionConfig.getMaxFiles() + " archivos");
+                }
+
+                FileStorageService.StoredUpload storedUpload =
+                        fileStorageService.storeUploadedFile(part.filename(), part.body());
+                conversionMetrics.recordStage(conversionType, jobId, ConversionStage.UPLOAD_WRITE,
+                        storedUpload.file(), start);
+                storedFiles.add(storedUpload.file());
+                conversion.add(storedUpload.file());
+                log.debug("Streamed file {} into job {}", part.filename(), jobId);
+                start = System.nanoTime();
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (e instanceof SchedulerSaturatedException saturated) {
+                // Rejected before reading any of the body
+                jobRepository.delete(jobId);
+                return tooManyJobs(saturated);
+            }
+            if (e instanceof CancellationException) {
+                // Cancelled while still uploading
+                discardStreamingConversion(jobId, conversion, storedFiles);
+                return cancelledDuringUpload();
+            }
+            log.warn("Streaming upload for job {} failed: {}", jobId, e.getMessage());
+            abortStreamingConversion(job, conversion, storedFiles, e.getMessage());
+
+            if (e instanceof MultipartStreamReader.PartTooLargeException) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of(
+                        "success", false,
+                        "error", "Cada archivo puede ocupar como máximo "
+                                + conversionConfig.getMaxFileSizeMb() + " MB"));
+            }
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", e.getMessage() != null ? e.getMessage() : "Error al recibir los archivos"));
+        }
+
+        if (conversionService.isCancelled(jobId)) {
+            discardStreamingConversion(jobId, conversion, storedFiles);
+            return cancelledDuringUpload();
+        }
+
+        if (storedFiles.isEmpty()) {
+            conversion.abort();
+            jobRepository.delete(jobId);
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "error", "No se encontraron archivos válidos"));
+        }
+
+        ConversionJob receivedJob = job.toBuilder().totalFiles(storedFiles.size()).build();
+        jobRepository.save(receivedJob);
+
+        conversionService.finishStreamingConversionAsync(conversion)
+                .thenAccept(result -> jobRepository.save(receivedJob.completed(result)))
+                .exceptionally(ex -> {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    if (!(cause instanceof CancellationException)) {
+                        log.error("Conversion job {} failed", jobId, ex);
+                        jobRepository.save(receivedJob.failed(cause.getMessage()));
+                    }
+                    return null;
+                })
+                .whenComplete((ignored, ex) -> deleteWhenStopped(jobId, storedFiles));
+
+        log.info("Received {} files for streaming conversion job {}", storedFiles.size(), jobId);
+
+        return ResponseEntity.accepted().body(ConversionResponseDto.builder()
+                .jobId(jobId)
+                .status("PROCESSING")
+                .totalFiles(storedFiles.size())
+                .progress(0)
+                .message("Conversión iniciada")
+                .build());
+    }
+
     @GetMapping("/status/{jobId}")
     public ResponseEntity<?> getStatus(@PathVariable String jobId) {
-        String status = jobStatus.get(jobId);
+        Optional<ConversionJob> job = jobRepository.findById(jobId);
 
-        if (status == null) {
+        if (job.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
 
-        ConversionResult result = jobResults.get(jobId);
+        return ResponseEntity.ok(toResponse(job.get()));
+    }
 
-        ConversionResponseDto response = ConversionResponseDto.builder()
-                .jobId(jobId)
-                .status(status)
-                .build();
+    /**
+     * Stage timeline of a recent job, to see where a slow one spent its time: how long
+     * it was queued and, file by file, when each was loaded, rendered, merged and saved
+     * and on which thread. Only the last app.conversion.trace.max-jobs jobs are kept,
+     * in memory, so older jobs and jobs of other instances answer 404.
+     */
+    @GetMapping("/{jobId}/trace")
+    public ResponseEntity<JobTraces.JobTrace> getTrace(@PathVariable String jobId) {
+        return ResponseEntity.of(jobTraces.find(jobId));
+    }
+
+    /**
+     * Cancels a queued or running job. Work in flight stops at its next page or file,
+     * a Word render at its next write, and partial output is deleted; the job ends
+     * as CANCELLED.
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<?> cancelConversion(@PathVariable String jobId) {
+        Optional<ConversionJob> job = jobRepository.findById(jobId);
 
-        if (result != null) {
-            response.setSuccessCount(result.getSuccessCount());
-            response.setFailureCount(result.getFailureCount());
-            response.setProgress(100);
-            response.setMessage(result.getSummary());
-            response.setConvertedFiles(result.getConvertedFiles().stream()
-                    .map(File::getName)
-                    .toList());
-            response.setErrors(result.getErrors());
+        if (job.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (job.get().getStatus().isTerminal() || !conversionService.cancelJob(jobId)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                    "success", false,
+                    "error", "La conversión ya ha terminado"));
         }
 
-        return ResponseEntity.ok(response);
+        ConversionJob cancelledJob = job.get().cancelled();
+        jobRepository.save(cancelledJob);
+        log.info("Conversion job {} cancelled by client", jobId);
+
+        return ResponseEntity.ok(toResponse(cancelledJob));
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<ConversionCacheService.CacheStats> getCacheStats() {
+        return ResponseEntity.ok(conversionCacheService.getStats());
+    }
+
+    /**
+     * Jobs are shared out per caller address. Behind a reverse proxy, set
+     * server.forward-headers-strategy so this is the real client.
+     */
+    private static String clientId(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+
+    private ResponseEntity<?> tooManyJobs(SchedulerSaturatedException e) {
+        String error = e.isClientLimit()
+                ? "Tienes demasiadas conversiones en cola"
+                : "El servidor está ocupado con otras conversiones";
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                        "success", false,
+                        "error", error + "; inténtalo de nuevo en " + e.getRetryAfterSeconds() + " s",
+                        "retryAfterSeconds", e.getRetryAfterSeconds()));
+    }
+
+    private void discardStreamingConversion(String jobId, ConversionService.StreamingConversion conversion,
+            List<File> storedFiles) {
+        if (conversion != null) {
+            conversion.abort();
+        }
+        deleteWhenStopped(jobId, storedFiles);
+    }
+
+    /**
+     * Deletes the uploads of a streaming job once none of its conversions reads them,
+     * including ones interrupted by a cancellation that have not stopped yet
+     */
+    private void deleteWhenStopped(String jobId, List<File> storedFiles) {
+        conversionService.whenStopped(jobId).thenRun(() -> storedFiles.forEach(fileStorageService::deleteFile));
+    }
+
+    private ResponseEntity<?> cancelledDuringUpload() {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "success", false,
+                "error", "La conversión fue cancelada"));
+    }
+
+    private void abortStreamingConversion(ConversionJob job, ConversionService.StreamingConversion conversion,
+            List<File> storedFiles, String reason) {
+        discardStreamingConversion(job.getJobId(), conversion, storedFiles);
+        try {
+            jobRepository.save(job.failed(reason));
+        } catch (RuntimeException e) {
+            log.warn("Could not record failed job {}: {}", job.getJobId(), e.getMessage());
+        }
+    }
+
+    private ConversionResponseDto toResponse(ConversionJob job) {
+        return ConversionResponseDto.builder()
+                .jobId(job.getJobId())
+                .status(job.getStatus().name())
+                .totalFiles(job.getTotalFiles())
+                .successCount(job.getSuccessCount())
+                .failureCount(job.getFailureCount())
+                .progress(job.getStatus().isTerminal() ? 100 : 0)
+                .message(job.getMessage())
+                .convertedFiles(job.getConvertedFiles())
+                .errors(job.getErrors())
+                .build();
     }
 }
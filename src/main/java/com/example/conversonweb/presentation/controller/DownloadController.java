@@ -1,16 +1,21 @@
 package com.example.conversonweb.presentation.controller;
 
 import com.example.conversonweb.application.service.FileStorageService;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.FileSystemResource;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Controller for downloading converted PDF files
@@ -23,31 +28,101 @@ import java.io.File;
 public class DownloadController {
 
     private final FileStorageService fileStorageService;
+    private final FileDownloadWriter fileDownloadWriter;
+    private final ConversionJobRepository jobRepository;
+    private final ConversionMetrics conversionMetrics;
 
-    @GetMapping("/{jobId}/{filename}")
-    public ResponseEntity<Resource> downloadFile(
+    /**
+     * Streams every converted file of a finished job as a single ZIP archive,
+     * so clients need one request instead of one per file
+     */
+    @GetMapping("/{jobId}.zip")
+    public void downloadArchive(
             @PathVariable String jobId,
-            @PathVariable String filename) {
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        try {
-            File file = fileStorageService.getOutputFile(jobId, filename);
+        ConversionJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null) {
+            log.warn("Job not found for archive download: {}", jobId);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!job.getStatus().isTerminal()) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, "La conversión aún está en proceso");
+            return;
+        }
+
+        List<File> files = new ArrayList<>();
+        if (job.getConvertedFiles() != null) {
+            for (String filename : job.getConvertedFiles()) {
+                File file = fileStorageService.getOutputFile(jobId, filename);
+                if (file.isFile()) {
+                    files.add(file);
+                } else {
+                    log.warn("Skipping missing file in archive: {}/{}", jobId, filename);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
 
-            if (!file.exists()) {
-                log.warn("File not found: {}/{}", jobId, filename);
-                return ResponseEntity.notFound().build();
+        try {
+            long start = System.nanoTime();
+            fileDownloadWriter.writeArchive(files, jobId + ".zip", request, response);
+            conversionMetrics.recordStage(job.getConversionType(), ConversionStage.DOWNLOAD, start);
+        } catch (IOException e) {
+            log.debug("Archive download of {} interrupted: {}", jobId, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error downloading archive: {}", jobId, e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             }
+        }
+    }
+
+    /**
+     * Streams a converted file. Supports HEAD, conditional GET and byte ranges,
+     * so browsers can resume and PDF viewers can fetch pages on demand.
+     */
+    @GetMapping("/{jobId}/{filename}")
+    public void downloadFile(
+            @PathVariable String jobId,
+            @PathVariable String filename,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-            Resource resource = new FileSystemResource(file);
+        File file;
+        try {
+            file = fileStorageService.getOutputFile(jobId, filename);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejected download path: {}/{}", jobId, filename);
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
 
-            return ResponseEntity.ok()
-                    .contentType(MediaType.APPLICATION_PDF)
-                    .header(HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=\"" + filename + "\"")
-                    .body(resource);
+        if (!file.isFile()) {
+            log.warn("File not found: {}/{}", jobId, filename);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
 
+        try {
+            long start = System.nanoTime();
+            fileDownloadWriter.write(file, MediaType.APPLICATION_PDF, filename, request, response);
+            // With sendfile the connector sends the file after this returns
+            conversionMetrics.recordStage(jobRepository.findById(jobId).map(ConversionJob::getConversionType)
+                    .orElse(null), ConversionStage.DOWNLOAD, start);
+        } catch (IOException e) {
+            // Mostly clients cancelling a download; nothing left to answer
+            log.debug("Download of {}/{} interrupted: {}", jobId, filename, e.getMessage());
         } catch (Exception e) {
             log.error("Error downloading file: {}/{}", jobId, filename, e);
-            return ResponseEntity.internalServerError().build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
 }
@@ -0,0 +1,221 @@
+package com.example.conversonweb.presentation.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes files to the response without copying them through the heap.
+ *
+ * - Zero-copy: when the connector supports sendfile (Tomcat NIO/NIO2), the file
+ *   is handed to it and the kernel copies it straight to the socket; otherwise
+ *   FileChannel.transferTo streams it to the response
+ * - Conditional GET: ETag (mtime + size) and Last-Modified, answered with 304
+ * - Byte ranges: a single range is served as 206 Partial Content, honouring
+ *   If-Range; unsatisfiable ranges get 416. Multi-range requests get the whole file.
+ * - HEAD: headers only
+ *
+ * Several files can also be sent as one ZIP archive, built on the fly.
+ */
+@Component
+@Slf4j
+public class FileDownloadWriter {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Below this, a plain copy is as cheap as handing the file to the connector
+    private static final long SENDFILE_MIN_BYTES = 48 * 1024;
+
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;
+
+    public void write(File file, MediaType contentType, String downloadName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+
+        // Sets ETag and Last-Modified, and 304 when the client copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(downloadName));
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = requestedRange(request, etag, lastModified);
+        if (range != null) {
+            start = range.getRangeStart(length);
+            end = range.getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = Math.max(0, end - start + 1);
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (count >= SENDFILE_MIN_BYTES && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getAbsolutePath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        transfer(file, start, count, response);
+    }
+
+    /**
+     * Streams the files as a ZIP archive straight into the response.
+     * Entries are STORED: PDFs are already compressed, so deflating them again
+     * costs CPU for almost no gain. STORED entries need their CRC up front, so
+     * each file is read twice (the second read comes from the page cache); no
+     * temp file is written and memory stays at one buffer whatever the job size.
+     */
+    public void writeArchive(List<File> files, String downloadName,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition(downloadName));
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        byte[] buffer = new byte[ARCHIVE_BUFFER_SIZE];
+        ZipOutputStream zip = new ZipOutputStream(response.getOutputStream());
+        zip.setMethod(ZipOutputStream.STORED);
+        for (File file : files) {
+            ZipEntry entry = new ZipEntry(file.getName());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setTime(file.lastModified());
+            entry.setSize(file.length());
+            entry.setCompressedSize(file.length());
+            entry.setCrc(crc32(file, buffer));
+
+            zip.putNextEntry(entry);
+            try (InputStream in = Files.newInputStream(file.toPath())) {
+                copy(in, zip, buffer);
+            }
+            zip.closeEntry();
+        }
+        zip.finish();
+        zip.flush();
+    }
+
+    /**
+     * The single range to serve, or null for the whole file: no Range header,
+     * an If-Range that no longer matches, or several ranges
+     */
+    private HttpRange requestedRange(HttpServletRequest request, String etag, long lastModified) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null || !ifRangeMatches(request, etag, lastModified)) {
+            return null;
+        }
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed Range header: {}", rangeHeader);
+            return null;
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP dates have second precision
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Plain filename for ASCII names; RFC 5987 encoding only when actually needed
+     */
+    private static String contentDisposition(String downloadName) {
+        ContentDisposition.Builder builder = ContentDisposition.attachment();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(downloadName)) {
+            builder.filename(downloadName);
+        } else {
+            builder.filename(downloadName, StandardCharsets.UTF_8);
+        }
+        return builder.build().toString();
+    }
+
+    private static long crc32(File file, byte[] buffer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static void copy(InputStream in, OutputStream out, byte[] buffer) throws IOException {
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    private void transfer(File file, long start, long count, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    // File shrank since Content-Length was set; the client sees a short body
+                    throw new IOException("Unexpected end of file: " + file.getName());
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
@@ -2,15 +2,16 @@ package com.example.conversonweb.presentation.controller;
 
 import com.example.conversonweb.application.dto.FileUploadDto;
 import com.example.conversonweb.application.service.FileStorageService;
+import com.example.conversonweb.application.service.UploadRegistry;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.metrics.ConversionStage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,7 +26,8 @@ import java.util.Map;
 public class FileUploadController {
 
     private final FileStorageService fileStorageService;
-    private final Map<String, File> uploadedFilesCache = new HashMap<>();
+    private final UploadRegistry uploadRegistry;
+    private final ConversionMetrics conversionMetrics;
 
     @PostMapping("/upload")
     public ResponseEntity<?> uploadFiles(@RequestParam("files") MultipartFile[] files) {
@@ -37,18 +39,23 @@ public class FileUploadController {
                     continue;
                 }
 
-                File storedFile = fileStorageService.storeUploadedFile(file);
-                String fileId = storedFile.getName().replace(getFileExtension(file.getOriginalFilename()), "");
+                // The conversion type is only known once a conversion is started
+                long start = System.nanoTime();
+                FileStorageService.StoredUpload storedUpload = fileStorageService.storeUploadedFile(file);
+                conversionMetrics.recordStage(null, ConversionStage.UPLOAD_WRITE, start);
+                String fileId = storedUpload.id();
 
-                // Cache the file for conversion
-                uploadedFilesCache.put(fileId, storedFile);
+                // Keep the file until it is converted (or evicted)
+                uploadRegistry.register(fileId, storedUpload.file(), file.getSize());
 
                 FileUploadDto dto = FileUploadDto.builder()
                         .id(fileId)
                         .originalName(file.getOriginalFilename())
                         .size(file.getSize())
                         .contentType(file.getContentType())
-                        .storedPath(storedFile.getAbsolutePath())
+                        .storedPath(storedUpload.file().getAbsolutePath())
+                        .sha256(storedUpload.sha256())
+                        .deduplicated(storedUpload.deduplicated())
                         .build();
 
                 uploadedFiles.add(dto);
@@ -68,23 +75,8 @@ public class FileUploadController {
         }
     }
 
-    public File getUploadedFile(String fileId) {
-        return uploadedFilesCache.get(fileId);
-    }
-
-    public void clearUploadedFiles(List<String> fileIds) {
-        fileIds.forEach(id -> {
-            File file = uploadedFilesCache.remove(id);
-            if (file != null) {
-                fileStorageService.deleteFile(file);
-            }
-        });
-    }
-
-    private String getFileExtension(String filename) {
-        if (filename == null)
-            return "";
-        int lastDot = filename.lastIndexOf('.');
-        return (lastDot > 0) ? filename.substring(lastDot) : "";
+    @GetMapping("/stats")
+    public ResponseEntity<UploadRegistry.UploadStats> getUploadStats() {
+        return ResponseEntity.ok(uploadRegistry.getStats());
     }
 }
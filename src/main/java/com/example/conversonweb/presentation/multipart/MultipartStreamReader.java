@@ -0,0 +1,278 @@
+package com.example.conversonweb.presentation.multipart;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.MediaType;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads a multipart/form-data body one part at a time, straight from the request stream.
+ * Unlike the servlet multipart support, nothing is buffered or spooled to disk: each
+ * part is available as soon as its headers arrive, and its body is read while the
+ * rest of the request is still in flight.
+ *
+ * Parts must be consumed in order. Asking for the next part skips whatever was left
+ * unread of the current one.
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 16 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private final long maxPartBytes;
+    private int pos;
+    private int limit;
+    private boolean finished;
+    private PartInputStream current;
+
+    /**
+     * @param maxPartBytes largest body accepted for a single part; reading past it
+     *                     throws {@link PartTooLargeException}
+     */
+    public MultipartStreamReader(InputStream in, String boundary, long maxPartBytes) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 4)];
+        this.maxPartBytes = maxPartBytes;
+
+        // The opening delimiter has no leading CRLF: pretend it had one, and
+        // treat everything before it as a preamble part that is skipped
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+        current = new PartInputStream(Long.MAX_VALUE);
+    }
+
+    /**
+     * Boundary declared by a multipart Content-Type header
+     *
+     * @throws IllegalArgumentException if the header is not multipart or has no boundary
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null) {
+            throw new IllegalArgumentException("Missing Content-Type");
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        String boundary = mediaType.getParameter("boundary");
+        if (!"multipart".equalsIgnoreCase(mediaType.getType()) || boundary == null || boundary.isEmpty()) {
+            throw new IllegalArgumentException("Not a multipart request: " + contentType);
+        }
+        if (boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+            boundary = boundary.substring(1, boundary.length() - 1);
+        }
+        return boundary;
+    }
+
+    /**
+     * Advances to the next part, or returns null once the closing delimiter is reached
+     */
+    public Part nextPart() throws IOException {
+        if (finished) {
+            return null;
+        }
+        current.skipRemaining();
+
+        // After a delimiter: "--" closes the body, otherwise optional padding and CRLF
+        if (!ensure(2)) {
+            throw new EOFException("Unexpected end of multipart body");
+        }
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        readLine();
+
+        Map<String, String> headers = readHeaders();
+        String disposition = headers.get("content-disposition");
+        ContentDisposition contentDisposition = disposition != null
+                ? ContentDisposition.parse(disposition)
+                : ContentDisposition.empty();
+
+        current = new PartInputStream(maxPartBytes);
+        return new Part(contentDisposition.getName(), contentDisposition.getFilename(),
+                headers.get("content-type"), current);
+    }
+
+    private Map<String, String> readHeaders() throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        int headerBytes = 0;
+        while (true) {
+            String line = readLine();
+            if (line.isEmpty()) {
+                return headers;
+            }
+            headerBytes += line.length() + 2;
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart headers too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        line.substring(colon + 1).trim());
+            }
+        }
+    }
+
+    /**
+     * Reads up to the next CRLF, which is consumed but not returned.
+     * Header values are decoded as UTF-8, which is what browsers send for file names.
+     */
+    private String readLine() throws IOException {
+        int start = pos;
+        while (true) {
+            for (int i = start; i + 1 < limit; i++) {
+                if (buffer[i] == '\r' && buffer[i + 1] == '\n') {
+                    String line = new String(buffer, pos, i - pos, StandardCharsets.UTF_8);
+                    pos = i + 2;
+                    return line;
+                }
+            }
+            if (limit - pos > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart header line too long");
+            }
+            int scanned = limit - pos;
+            if (!fill()) {
+                throw new EOFException("Unexpected end of multipart headers");
+            }
+            start = pos + Math.max(0, scanned - 1);
+        }
+    }
+
+    private boolean ensure(int bytes) throws IOException {
+        while (limit - pos < bytes) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves unread bytes to the front of the buffer and reads more after them
+     */
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buffer.length) {
+            return true;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        int last = limit - delimiter.length;
+        outer:
+        for (int i = pos; i <= last; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Body of one part: ends right before the next delimiter
+     */
+    private class PartInputStream extends InputStream {
+        private final long maxBytes;
+        private long readBytes;
+        private boolean ended;
+
+        PartInputStream(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int read = read(single, 0, 1);
+            return read < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+
+            while (true) {
+                int delimiterIndex = indexOfDelimiter();
+                int available;
+                if (delimiterIndex >= 0) {
+                    available = delimiterIndex - pos;
+                    if (available == 0) {
+                        ended = true;
+                        pos = delimiterIndex + delimiter.length;
+                        return -1;
+                    }
+                } else {
+                    // Hold back a tail that could be the start of a split delimiter
+                    available = limit - pos - (delimiter.length - 1);
+                }
+
+                if (available > 0) {
+                    int count = Math.min(length, available);
+                    System.arraycopy(buffer, pos, target, offset, count);
+                    pos += count;
+                    readBytes += count;
+                    if (readBytes > maxBytes) {
+                        throw new PartTooLargeException(maxBytes);
+                    }
+                    return count;
+                }
+                if (!fill()) {
+                    throw new EOFException("Unexpected end of multipart body");
+                }
+            }
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] discard = new byte[8192];
+            while (!ended) {
+                int count = read(discard, 0, discard.length);
+                if (count < 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * One part of the body. The stream is only valid until the next call to nextPart().
+     */
+    public record Part(String name, String filename, String contentType, InputStream body) {
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    public static class PartTooLargeException extends IOException {
+        public PartTooLargeException(long maxBytes) {
+            super("Part exceeds " + maxBytes + " bytes");
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.conversonweb.presentation.websocket;
+
+import com.example.conversonweb.application.service.ConversionService;
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.JobStatus;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks who is watching each job's progress topic, and cancels jobs whose last
+ * watcher went away (tab closed, connection lost) and did not come back within
+ * the grace period. Nobody would download their output.
+ *
+ * Only disconnects count: an explicit unsubscribe means the client is done with
+ * the job. Jobs never watched over WebSocket, e.g. API clients polling the status
+ * endpoint, are never cancelled here.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class JobSubscriptionTracker {
+
+    private static final String PROGRESS_TOPIC = "/topic/progress/";
+
+    private final ConversionService conversionService;
+    private final ConversionJobRepository jobRepository;
+    private final ConversionConfig conversionConfig;
+
+    // Guarded by this
+    private final Map<String, Map<String, String>> jobsBySession = new HashMap<>();
+    private final Map<String, Set<String>> subscribersByJob = new HashMap<>();
+    private final Map<String, Long> orphanedSince = new HashMap<>();
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String destination = headers.getDestination();
+        if (destination == null || !destination.startsWith(PROGRESS_TOPIC)
+                || headers.getSessionId() == null || headers.getSubscriptionId() == null) {
+            return;
+        }
+        String jobId = destination.substring(PROGRESS_TOPIC.length());
+        String sessionId = headers.getSessionId();
+
+        synchronized (this) {
+            jobsBySession.computeIfAbsent(sessionId, id -> new HashMap<>()).put(headers.getSubscriptionId(), jobId);
+            subscribersByJob.computeIfAbsent(jobId, id -> new HashSet<>()).add(sessionId);
+            orphanedSince.remove(jobId);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = headers.getSessionId();
+        synchronized (this) {
+            Map<String, String> subscriptions = jobsBySession.get(sessionId);
+            if (subscriptions == null) {
+                return;
+            }
+            String jobId = subscriptions.remove(headers.getSubscriptionId());
+            if (subscriptions.isEmpty()) {
+                jobsBySession.remove(sessionId);
+            }
+            if (jobId != null && !subscriptions.containsValue(jobId)) {
+                removeSubscriber(jobId, sessionId);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = event.getSessionId();
+        synchronized (this) {
+            Map<String, String> subscriptions = jobsBySession.remove(sessionId);
+            if (subscriptions == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (String jobId : new HashSet<>(subscriptions.values())) {
+                if (removeSubscriber(jobId, sessionId)) {
+                    orphanedSince.put(jobId, now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancels jobs left without watchers for longer than the grace period
+     */
+    @Scheduled(fixedDelay = 5, timeUnit = TimeUnit.SECONDS)
+    public void cancelOrphanedJobs() {
+        long cutoff = System.currentTimeMillis() - conversionConfig.getJobQueue().getDisconnectGraceSeconds() * 1000L;
+        List<String> expired = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> it = orphanedSince.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> entry = it.next();
+                if (entry.getValue() <= cutoff) {
+                    expired.add(entry.getKey());
+                    it.remove();
+                }
+            }
+        }
+        if (!conversionConfig.getJobQueue().isCancelOnDisconnect()) {
+            return;
+        }
+
+        for (String jobId : expired) {
+            Optional<ConversionJob> job = jobRepository.findById(jobId);
+            if (job.isPresent() && job.get().getStatus() == JobStatus.PROCESSING
+                    && conversionService.cancelJob(jobId)) {
+                jobRepository.save(job.get().cancelled());
+                log.info("Cancelled conversion job {}: client disconnected", jobId);
+            }
+        }
+    }
+
+    /**
+     * @return true if that was the job's last subscriber
+     */
+    private boolean removeSubscriber(String jobId, String sessionId) {
+        Set<String> sessions = subscribersByJob.get(jobId);
+        if (sessions == null) {
+            return false;
+        }
+        sessions.remove(sessionId);
+        if (sessions.isEmpty()) {
+            subscribersByJob.remove(jobId);
+            return true;
+        }
+        return false;
+    }
+}
@@ -20,6 +20,7 @@ const progressSection = document.getElementById('progressSection');
 const progressFill = document.getElementById('progressFill');
 const progressText = document.getElementById('progressText');
 const progressLog = document.getElementById('progressLog');
+const cancelBtn = document.getElementById('cancelBtn');
 const resultsSection = document.getElementById('resultsSection');
 const resultsSummary = document.getElementById('resultsSummary');
 const resultsFiles = document.getElementById('resultsFiles');
@@ -43,6 +44,7 @@ function setupEventListeners() {
     // Actions
     convertBtn.addEventListener('click', startConversion);
     clearBtn.addEventListener('click', clearAll);
+    cancelBtn.addEventListener('click', cancelConversion);
 }
 
 function handleDragOver(e) {
@@ -182,7 +184,11 @@ async function startConversion() {
             })
         });
 
-        if (!response.ok) throw new Error('Conversion failed to start');
+        if (!response.ok) {
+            // 429 when the server is saturated: the body says how long to wait
+            const failure = await response.json().catch(() => ({}));
+            throw new Error(failure.error || 'Conversion failed to start');
+        }
 
         const data = await response.json();
         currentJobId = data.jobId;
@@ -196,8 +202,29 @@ async function startConversion() {
     }
 }
 
+async function cancelConversion() {
+    if (!currentJobId) {
+        return;
+    }
+    cancelBtn.disabled = true;
+
+    try {
+        const response = await fetch(`/api/conversion/${currentJobId}`, { method: 'DELETE' });
+        if (!response.ok) {
+            // 409 when the job finished in the meantime; its results follow
+            const failure = await response.json().catch(() => ({}));
+            throw new Error(failure.error || 'Cancel failed');
+        }
+        addLog('⛔ Cancelando conversión...');
+    } catch (error) {
+        console.error('Cancel error:', error);
+        addLog(`❌ ${error.message}`);
+    }
+}
+
 function showProgress() {
     progressSection.style.display = 'block';
+    cancelBtn.disabled = false;
     resultsSection.style.display = 'none';
     progressFill.style.width = '0%';
     progressText.textContent = '0%';
@@ -249,6 +276,20 @@ async function showResults(jobId) {
                 `;
                 resultsFiles.appendChild(fileCard);
             });
+
+            if (data.convertedFiles.length > 1) {
+                const archiveCard = document.createElement('div');
+                archiveCard.className = 'result-file';
+                archiveCard.innerHTML = `
+                    <div style="color: white; margin-bottom: 10px;">
+                        <strong>🗜️ ${data.convertedFiles.length} archivos</strong>
+                    </div>
+                    <button class="download-btn" onclick="downloadArchive('${jobId}')">
+                        ⬇️ Descargar todo (ZIP)
+                    </button>
+                `;
+                resultsFiles.prepend(archiveCard);
+            }
         }
 
         // Show errors if any
@@ -266,6 +307,10 @@ function downloadFile(jobId, fileName) {
     window.open(url, '_blank');
 }
 
+function downloadArchive(jobId) {
+    window.open(`/api/download/${jobId}.zip`, '_blank');
+}
+
 // WebSocket Connection
 function connectWebSocket() {
     const socket = new SockJS('/ws');
@@ -293,6 +338,9 @@ function subscribeToJobProgress(jobId) {
             addLog(`✅ ${data.fileName} - Convertido exitosamente`);
         } else if (data.status === 'failed') {
             addLog(`❌ ${data.fileName} - Error en conversión`);
+        } else if (data.status === 'merged') {
+            // Merges report each file as it is appended to the combined PDF
+            addLog(`📄 ${data.fileName} - ${data.pages} páginas combinadas`);
         } else {
             addLog(`🔄 Convirtiendo: ${data.fileName}`);
         }
@@ -0,0 +1,92 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.ConversionConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversionCacheServiceTest {
+
+    private static final int ENTRY_BYTES = 400 * 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private ConversionCacheService cache;
+
+    @BeforeEach
+    void setUp() {
+        ConversionConfig config = new ConversionConfig();
+        config.getCache().setMaxSizeMb(1);
+
+        FileStorageService fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.getOutputLocation()).thenReturn(tempDir);
+
+        cache = new ConversionCacheService(fileStorageService, config);
+        cache.init();
+    }
+
+    @Test
+    void restoreLeavesModificationTimeOfEarlierOutputsAlone() throws Exception {
+        File first = output("first.pdf");
+        cache.store("key", first);
+
+        File restored = tempDir.resolve("restored.pdf").toFile();
+        assertTrue(cache.restore("key", restored));
+        FileTime linkedAt = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        Files.setLastModifiedTime(restored.toPath(), linkedAt);
+
+        assertTrue(cache.restore("key", tempDir.resolve("again.pdf").toFile()));
+        assertEquals(linkedAt, Files.getLastModifiedTime(restored.toPath()));
+    }
+
+    @Test
+    void evictsLeastRecentlyRestoredEntryFirst() throws Exception {
+        cache.store("a", output("a.pdf"));
+        cache.store("b", output("b.pdf"));
+        assertTrue(cache.restore("a", tempDir.resolve("a-restored.pdf").toFile()));
+
+        // Over the 1 MB budget: b was used longest ago
+        cache.store("c", output("c.pdf"));
+
+        assertTrue(cache.restore("a", tempDir.resolve("a-again.pdf").toFile()));
+        assertFalse(cache.restore("b", tempDir.resolve("b-restored.pdf").toFile()));
+        assertTrue(cache.restore("c", tempDir.resolve("c-restored.pdf").toFile()));
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    void publishesHitsMissesAndEvictions() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        cache.store("a", output("a.pdf"));
+        cache.store("b", output("b.pdf"));
+        cache.store("c", output("c.pdf"));
+
+        assertTrue(cache.restore("c", tempDir.resolve("c-restored.pdf").toFile()));
+        assertFalse(cache.restore("a", tempDir.resolve("a-restored.pdf").toFile()));
+        assertFalse(cache.restore("missing", tempDir.resolve("missing.pdf").toFile()));
+
+        assertEquals(1.0, registry.get("conversion.cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(2.0, registry.get("conversion.cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("conversion.cache.evictions").functionCounter().count());
+        assertEquals(2.0, registry.get("conversion.cache.size").gauge().value());
+        assertEquals(2.0 * ENTRY_BYTES, registry.get("conversion.cache.bytes").gauge().value());
+    }
+
+    private File output(String name) throws Exception {
+        return Files.write(tempDir.resolve(name), new byte[ENTRY_BYTES]).toFile();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.ImageOptions;
+import com.example.conversonweb.domain.service.FileConverter;
+import com.example.conversonweb.infrastructure.factory.ConverterFactory;
+import com.example.conversonweb.infrastructure.metrics.ConversionMetrics;
+import com.example.conversonweb.infrastructure.metrics.JobTraces;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import com.example.conversonweb.infrastructure.scheduling.JobScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConversionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ConversionScheduler conversionScheduler;
+    private JobScheduler jobScheduler;
+    private ConversionService service;
+    private final CountDownLatch blockerGate = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ConversionConfig config = new ConversionConfig();
+        config.getScheduler().setCpuThreads(1);
+        config.getScheduler().setDocumentThreads(1);
+        config.setParallelFilesPerJob(2);
+        conversionScheduler = new ConversionScheduler(config);
+        jobScheduler = new JobScheduler(config);
+
+        FileStorageService fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.getOutputDirectory(anyString())).thenReturn(tempDir.toFile());
+        ConverterFactory converterFactory = mock(ConverterFactory.class);
+        when(converterFactory.createConverter(any(), any(), any())).thenReturn(mock(FileConverter.class));
+        ConversionCacheService conversionCache = mock(ConversionCacheService.class);
+        when(conversionCache.cacheKey(any(), any(), any())).thenReturn("key");
+
+        service = new ConversionService(converterFactory, fileStorageService, mock(SimpMessagingTemplate.class),
+                conversionScheduler, config, conversionCache, jobScheduler, mock(ConversionMetrics.class),
+                mock(JobTraces.class));
+
+        // Occupy the only CPU worker, so every file submitted from now on stays queued
+        conversionScheduler.submit("blocker", ConversionScheduler.Lane.CPU, () -> {
+            blockerGate.await();
+            return null;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        blockerGate.countDown();
+        conversionScheduler.shutdown();
+        jobScheduler.shutdown();
+    }
+
+    @Test
+    void cancellingJobWithQueuedFilesUnblocksItsUpload() throws Exception {
+        ConversionService.StreamingConversion conversion =
+                service.startStreamingConversion(ConversionType.IMAGE_TO_PDF, "job", "client");
+        conversion.add(new File(tempDir.toFile(), "1.png"));
+        conversion.add(new File(tempDir.toFile(), "2.png"));
+
+        // Both job slots are held by queued files, so the third file waits for one
+        CompletableFuture<Void> third = CompletableFuture.runAsync(() -> {
+            try {
+                conversion.add(new File(tempDir.toFile(), "3.png"));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(300);
+
+        assertTrue(service.cancelJob("job"));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CancellationException.class, e.getCause());
+    }
+
+    @Test
+    void cancelledJobWithQueuedFilesFreesItsRunner() throws Exception {
+        CompletableFuture<?> job = service.convertFilesAsync(
+                List.of(new File(tempDir.toFile(), "1.png"), new File(tempDir.toFile(), "2.png"),
+                        new File(tempDir.toFile(), "3.png")),
+                ConversionType.IMAGE_TO_PDF, ImageOptions.ORIGINAL, "job", "client");
+        Thread.sleep(300);
+
+        assertTrue(service.cancelJob("job"));
+        assertTrue(job.isCancelled());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (jobScheduler.getRunningJobs() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, jobScheduler.getRunningJobs());
+
+        // Its files never started, so nothing reads the uploads although the worker is still busy
+        service.whenStopped("job").get(5, TimeUnit.SECONDS);
+    }
+}
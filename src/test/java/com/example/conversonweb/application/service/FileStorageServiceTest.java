@@ -0,0 +1,143 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.StorageConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path uploadDir;
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        uploadDir = tempDir.resolve("storage").resolve("uploads");
+        StorageConfig config = new StorageConfig();
+        config.setUploadDir(uploadDir.toString());
+        config.setOutputDir(tempDir.resolve("storage").resolve("output").toString());
+        config.setScratchDir(tempDir.resolve("storage").resolve("scratch").toString());
+
+        fileStorageService = new FileStorageService(config);
+        fileStorageService.init();
+    }
+
+    @Test
+    void storesUploadsInsideTheUploadDirectory() throws Exception {
+        FileStorageService.StoredUpload upload = fileStorageService.storeUploadedFile("..\\../photos/Photo.PNG",
+                new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        assertEquals(uploadDir.toAbsolutePath().normalize(), upload.file().toPath().getParent());
+        assertEquals(upload.sha256() + ".png", upload.file().getName());
+    }
+
+    @Test
+    void rejectsFileNamesThatCouldLeaveTheUploadDirectory() {
+        assertThrows(IllegalArgumentException.class, () -> fileStorageService.storeUploadedFile("a./../../x",
+                new ByteArrayInputStream(new byte[]{1, 2, 3})));
+
+        assertFalse(Files.exists(tempDir.resolve("x")));
+        assertFalse(Files.exists(tempDir.resolve("storage").resolve("x")));
+    }
+
+    @Test
+    void storesIdenticalUploadsOnce() throws Exception {
+        byte[] content = {1, 2, 3, 4};
+        FileStorageService.StoredUpload first = fileStorageService.storeUploadedFile(
+                new MockMultipartFile("files", "scan.png", "image/png", content));
+        FileStorageService.StoredUpload second = fileStorageService.storeUploadedFile("copy of scan.PNG",
+                new ByteArrayInputStream(content));
+
+        assertNotEquals(first.id(), second.id());
+        assertEquals(first.file(), second.file());
+        assertEquals(first.sha256(), second.sha256());
+        assertFalse(first.deduplicated());
+        assertTrue(second.deduplicated());
+        assertArrayEquals(content, Files.readAllBytes(first.file().toPath()));
+        // No temp file is left behind by either upload
+        assertEquals(List.of(first.file().getName()), uploadDirEntries());
+    }
+
+    @Test
+    void deletesSharedUploadWithItsLastReference() throws Exception {
+        byte[] content = {5, 6, 7};
+        File stored = fileStorageService.storeUploadedFile(
+                new MockMultipartFile("files", "a.jpg", "image/jpeg", content)).file();
+        fileStorageService.storeUploadedFile(new MockMultipartFile("files", "b.jpg", "image/jpeg", content));
+
+        fileStorageService.deleteFile(stored);
+        assertTrue(stored.exists());
+        assertTrue(fileStorageService.isReferenced(stored));
+
+        fileStorageService.deleteFile(stored);
+        assertFalse(stored.exists());
+        assertFalse(fileStorageService.isReferenced(stored));
+    }
+
+    @Test
+    void storesUploadAgainAfterItsFileWasDeleted() throws Exception {
+        byte[] content = {8, 9};
+        File stored = fileStorageService.storeUploadedFile(
+                new MockMultipartFile("files", "a.gif", "image/gif", content)).file();
+        fileStorageService.deleteFile(stored);
+
+        FileStorageService.StoredUpload again = fileStorageService.storeUploadedFile(
+                new MockMultipartFile("files", "a.gif", "image/gif", content));
+
+        assertFalse(again.deduplicated());
+        assertArrayEquals(content, Files.readAllBytes(again.file().toPath()));
+    }
+
+    @Test
+    void deletesUploadsCutShortByARestart() throws Exception {
+        Path abandoned = Files.write(uploadDir.resolve(".upload-3f1c.tmp"), new byte[]{1, 2, 3});
+
+        fileStorageService.init();
+
+        assertFalse(Files.exists(abandoned));
+    }
+
+    @Test
+    void rejectsUnsupportedUploadBeforeWritingIt() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> fileStorageService.storeUploadedFile(
+                new MockMultipartFile("files", "run.sh", "text/plain", new byte[] {1})));
+
+        assertEquals(List.of(), uploadDirEntries());
+    }
+
+    @Test
+    void acceptsOnlySupportedExtensions() {
+        assertEquals(".docx", FileStorageService.getFileExtension("report.final.DOCX"));
+        assertEquals(".jpg", FileStorageService.getFileExtension("C:\\Users\\me\\scan.jpg"));
+
+        assertThrows(IllegalArgumentException.class, () -> FileStorageService.getFileExtension("script.sh"));
+        assertThrows(IllegalArgumentException.class, () -> FileStorageService.getFileExtension(".png"));
+        assertThrows(IllegalArgumentException.class, () -> FileStorageService.getFileExtension("noextension"));
+        assertThrows(IllegalArgumentException.class, () -> FileStorageService.getFileExtension("dir.png/"));
+        assertThrows(IllegalArgumentException.class, () -> FileStorageService.getFileExtension(null));
+    }
+
+    private List<String> uploadDirEntries() throws Exception {
+        try (Stream<Path> entries = Files.list(uploadDir)) {
+            return entries.map(path -> path.getFileName().toString()).toList();
+        }
+    }
+}
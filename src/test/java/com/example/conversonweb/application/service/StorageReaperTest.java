@@ -0,0 +1,181 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.StorageConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageReaperTest {
+
+    private static final int ENTRY_BYTES = 400 * 1024;
+    private static final long HOUR_MILLIS = 3600_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private StorageConfig storageConfig;
+    private FileStorageService fileStorageService;
+    private ConversionJobRepository jobRepository;
+    private StorageReaper reaper;
+
+    @BeforeEach
+    void setUp() {
+        storageConfig = new StorageConfig();
+        storageConfig.setUploadDir(tempDir.resolve("uploads").toString());
+        storageConfig.setOutputDir(tempDir.resolve("output").toString());
+        storageConfig.setScratchDir(tempDir.resolve("scratch").toString());
+        storageConfig.setCleanupHours(24);
+
+        fileStorageService = new FileStorageService(storageConfig);
+        fileStorageService.init();
+        jobRepository = mock(ConversionJobRepository.class);
+        when(jobRepository.findById(anyString())).thenReturn(Optional.empty());
+
+        reaper = new StorageReaper(fileStorageService, storageConfig, jobRepository);
+    }
+
+    @Test
+    void leavesUploadsInProgressAloneOverQuota() throws Exception {
+        storageConfig.setMaxTotalMb(1);
+        // Oldest of all, as a slow upload would be, and over the age limit too
+        Path inProgress = upload(".upload-3f1c.tmp", 48);
+        Path stored = upload("a".repeat(64) + ".png", 2);
+        Path newer = upload("b".repeat(64) + ".png", 1);
+
+        StorageReaper.ReapReport report = reaper.reap();
+
+        assertTrue(Files.exists(inProgress));
+        assertFalse(Files.exists(stored));
+        assertTrue(Files.exists(newer));
+        assertEquals(1, report.deletedUploads());
+        assertEquals(2L * ENTRY_BYTES, report.remainingBytes());
+    }
+
+    @Test
+    void deletesEntriesOlderThanCleanupHours() throws Exception {
+        Path oldUpload = upload("a".repeat(64) + ".png", 30);
+        Path freshUpload = upload("b".repeat(64) + ".png", 1);
+        FileStorageService.StoredUpload referenced = fileStorageService.storeUploadedFile("kept.png",
+                new ByteArrayInputStream(new byte[ENTRY_BYTES]));
+        age(referenced.file().toPath(), 30);
+        Path oldJob = job(30);
+        Path freshJob = job(1);
+        Path oldScratch = write(fileStorageService.getScratchLocation().resolve("merge-1.tmp"), 30);
+        Path freshScratch = write(fileStorageService.getScratchLocation().resolve("merge-2.tmp"), 1);
+
+        StorageReaper.ReapReport report = reaper.reap();
+
+        assertFalse(Files.exists(oldUpload));
+        assertTrue(Files.exists(freshUpload));
+        assertTrue(referenced.file().exists());
+        assertFalse(Files.exists(oldJob));
+        assertTrue(Files.exists(freshJob));
+        assertFalse(Files.exists(oldScratch));
+        assertTrue(Files.exists(freshScratch));
+        verify(jobRepository).delete(oldJob.getFileName().toString());
+
+        assertEquals(1, report.deletedUploads());
+        assertEquals(1, report.deletedJobs());
+        assertEquals(1, report.deletedScratchFiles());
+        assertEquals(3L * ENTRY_BYTES, report.reclaimedBytes());
+        assertEquals(4L * ENTRY_BYTES, report.remainingBytes());
+    }
+
+    @Test
+    void evictsOldestFirstOverQuota() throws Exception {
+        storageConfig.setMaxTotalMb(1);
+        Path oldestJob = job(5);
+        Path oldestUpload = upload("a".repeat(64) + ".png", 4);
+        Path newerJob = job(3);
+        Path newestUpload = upload("b".repeat(64) + ".png", 2);
+
+        StorageReaper.ReapReport report = reaper.reap();
+
+        // 1.6 MB in use: the two oldest go to get under 1 MB
+        assertFalse(Files.exists(oldestJob));
+        assertFalse(Files.exists(oldestUpload));
+        assertTrue(Files.exists(newerJob));
+        assertTrue(Files.exists(newestUpload));
+        assertEquals(2L * ENTRY_BYTES, report.remainingBytes());
+    }
+
+    @Test
+    void keepsJobsStillProcessing() throws Exception {
+        storageConfig.setMaxTotalMb(1);
+        Path processing = job(30);
+        Path evicted = job(2);
+        Path kept = job(1);
+        String processingId = processing.getFileName().toString();
+        when(jobRepository.findById(processingId))
+                .thenReturn(Optional.of(ConversionJob.started(processingId, ConversionType.WORD_TO_PDF, 1)));
+
+        StorageReaper.ReapReport report = reaper.reap();
+
+        // Neither its age nor the quota removes it; the next oldest job goes instead
+        assertTrue(Files.exists(processing));
+        assertFalse(Files.exists(evicted));
+        assertTrue(Files.exists(kept));
+        verify(jobRepository, never()).delete(processingId);
+        assertEquals(1, report.deletedJobs());
+    }
+
+    @Test
+    void publishesWhatEachRunReclaimed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        reaper.bindTo(registry);
+        upload("a".repeat(64) + ".png", 30);
+        upload("b".repeat(64) + ".png", 1);
+        job(30);
+
+        reaper.reap();
+        upload("c".repeat(64) + ".png", 30);
+        reaper.reap();
+
+        assertEquals(3.0 * ENTRY_BYTES, registry.get("storage.reaper.reclaimed").functionCounter().count());
+        assertEquals(2.0, registry.get("storage.reaper.deleted").tag("kind", "upload").functionCounter().count());
+        assertEquals(1.0, registry.get("storage.reaper.deleted").tag("kind", "job").functionCounter().count());
+        assertEquals(0.0, registry.get("storage.reaper.deleted").tag("kind", "scratch").functionCounter().count());
+        assertEquals(ENTRY_BYTES, registry.get("storage.used").gauge().value());
+    }
+
+    private Path job(int ageHours) throws Exception {
+        Path jobDir = Files.createDirectories(fileStorageService.getOutputLocation()
+                .resolve(UUID.randomUUID().toString()));
+        write(jobDir.resolve("output.pdf"), ageHours);
+        return age(jobDir, ageHours);
+    }
+
+    private Path upload(String name, int ageHours) throws Exception {
+        return write(fileStorageService.getUploadLocation().resolve(name), ageHours);
+    }
+
+    private static Path write(Path file, int ageHours) throws Exception {
+        Files.write(file, new byte[ENTRY_BYTES]);
+        return age(file, ageHours);
+    }
+
+    private static Path age(Path path, int ageHours) throws Exception {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() - ageHours * HOUR_MILLIS));
+        return path;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.conversonweb.application.service;
+
+import com.example.conversonweb.config.StorageConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class UploadRegistryTest {
+
+    private static final long ENTRY_BYTES = 400 * 1024;
+
+    private StorageConfig storageConfig;
+    private FileStorageService fileStorageService;
+    private UploadRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        storageConfig = new StorageConfig();
+        fileStorageService = mock(FileStorageService.class);
+        registry = new UploadRegistry(fileStorageService, storageConfig);
+    }
+
+    @Test
+    void evictsOldestOverEntryLimit() {
+        storageConfig.setMaxPendingUploads(2);
+
+        register("a");
+        register("b");
+        register("c");
+
+        verify(fileStorageService).deleteFile(file("a"));
+        assertEquals(List.of(file("b"), file("c")), registry.acquire(List.of("a", "b", "c")));
+        assertEquals(new UploadRegistry.UploadStats(2, 2 * ENTRY_BYTES, 2, 1), registry.getStats());
+    }
+
+    @Test
+    void evictsOldestOverByteLimit() {
+        storageConfig.setMaxPendingUploadMb(1);
+
+        register("a");
+        register("b");
+        verify(fileStorageService, never()).deleteFile(any());
+
+        // 1.2 MB over the 1 MB budget
+        register("c");
+
+        verify(fileStorageService).deleteFile(file("a"));
+        assertEquals(2 * ENTRY_BYTES, registry.getStats().bytes());
+    }
+
+    @Test
+    void evictsExpiredUploads() throws Exception {
+        register("a");
+        register("b");
+        registry.acquire(List.of("b"));
+
+        storageConfig.setPendingUploadTtlMinutes(0);
+        Thread.sleep(5);
+        registry.evictExpired();
+
+        verify(fileStorageService).deleteFile(file("a"));
+        verify(fileStorageService, never()).deleteFile(file("b"));
+        assertEquals(new UploadRegistry.UploadStats(1, ENTRY_BYTES, 1, 1), registry.getStats());
+    }
+
+    @Test
+    void keepsPinnedUploadsUntilReleased() {
+        storageConfig.setMaxPendingUploads(2);
+        register("a");
+        register("b");
+        registry.acquire(List.of("a"));
+
+        // a is the oldest but a conversion holds it, so b goes
+        register("c");
+        verify(fileStorageService, never()).deleteFile(file("a"));
+        verify(fileStorageService).deleteFile(file("b"));
+
+        registry.release(List.of("a"));
+        register("d");
+        verify(fileStorageService).deleteFile(file("a"));
+    }
+
+    @Test
+    void deletesRemovedUploadOnceNoConversionHoldsIt() {
+        register("a");
+        registry.acquire(List.of("a"));
+        registry.acquire(List.of("a"));
+
+        registry.remove(List.of("a"));
+        verify(fileStorageService, never()).deleteFile(any());
+
+        registry.remove(List.of("a"));
+        verify(fileStorageService).deleteFile(file("a"));
+        assertEquals(new UploadRegistry.UploadStats(0, 0, 0, 0), registry.getStats());
+    }
+
+    @Test
+    void publishesStats() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        registry.bindTo(meterRegistry);
+        storageConfig.setMaxPendingUploads(2);
+        register("a");
+        register("b");
+        register("c");
+        registry.acquire(List.of("b"));
+
+        assertEquals(2.0, meterRegistry.get("uploads.pending").gauge().value());
+        assertEquals(2.0 * ENTRY_BYTES, meterRegistry.get("uploads.pending.bytes").gauge().value());
+        assertEquals(1.0, meterRegistry.get("uploads.pinned").gauge().value());
+        assertEquals(1.0, meterRegistry.get("uploads.evictions").functionCounter().count());
+    }
+
+    private void register(String uploadId) {
+        registry.register(uploadId, file(uploadId), ENTRY_BYTES);
+    }
+
+    private static File file(String uploadId) {
+        return new File(uploadId + ".png");
+    }
+}
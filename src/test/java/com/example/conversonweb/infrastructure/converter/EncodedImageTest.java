@@ -0,0 +1,154 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSInteger;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceCMYK;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.plugins.tiff.BaselineTIFFTagSet;
+import javax.imageio.plugins.tiff.TIFFDirectory;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class EncodedImageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private PDDocument document;
+
+    @BeforeEach
+    void setUp() {
+        document = new PDDocument();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        document.close();
+    }
+
+    @Test
+    void embedsBaselineJpegFileUnchanged() throws Exception {
+        File jpeg = SampleImages.baselineJpeg(tempDir, "photo.jpg");
+
+        PDImageXObject image = embed(jpeg);
+
+        assertEquals(COSName.DCT_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+        assertEquals(PDDeviceRGB.INSTANCE, image.getColorSpace());
+        assertArrayEquals(Files.readAllBytes(jpeg.toPath()), rawData(image));
+    }
+
+    @Test
+    void embedsProgressiveJpegFileUnchanged() throws Exception {
+        File jpeg = SampleImages.progressiveJpeg(tempDir, "photo.jpg");
+
+        PDImageXObject image = embed(jpeg);
+
+        assertEquals(COSName.DCT_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+        assertArrayEquals(Files.readAllBytes(jpeg.toPath()), rawData(image));
+    }
+
+    @Test
+    void embedsCmykJpegInverted() throws Exception {
+        File jpeg = SampleImages.cmykJpeg(tempDir, "print.jpg");
+
+        PDImageXObject image = embed(jpeg);
+
+        assertEquals(COSName.DCT_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+        assertEquals(PDDeviceCMYK.INSTANCE, image.getColorSpace());
+        COSArray decode = (COSArray) image.getCOSObject().getDictionaryObject(COSName.DECODE);
+        assertEquals(8, decode.size());
+        for (int i = 0; i < 8; i += 2) {
+            assertEquals(COSInteger.ONE, decode.get(i));
+            assertEquals(COSInteger.ZERO, decode.get(i + 1));
+        }
+        assertArrayEquals(Files.readAllBytes(jpeg.toPath()), rawData(image));
+    }
+
+    @Test
+    void unwrapsJpegStripOfTiff() throws Exception {
+        File tiff = SampleImages.jpegTiff(tempDir, "scan.tif");
+        byte[] strip = readStrip(tiff);
+
+        PDImageXObject image = embed(tiff);
+
+        assertEquals(COSName.DCT_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+        byte[] jpeg = rawData(image);
+        // The strip's entropy-coded data is carried over byte for byte, after the tables
+        assertArrayEquals(Arrays.copyOfRange(strip, 2, strip.length),
+                Arrays.copyOfRange(jpeg, jpeg.length - strip.length + 2, jpeg.length));
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg));
+        assertNotNull(decoded);
+        assertEquals(SampleImages.WIDTH, decoded.getWidth());
+        assertEquals(SampleImages.HEIGHT, decoded.getHeight());
+    }
+
+    @Test
+    void decodesJpegWhoseHeaderCannotBeWalked() throws Exception {
+        PDImageXObject image = embed(SampleImages.corruptJpeg(tempDir, "photo.jpg"));
+
+        assertEquals(COSName.FLATE_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+    }
+
+    @Test
+    void decodesTiffWithoutJpegData() throws Exception {
+        PDImageXObject image = embed(SampleImages.write(tempDir, "scan.tif", "tiff"));
+
+        assertEquals(COSName.FLATE_DECODE, image.getCOSObject().getItem(COSName.FILTER));
+    }
+
+    private PDImageXObject embed(File file) throws Exception {
+        EncodedImage encoded = EncodedImage.fromFile(file);
+        assertEquals(SampleImages.WIDTH, encoded.getDisplayWidth());
+        assertEquals(SampleImages.HEIGHT, encoded.getDisplayHeight());
+
+        PDImageXObject image = encoded.toImageXObject(document);
+        assertEquals(SampleImages.WIDTH, image.getWidth());
+        assertEquals(SampleImages.HEIGHT, image.getHeight());
+        return image;
+    }
+
+    private static byte[] rawData(PDImageXObject image) throws Exception {
+        try (InputStream in = image.getCOSObject().createRawInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] readStrip(File tiff) throws Exception {
+        ImageReader reader = ImageIO.getImageReadersByFormatName("tiff").next();
+        try (ImageInputStream input = ImageIO.createImageInputStream(tiff)) {
+            reader.setInput(input);
+            TIFFDirectory directory = TIFFDirectory.createFromMetadata(reader.getImageMetadata(0));
+            assertEquals(7, directory.getTIFFField(BaselineTIFFTagSet.TAG_COMPRESSION).getAsInt(0));
+            long offset = directory.getTIFFField(BaselineTIFFTagSet.TAG_STRIP_OFFSETS).getAsLong(0);
+            byte[] strip = new byte[directory.getTIFFField(BaselineTIFFTagSet.TAG_STRIP_BYTE_COUNTS).getAsInt(0)];
+            try (RandomAccessFile file = new RandomAccessFile(tiff, "r")) {
+                file.seek(offset);
+                file.readFully(strip);
+            }
+            return strip;
+        } finally {
+            reader.dispose();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageHeaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recognisesFormatsBySignature() throws Exception {
+        assertEquals(ImageHeader.Format.JPEG, ImageHeader.sniffFormat(SampleImages.baselineJpeg(tempDir, "a.png")));
+        assertEquals(ImageHeader.Format.TIFF, ImageHeader.sniffFormat(SampleImages.jpegTiff(tempDir, "b.tif")));
+        assertEquals(ImageHeader.Format.GIF, ImageHeader.sniffFormat(SampleImages.write(tempDir, "c.gif", "gif")));
+        assertEquals(ImageHeader.Format.OTHER, ImageHeader.sniffFormat(SampleImages.write(tempDir, "d.jpg", "png")));
+        assertEquals(ImageHeader.Format.OTHER,
+                ImageHeader.sniffFormat(Files.write(tempDir.resolve("e.jpg"), new byte[] {(byte) 0xFF}).toFile()));
+    }
+
+    @Test
+    void readsBaselineFrame() throws Exception {
+        ImageHeader.JpegFrame frame = ImageHeader.readJpegFrame(SampleImages.baselineJpeg(tempDir, "a.jpg"));
+
+        assertEquals(new ImageHeader.JpegFrame(0xC0, 8, SampleImages.WIDTH, SampleImages.HEIGHT, 3), frame);
+        assertTrue(frame.isEmbeddable());
+    }
+
+    @Test
+    void readsProgressiveFrame() throws Exception {
+        ImageHeader.JpegFrame frame = ImageHeader.readJpegFrame(SampleImages.progressiveJpeg(tempDir, "a.jpg"));
+
+        assertEquals(new ImageHeader.JpegFrame(0xC2, 8, SampleImages.WIDTH, SampleImages.HEIGHT, 3), frame);
+        assertTrue(frame.isEmbeddable());
+    }
+
+    @Test
+    void readsCmykFrameAfterAdobeSegment() throws Exception {
+        ImageHeader.JpegFrame frame = ImageHeader.readJpegFrame(SampleImages.cmykJpeg(tempDir, "a.jpg"));
+
+        assertEquals(new ImageHeader.JpegFrame(0xC0, 8, SampleImages.WIDTH, SampleImages.HEIGHT, 4), frame);
+        assertTrue(frame.isEmbeddable());
+    }
+
+    @Test
+    void returnsNullForEveryTruncatedHeader() throws Exception {
+        byte[] jpeg = Files.readAllBytes(SampleImages.baselineJpeg(tempDir, "a.jpg").toPath());
+        int frameEnd = SampleImages.indexOfMarker(jpeg, 0xC0) + 10;
+
+        for (int length = 0; length < frameEnd; length++) {
+            assertNull(ImageHeader.readJpegFrame(new ByteArrayInputStream(Arrays.copyOf(jpeg, length))),
+                    "cut at " + length);
+        }
+        assertNotNull(ImageHeader.readJpegFrame(new ByteArrayInputStream(Arrays.copyOf(jpeg, frameEnd))));
+    }
+
+    @Test
+    void returnsNullForCorruptHeader() throws Exception {
+        File corrupt = SampleImages.corruptJpeg(tempDir, "a.jpg");
+
+        assertNull(ImageHeader.readJpegFrame(corrupt));
+    }
+
+    @Test
+    void embedsOnlyFramesPdfViewersDecode() {
+        assertFalse(new ImageHeader.JpegFrame(0xC0, 12, 10, 10, 3).isEmbeddable());
+        // Lossless and arithmetic-coded
+        assertFalse(new ImageHeader.JpegFrame(0xC3, 8, 10, 10, 3).isEmbeddable());
+        assertFalse(new ImageHeader.JpegFrame(0xC9, 8, 10, 10, 3).isEmbeddable());
+        assertFalse(new ImageHeader.JpegFrame(0xC0, 8, 10, 10, 2).isEmbeddable());
+        assertFalse(new ImageHeader.JpegFrame(0xC0, 8, 0, 10, 3).isEmbeddable());
+        assertTrue(new ImageHeader.JpegFrame(0xC1, 8, 10, 10, 1).isEmbeddable());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Small image fixtures, generated so no binary files are kept in the repository
+ */
+final class SampleImages {
+
+    static final int WIDTH = 32;
+    static final int HEIGHT = 16;
+
+    private SampleImages() {
+    }
+
+    static BufferedImage image() {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                image.setRGB(x, y, (x * 8) << 16 | (y * 16) << 8 | 0x80);
+            }
+        }
+        return image;
+    }
+
+    static File write(Path dir, String name, String format) throws IOException {
+        File file = dir.resolve(name).toFile();
+        if (!ImageIO.write(image(), format, file)) {
+            throw new IOException("No writer for " + format);
+        }
+        return file;
+    }
+
+    static File baselineJpeg(Path dir, String name) throws IOException {
+        return write(dir, name, "jpg");
+    }
+
+    static File progressiveJpeg(Path dir, String name) throws IOException {
+        return writeWith(dir, name, "jpg", param -> param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT));
+    }
+
+    /**
+     * Single-strip TIFF holding the image as JPEG data
+     */
+    static File jpegTiff(Path dir, String name) throws IOException {
+        return writeWith(dir, name, "tiff", param -> {
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionType("JPEG");
+        });
+    }
+
+    /**
+     * Header of a CMYK JPEG as Photoshop writes it: an Adobe APP14 segment, then a
+     * four-component frame. No scan follows; only the header is ever read from it.
+     */
+    static File cmykJpeg(Path dir, String name) throws IOException {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xD8});
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xEE, 0, 14, 'A', 'd', 'o', 'b', 'e', 0, 100, 0, 0, 0, 0, 0});
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xC0, 0, 20, 8, 0, HEIGHT, 0, WIDTH, 4});
+        for (int component = 1; component <= 4; component++) {
+            jpeg.write(new byte[] {(byte) component, 0x11, 0});
+        }
+        jpeg.write(new byte[] {(byte) 0xFF, (byte) 0xD9});
+        return Files.write(dir.resolve(name), jpeg.toByteArray()).toFile();
+    }
+
+    /**
+     * Baseline JPEG with two stray bytes after its APP0 segment. Decoders skip
+     * them with a warning; a strict marker walk cannot get past them.
+     */
+    static File corruptJpeg(Path dir, String name) throws IOException {
+        byte[] jpeg = Files.readAllBytes(baselineJpeg(dir, name).toPath());
+        int app0End = 4 + ((jpeg[4] & 0xFF) << 8 | (jpeg[5] & 0xFF));
+        byte[] corrupt = new byte[jpeg.length + 2];
+        System.arraycopy(jpeg, 0, corrupt, 0, app0End);
+        corrupt[app0End] = 0x00;
+        corrupt[app0End + 1] = 0x11;
+        System.arraycopy(jpeg, app0End, corrupt, app0End + 2, jpeg.length - app0End);
+        return Files.write(dir.resolve(name), corrupt).toFile();
+    }
+
+    /**
+     * Offset of the first FF xx marker with the given code
+     */
+    static int indexOfMarker(byte[] jpeg, int marker) {
+        for (int i = 0; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == marker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static File writeWith(Path dir, String name, String format, Consumer<ImageWriteParam> setup)
+            throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        File file = dir.resolve(name).toFile();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(file)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            setup.accept(param);
+            writer.write(null, new IIOImage(image(), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return file;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.docx4j.XmlUtils;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.wml.BooleanDefaultTrue;
+import org.docx4j.wml.Br;
+import org.docx4j.wml.ObjectFactory;
+import org.docx4j.wml.P;
+import org.docx4j.wml.PPr;
+import org.docx4j.wml.R;
+import org.docx4j.wml.STBrType;
+import org.docx4j.wml.SectPr;
+import org.docx4j.wml.Text;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds small Word documents whose paragraphs are numbered 0, 1, 2..., and
+ * renders them the way the tests need: one page per paragraph, the page width
+ * telling which paragraph it came from
+ */
+class SampleWordDocument {
+
+    private static final ObjectFactory WML = new ObjectFactory();
+
+    private final WordprocessingMLPackage wordMLPackage;
+    private final List<P> paragraphs = new ArrayList<>();
+
+    SampleWordDocument(int paragraphCount) throws Exception {
+        wordMLPackage = WordprocessingMLPackage.createPackage();
+        for (int i = 0; i < paragraphCount; i++) {
+            paragraphs.add(wordMLPackage.getMainDocumentPart().addParagraphOfText(String.valueOf(i)));
+        }
+    }
+
+    SampleWordDocument pageBreakAfter(int paragraph) {
+        Br br = WML.createBr();
+        br.setType(STBrType.PAGE);
+        ((R) paragraphs.get(paragraph).getContent().get(0)).getContent().add(br);
+        return this;
+    }
+
+    /**
+     * @param type null for a next-page section break, or "continuous", "oddPage"...
+     */
+    SampleWordDocument sectionBreakAfter(int paragraph, String type) {
+        SectPr sectPr = WML.createSectPr();
+        if (type != null) {
+            SectPr.Type sectionType = WML.createSectPrType();
+            sectionType.setVal(type);
+            sectPr.setType(sectionType);
+        }
+        properties(paragraph).setSectPr(sectPr);
+        return this;
+    }
+
+    SampleWordDocument pageBreakBefore(int paragraph) {
+        properties(paragraph).setPageBreakBefore(new BooleanDefaultTrue());
+        return this;
+    }
+
+    SampleWordDocument pageField(int paragraph) {
+        Text instruction = WML.createText();
+        instruction.setValue(" PAGE ");
+        ((R) paragraphs.get(paragraph).getContent().get(0)).getContent().add(WML.createRInstrText(instruction));
+        return this;
+    }
+
+    SampleWordDocument savedPageCount(int pages) throws Exception {
+        if (wordMLPackage.getDocPropsExtendedPart() == null) {
+            wordMLPackage.addDocPropsExtendedPart();
+        }
+        wordMLPackage.getDocPropsExtendedPart().getContents().setPages(pages);
+        return this;
+    }
+
+    File save(File file) throws Exception {
+        wordMLPackage.save(file);
+        return file;
+    }
+
+    /**
+     * Stands in for the rendering engine: one page per top-level paragraph, 100 + n points wide
+     */
+    static void render(WordprocessingMLPackage wordMLPackage, OutputStream out) throws IOException {
+        try (PDDocument pdf = new PDDocument()) {
+            for (int paragraph : paragraphNumbers(wordMLPackage)) {
+                pdf.addPage(new PDPage(new PDRectangle(100 + paragraph, 100)));
+            }
+            pdf.save(out);
+        }
+    }
+
+    static List<Integer> paragraphNumbers(WordprocessingMLPackage wordMLPackage) {
+        List<Integer> numbers = new ArrayList<>();
+        for (Object element : wordMLPackage.getMainDocumentPart().getContent()) {
+            if (XmlUtils.unwrap(element) instanceof P paragraph) {
+                R run = (R) paragraph.getContent().get(0);
+                numbers.add(Integer.parseInt(((Text) XmlUtils.unwrap(run.getContent().get(0))).getValue()));
+            }
+        }
+        return numbers;
+    }
+
+    /**
+     * Paragraph numbers of a PDF written by {@link #render}, in page order
+     */
+    static List<Integer> pages(File pdfFile) throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (PDDocument pdf = PDDocument.load(pdfFile)) {
+            for (PDPage page : pdf.getPages()) {
+                numbers.add((int) page.getMediaBox().getWidth() - 100);
+            }
+        }
+        return numbers;
+    }
+
+    private PPr properties(int paragraph) {
+        P p = paragraphs.get(paragraph);
+        if (p.getPPr() == null) {
+            p.setPPr(WML.createPPr());
+        }
+        return p.getPPr();
+    }
+}
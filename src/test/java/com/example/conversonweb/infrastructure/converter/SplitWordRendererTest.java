@@ -0,0 +1,151 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.infrastructure.rendering.WordRenderingEngine;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class SplitWordRendererTest {
+
+    private static final List<Integer> ALL_PAGES = IntStream.range(0, 12).boxed().toList();
+
+    @TempDir
+    Path tempDir;
+
+    private WordRenderingEngine renderingEngine;
+    private ConversionScheduler scheduler;
+    private final List<String> chunkThreads = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws Exception {
+        renderingEngine = mock(WordRenderingEngine.class);
+        doAnswer(invocation -> {
+            chunkThreads.add(Thread.currentThread().getName());
+            SampleWordDocument.render(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(renderingEngine).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class), anyBoolean());
+        doAnswer(invocation -> {
+            SampleWordDocument.render(invocation.getArgument(0), invocation.getArgument(1));
+            return null;
+        }).when(renderingEngine).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null && !mockingDetails(scheduler).isMock()) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void stitchesChunksInDocumentOrder() throws Exception {
+        scheduler = new ConversionScheduler(new ConversionConfig());
+        File output = tempDir.resolve("out.pdf").toFile();
+
+        renderer(4, 10).convertToPdf(document(12), output);
+
+        assertEquals(ALL_PAGES, SampleWordDocument.pages(output));
+        assertEquals(4, chunkThreads.size());
+        verify(renderingEngine, never()).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class));
+    }
+
+    @Test
+    void rendersChunksNoWorkerHasStarted() throws Exception {
+        // Workers that never get to run: the requesting thread must not wait for them
+        scheduler = mock(ConversionScheduler.class);
+        doReturn(new CompletableFuture<>()).when(scheduler).trySubmit(any(), any(), any());
+        File output = tempDir.resolve("out.pdf").toFile();
+
+        renderer(4, 10).convertToPdf(document(12), output);
+
+        assertEquals(ALL_PAGES, SampleWordDocument.pages(output));
+        assertEquals(Collections.nCopies(4, Thread.currentThread().getName()), chunkThreads);
+    }
+
+    @Test
+    void rendersInOnePieceWhenSplitAddsPages() throws Exception {
+        scheduler = new ConversionScheduler(new ConversionConfig());
+        File output = tempDir.resolve("out.pdf").toFile();
+
+        // Word counted 10 pages; 12 is over the 10% margin
+        renderer(4, 10).convertToPdf(document(10), output);
+
+        verify(renderingEngine, times(4)).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class),
+                anyBoolean());
+        verify(renderingEngine).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class));
+        assertEquals(ALL_PAGES, SampleWordDocument.pages(output));
+    }
+
+    @Test
+    void keepsSplitRenderWithinTheMargin() throws Exception {
+        scheduler = new ConversionScheduler(new ConversionConfig());
+        File output = tempDir.resolve("out.pdf").toFile();
+
+        renderer(4, 20).convertToPdf(document(10), output);
+
+        verify(renderingEngine, never()).renderPdf(any(WordprocessingMLPackage.class), any(OutputStream.class));
+        assertEquals(ALL_PAGES, SampleWordDocument.pages(output));
+    }
+
+    @Test
+    void splitsOnlyLargeDocumentsWithoutPageFields() throws Exception {
+        scheduler = mock(ConversionScheduler.class);
+        File docx = document(12);
+        long size = WordDocumentSplitter.mainDocumentSize(docx);
+
+        assertTrue(renderer(size, 4, 10).shouldSplit(docx));
+        assertFalse(renderer(size + 1, 4, 10).shouldSplit(docx));
+        assertFalse(renderer(size, 1, 10).shouldSplit(docx));
+
+        File withField = new SampleWordDocument(12).pageBreakAfter(5).pageField(0)
+                .save(tempDir.resolve("field.docx").toFile());
+        assertFalse(renderer(1, 4, 10).shouldSplit(withField));
+    }
+
+    /**
+     * Breaks after paragraphs 2, 5 and 8, so four chunks of three pages
+     */
+    private File document(int savedPages) throws Exception {
+        return new SampleWordDocument(12)
+                .pageBreakAfter(2)
+                .sectionBreakAfter(5, null)
+                .pageBreakAfter(8)
+                .savedPageCount(savedPages)
+                .save(tempDir.resolve("document-" + savedPages + ".docx").toFile());
+    }
+
+    private SplitWordRenderer renderer(int maxChunks, int tolerancePercent) {
+        return renderer(1, maxChunks, tolerancePercent);
+    }
+
+    private SplitWordRenderer renderer(long minDocumentBytes, int maxChunks, int tolerancePercent) {
+        return new SplitWordRenderer(renderingEngine, scheduler, new PdfMemoryPolicy(-1, tempDir.toFile()),
+                minDocumentBytes, maxChunks, tolerancePercent);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.conversonweb.infrastructure.converter;
+
+import org.docx4j.XmlUtils;
+import org.docx4j.openpackaging.packages.WordprocessingMLPackage;
+import org.docx4j.wml.Br;
+import org.docx4j.wml.P;
+import org.docx4j.wml.R;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WordDocumentSplitterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File docx;
+
+    /**
+     * Twelve paragraphs: a page break ends 2, a next-page section ends 5, a continuous
+     * section ends 7 and 9 starts on a new page
+     */
+    @BeforeEach
+    void setUp() throws Exception {
+        docx = new SampleWordDocument(12)
+                .pageBreakAfter(2)
+                .sectionBreakAfter(5, null)
+                .sectionBreakAfter(7, "continuous")
+                .pageBreakBefore(9)
+                .save(tempDir.resolve("sections.docx").toFile());
+    }
+
+    @Test
+    void cutsOnlyWhereANewPageStarts() throws Exception {
+        // As many chunks as paragraphs asked for: every cut point is taken, the continuous section is not one
+        assertEquals(List.of(0, 3, 6, 9), WordDocumentSplitter.chunkStarts(load(), 12));
+    }
+
+    @Test
+    void spreadsChunksOverTheCutPoints() throws Exception {
+        assertEquals(List.of(0, 6), WordDocumentSplitter.chunkStarts(load(), 2));
+        assertEquals(List.of(0, 6, 9), WordDocumentSplitter.chunkStarts(load(), 3));
+    }
+
+    @Test
+    void keepsDocumentWithoutBreaksInOnePiece() throws Exception {
+        File plain = new SampleWordDocument(5).save(tempDir.resolve("plain.docx").toFile());
+
+        assertEquals(List.of(0), WordDocumentSplitter.chunkStarts(WordprocessingMLPackage.load(plain), 4));
+    }
+
+    @Test
+    void dropsThePageBreakAtTheEndOfAChunk() throws Exception {
+        WordprocessingMLPackage chunk = load();
+        WordDocumentSplitter.restrictTo(chunk, 0, 3);
+
+        assertEquals(List.of(0, 1, 2), SampleWordDocument.paragraphNumbers(chunk));
+        assertFalse(endsWithPageBreak(paragraph(chunk, 2)));
+    }
+
+    @Test
+    void givesAChunkThePageSetupOfTheSectionItEnds() throws Exception {
+        WordprocessingMLPackage chunk = load();
+        WordDocumentSplitter.restrictTo(chunk, 3, 6);
+
+        assertEquals(List.of(3, 4, 5), SampleWordDocument.paragraphNumbers(chunk));
+        // The section break moves from the last paragraph to the body
+        assertNull(paragraph(chunk, 2).getPPr().getSectPr());
+        assertNull(chunk.getMainDocumentPart().getJaxbElement().getBody().getSectPr().getType());
+    }
+
+    @Test
+    void dropsThePageBreakBeforeTheStartOfAChunk() throws Exception {
+        WordprocessingMLPackage chunk = load();
+        WordDocumentSplitter.restrictTo(chunk, 9, 12);
+
+        assertEquals(List.of(9, 10, 11), SampleWordDocument.paragraphNumbers(chunk));
+        assertNull(paragraph(chunk, 0).getPPr().getPageBreakBefore());
+    }
+
+    @Test
+    void findsPageNumberFields() throws Exception {
+        assertFalse(WordDocumentSplitter.hasLayoutDependentContent(docx));
+        File withField = new SampleWordDocument(3).pageField(1).save(tempDir.resolve("field.docx").toFile());
+        assertTrue(WordDocumentSplitter.hasLayoutDependentContent(withField));
+    }
+
+    @Test
+    void readsSavedPageCount() throws Exception {
+        assertNull(WordDocumentSplitter.savedPageCount(load()));
+        File counted = new SampleWordDocument(3).savedPageCount(7).save(tempDir.resolve("counted.docx").toFile());
+        assertEquals(7, WordDocumentSplitter.savedPageCount(WordprocessingMLPackage.load(counted)));
+    }
+
+    private WordprocessingMLPackage load() throws Exception {
+        return WordprocessingMLPackage.load(docx);
+    }
+
+    private static P paragraph(WordprocessingMLPackage wordMLPackage, int index) {
+        return (P) XmlUtils.unwrap(wordMLPackage.getMainDocumentPart().getContent().get(index));
+    }
+
+    private static boolean endsWithPageBreak(P paragraph) {
+        List<Object> runContent = ((R) paragraph.getContent().get(0)).getContent();
+        return XmlUtils.unwrap(runContent.get(runContent.size() - 1)) instanceof Br;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.infrastructure.scheduling.ConversionScheduler;
+import com.example.conversonweb.infrastructure.scheduling.JobScheduler;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+class ConversionMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final JobTraces jobTraces = new JobTraces(new ConversionConfig());
+    private final ConversionMetrics metrics = new ConversionMetrics(registry, jobTraces,
+            mock(ConversionScheduler.class), mock(JobScheduler.class));
+
+    @Test
+    void publishesPeakHeapPerMergeType() {
+        jobTraces.start("job", ConversionType.MERGE_WORDS_TO_PDF);
+
+        // Traced jobs get a combined timer, which must pass the peak on too
+        metrics.stageTimer(ConversionType.MERGE_WORDS_TO_PDF, "job").recordPeakHeap(64L * 1024 * 1024);
+        metrics.stageTimer(ConversionType.MERGE_WORDS_TO_PDF).recordPeakHeap(128L * 1024 * 1024);
+
+        DistributionSummary peakHeap = registry.get("conversion.merge.peak.heap")
+                .tag("type", "MERGE_WORDS_TO_PDF").summary();
+        assertEquals(2, peakHeap.count());
+        assertEquals(128.0 * 1024 * 1024, peakHeap.max());
+        assertNull(registry.find("conversion.merge.peak.heap").tag("type", "MERGE_IMAGES_TO_PDF").summary());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.conversonweb.infrastructure.metrics;
+
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobTracesTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void recordsSpansOfTheJob() throws Exception {
+        JobTraces traces = new JobTraces(config(10, 10));
+        File source = Files.write(tempDir.resolve("doc.docx"), new byte[1234]).toFile();
+
+        traces.start("job", ConversionType.WORD_TO_PDF);
+        StageTimer timer = traces.stageTimer("job");
+        timer.record(ConversionStage.QUEUE_WAIT, null, System.nanoTime());
+        timer.record(ConversionStage.DECODE, source, System.nanoTime());
+        traces.finish("job");
+
+        JobTraces.JobTrace trace = traces.find("job").orElseThrow();
+        assertEquals(ConversionType.WORD_TO_PDF, trace.conversionType());
+        assertNotNull(trace.finishedAt());
+        assertEquals(2, trace.spans().size());
+
+        JobTraces.Span decode = trace.spans().get(1);
+        assertEquals(ConversionStage.DECODE, decode.stage());
+        assertEquals("doc.docx", decode.file());
+        assertEquals(1234, decode.bytes());
+        assertEquals(Thread.currentThread().getName(), decode.thread());
+        assertTrue(trace.stageTotalsMs().containsKey(ConversionStage.DECODE));
+    }
+
+    @Test
+    void keepsOnlyTheLatestJobs() {
+        JobTraces traces = new JobTraces(config(2, 10));
+        traces.start("first", ConversionType.IMAGE_TO_PDF);
+        traces.start("second", ConversionType.IMAGE_TO_PDF);
+        traces.start("third", ConversionType.IMAGE_TO_PDF);
+
+        assertTrue(traces.find("first").isEmpty());
+        assertTrue(traces.find("second").isPresent());
+        assertTrue(traces.find("third").isPresent());
+        assertSame(StageTimer.NONE, traces.stageTimer("first"));
+    }
+
+    @Test
+    void countsSpansBeyondTheLimit() {
+        JobTraces traces = new JobTraces(config(10, 2));
+        traces.start("job", ConversionType.MERGE_IMAGES_TO_PDF);
+        StageTimer timer = traces.stageTimer("job");
+        for (int i = 0; i < 5; i++) {
+            timer.record(ConversionStage.RENDER, null, System.nanoTime());
+        }
+
+        JobTraces.JobTrace trace = traces.find("job").orElseThrow();
+        assertEquals(2, trace.spans().size());
+        assertEquals(3, trace.droppedSpans());
+        assertNull(trace.finishedAt());
+    }
+
+    private static ConversionConfig config(int maxJobs, int maxSpansPerJob) {
+        ConversionConfig config = new ConversionConfig();
+        config.getTrace().setMaxJobs(maxJobs);
+        config.getTrace().setMaxSpansPerJob(maxSpansPerJob);
+        return config;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.conversonweb.infrastructure.persistence;
+
+import com.example.conversonweb.application.service.FileStorageService;
+import com.example.conversonweb.config.JobStoreConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.ConversionResult;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.JobStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FileConversionJobRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private JobStoreConfig jobStoreConfig;
+    private FileStorageService fileStorageService;
+    private FileConversionJobRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        jobStoreConfig = new JobStoreConfig();
+        jobStoreConfig.setTtlHours(1);
+        fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.getOutputLocation()).thenReturn(tempDir);
+        repository = newRepository();
+    }
+
+    @Test
+    void readsBackWhatWasStored() {
+        ConversionJob completed = ConversionJob.started("job-1", ConversionType.IMAGE_TO_PDF, 2)
+                .completed(ConversionResult.builder()
+                        .successCount(1)
+                        .failureCount(1)
+                        .convertedFiles(List.of(new File("out/photo.pdf")))
+                        .errors(List.of("scan.tif: ilegible"))
+                        .build());
+        repository.save(completed);
+
+        // A fresh instance has nothing cached and reads it from disk
+        ConversionJob loaded = newRepository().findById("job-1").orElseThrow();
+
+        assertEquals(completed, loaded);
+        assertEquals(List.of("photo.pdf"), loaded.getConvertedFiles());
+    }
+
+    @Test
+    void sweepDeletesJobsNotUpdatedWithinTtl() throws Exception {
+        repository.save(ConversionJob.started("old", ConversionType.WORD_TO_PDF, 1).cancelled());
+        repository.save(ConversionJob.started("recent", ConversionType.WORD_TO_PDF, 1).cancelled());
+        Files.setLastModifiedTime(jobFile("old"), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        assertEquals(1, repository.evictExpired());
+
+        assertFalse(Files.exists(jobFile("old")));
+        assertTrue(repository.findById("old").isEmpty());
+        assertTrue(repository.findById("recent").isPresent());
+    }
+
+    @Test
+    void hidesJobsExpiredBeforeTheSweep() {
+        ConversionJob job = ConversionJob.started("stale", ConversionType.WORD_TO_PDF, 1).cancelled();
+        repository.save(job.toBuilder().updatedAt(Instant.now().minus(Duration.ofHours(2))).build());
+
+        assertTrue(repository.findById("stale").isEmpty());
+        assertFalse(Files.exists(jobFile("stale")));
+    }
+
+    @Test
+    void cachesOnlyTheMostRecentlyUsedFinishedJobs() throws Exception {
+        jobStoreConfig.setMaxCachedJobs(2);
+        repository = newRepository();
+        for (String jobId : List.of("a", "b", "c")) {
+            repository.save(ConversionJob.started(jobId, ConversionType.WORD_TO_PDF, 1).failed("original"));
+        }
+
+        // Rewritten behind the repository's back: only jobs no longer cached show the change
+        for (String jobId : List.of("a", "b", "c")) {
+            rewrite(ConversionJob.started(jobId, ConversionType.WORD_TO_PDF, 1).failed("rewritten"));
+        }
+
+        assertTrue(repository.findById("a").orElseThrow().getMessage().endsWith("rewritten"));
+        // Reading a cached it again, pushing b out
+        assertTrue(repository.findById("c").orElseThrow().getMessage().endsWith("original"));
+        assertTrue(repository.findById("b").orElseThrow().getMessage().endsWith("rewritten"));
+    }
+
+    @Test
+    void alwaysReadsJobsInProgressFromDisk() throws Exception {
+        ConversionJob job = ConversionJob.started("running", ConversionType.WORD_TO_PDF, 3);
+        repository.save(job);
+        repository.findById("running");
+
+        rewrite(job.toBuilder().successCount(2).build());
+
+        assertEquals(2, repository.findById("running").orElseThrow().getSuccessCount());
+    }
+
+    @Test
+    void failsJobsInterruptedByARestart() {
+        repository.save(ConversionJob.started("interrupted", ConversionType.MERGE_WORDS_TO_PDF, 4));
+        repository.save(ConversionJob.started("done", ConversionType.WORD_TO_PDF, 1).cancelled());
+
+        FileConversionJobRepository restarted = newRepository();
+
+        ConversionJob interrupted = restarted.findById("interrupted").orElseThrow();
+        assertEquals(JobStatus.FAILED, interrupted.getStatus());
+        assertEquals(4, interrupted.getTotalFiles());
+        assertEquals(JobStatus.CANCELLED, restarted.findById("done").orElseThrow().getStatus());
+    }
+
+    @Test
+    void leavesJobsInProgressAloneWhenVolumeIsShared() {
+        jobStoreConfig.setFailInterruptedOnStartup(false);
+        repository.save(ConversionJob.started("elsewhere", ConversionType.WORD_TO_PDF, 1));
+
+        FileConversionJobRepository restarted = newRepository();
+
+        assertEquals(JobStatus.PROCESSING, restarted.findById("elsewhere").orElseThrow().getStatus());
+    }
+
+    @Test
+    void rejectsJobIdsThatAreNotFileNames() {
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.save(ConversionJob.started("../escape", ConversionType.WORD_TO_PDF, 1)));
+        assertTrue(repository.findById("..").isEmpty());
+        assertTrue(repository.findById(".cache").isEmpty());
+    }
+
+    private FileConversionJobRepository newRepository() {
+        FileConversionJobRepository newRepository = new FileConversionJobRepository(fileStorageService,
+                objectMapper, jobStoreConfig);
+        newRepository.init();
+        return newRepository;
+    }
+
+    private void rewrite(ConversionJob job) throws Exception {
+        objectMapper.writeValue(jobFile(job.getJobId()).toFile(), job);
+    }
+
+    private Path jobFile(String jobId) {
+        return tempDir.resolve(".jobs").resolve(jobId + ".json");
+    }
+}
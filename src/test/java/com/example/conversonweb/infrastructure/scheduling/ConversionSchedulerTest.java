@@ -0,0 +1,158 @@
+package com.example.conversonweb.infrastructure.scheduling;
+
+import com.example.conversonweb.config.ConversionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConversionSchedulerTest {
+
+    private ConversionScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void servesJobsRoundRobin() throws Exception {
+        scheduler = new ConversionScheduler(config(1, 16));
+
+        // Block the single worker so both jobs queue up behind it
+        CountDownLatch gate = new CountDownLatch(1);
+        Future<?> blocker = scheduler.submit("blocker", ConversionScheduler.Lane.CPU, () -> {
+            gate.await();
+            return null;
+        });
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit("big", ConversionScheduler.Lane.CPU, () -> order.add("big")));
+        }
+        futures.add(scheduler.submit("small", ConversionScheduler.Lane.CPU, () -> order.add("small")));
+
+        gate.countDown();
+        blocker.get(5, TimeUnit.SECONDS);
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(List.of("big", "small", "big", "big"), order);
+    }
+
+    @Test
+    void releasesPermitsWhenTasksFinish() throws Exception {
+        scheduler = new ConversionScheduler(config(2, 2));
+
+        for (int i = 0; i < 10; i++) {
+            scheduler.submit("job", ConversionScheduler.Lane.DOCUMENT, () -> 1).get(5, TimeUnit.SECONDS);
+        }
+
+        // Permits are returned right after the task body, give the worker a moment
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getPendingTasks() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, scheduler.getPendingTasks());
+    }
+
+    @Test
+    void runsDoneHookOfTasksCancelledWhileQueued() throws Exception {
+        scheduler = new ConversionScheduler(config(1, 16));
+
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit("blocker", ConversionScheduler.Lane.CPU, () -> {
+            gate.await();
+            return null;
+        });
+
+        CountDownLatch done = new CountDownLatch(2);
+        scheduler.submit("job", ConversionScheduler.Lane.CPU, () -> 1, done::countDown);
+        scheduler.submit("job", ConversionScheduler.Lane.CPU, () -> 2, done::countDown);
+        scheduler.cancelJob("job");
+
+        // Both tasks are still queued behind the blocker and will never run
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        gate.countDown();
+    }
+
+    @Test
+    void drainsOnceCancelledTasksHaveStopped() throws Exception {
+        scheduler = new ConversionScheduler(config(1, 16));
+        assertTrue(scheduler.whenDrained("job").isDone());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("job", ConversionScheduler.Lane.CPU, () -> {
+            started.countDown();
+            awaitUninterruptibly(release);
+            return null;
+        });
+        scheduler.submit("job", ConversionScheduler.Lane.CPU, () -> null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // The running task ignores its interrupt, like a render between two writes
+        scheduler.cancelJob("job");
+        CompletableFuture<Void> drained = scheduler.whenDrained("job");
+        Thread.sleep(100);
+        assertFalse(drained.isDone());
+
+        release.countDown();
+        drained.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void remembersCancelledJobsForTheRetention() {
+        scheduler = new ConversionScheduler(config(1, 16));
+        scheduler.cancelJob("job");
+
+        scheduler.pruneCancelledJobs();
+        assertTrue(scheduler.isCancelled("job"));
+
+        ConversionConfig noRetention = config(1, 16);
+        noRetention.getScheduler().setCancelledJobRetentionMinutes(0);
+        scheduler.shutdown();
+        scheduler = new ConversionScheduler(noRetention);
+        scheduler.cancelJob("job");
+
+        scheduler.pruneCancelledJobs();
+        assertFalse(scheduler.isCancelled("job"));
+    }
+
+    static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ConversionConfig config(int threads, int maxPending) {
+        ConversionConfig config = new ConversionConfig();
+        config.getScheduler().setCpuThreads(threads);
+        config.getScheduler().setDocumentThreads(threads);
+        config.getScheduler().setMaxPendingTasks(maxPending);
+        return config;
+    }
+}
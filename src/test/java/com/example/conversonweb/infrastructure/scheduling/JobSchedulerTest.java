@@ -0,0 +1,168 @@
+package com.example.conversonweb.infrastructure.scheduling;
+
+import com.example.conversonweb.config.ConversionConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void runsCheaperJobsFirst() throws Exception {
+        scheduler = new JobScheduler(config(1, 16, 16));
+        CountDownLatch gate = block("client");
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        futures.add(scheduler.submit("merge", "client", 60_000, () -> order.add("merge")));
+        futures.add(scheduler.submit("image", "client", 50, () -> order.add("image")));
+
+        gate.countDown();
+        awaitAll(futures);
+
+        assertEquals(List.of("image", "merge"), order);
+    }
+
+    @Test
+    void sharesRunnersBetweenClients() throws Exception {
+        scheduler = new JobScheduler(config(1, 16, 16));
+        CountDownLatch gate = block("busy");
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(scheduler.submit("busy-" + i, "busy", 10, () -> order.add("busy")));
+        }
+        futures.add(scheduler.submit("other", "other", 1_000, () -> order.add("other")));
+
+        gate.countDown();
+        awaitAll(futures);
+
+        assertEquals(List.of("other", "busy", "busy", "busy"), order);
+    }
+
+    @Test
+    void rejectsJobsOverTheLimits() throws Exception {
+        scheduler = new JobScheduler(config(1, 2, 1));
+        CountDownLatch gate = block("a");
+
+        scheduler.submit("a-1", "a", 10, () -> null);
+        SchedulerSaturatedException clientLimit = assertThrows(SchedulerSaturatedException.class,
+                () -> scheduler.submit("a-2", "a", 10, () -> null));
+        assertTrue(clientLimit.isClientLimit());
+
+        JobScheduler.Reservation reservation = scheduler.reserve("b-1", "b");
+        SchedulerSaturatedException queueFull = assertThrows(SchedulerSaturatedException.class,
+                () -> scheduler.submit("c-1", "c", 10, () -> null));
+        assertTrue(!queueFull.isClientLimit() && queueFull.getRetryAfterSeconds() >= 1);
+
+        // Releasing a reservation frees its slot
+        reservation.release();
+        scheduler.submit("c-1", "c", 10, () -> null);
+        gate.countDown();
+    }
+
+    @Test
+    void cancelsQueuedAndRunningJobs() throws Exception {
+        scheduler = new JobScheduler(config(1, 16, 16));
+        CountDownLatch gate = block("client");
+
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<?> queued = scheduler.submit("queued", "client", 10, () -> order.add("queued"));
+        CompletableFuture<?> next = scheduler.submit("next", "client", 20, () -> order.add("next"));
+
+        assertTrue(scheduler.cancel("queued"));
+        assertTrue(queued.isCancelled());
+
+        // The running blocker is interrupted instead of waiting for its gate
+        assertTrue(scheduler.cancel("blocker"));
+        next.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("next"), order);
+        assertTrue(!scheduler.cancel("next"));
+        gate.countDown();
+    }
+
+    @Test
+    void stopsCancelledJobsOnceTheirRunnerReturns() throws Exception {
+        scheduler = new JobScheduler(config(1, 16, 16));
+        assertTrue(scheduler.whenStopped("unknown").isDone());
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<?> running = scheduler.submit("running", "client", 0, () -> {
+            started.countDown();
+            ConversionSchedulerTest.awaitUninterruptibly(release);
+            return null;
+        });
+        scheduler.submit("queued", "client", 10, () -> null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> queuedStopped = scheduler.whenStopped("queued");
+        assertTrue(scheduler.cancel("queued"));
+        assertTrue(queuedStopped.isDone());
+
+        // The future is cancelled right away, the runner only stops when the job returns
+        CompletableFuture<Void> runningStopped = scheduler.whenStopped("running");
+        assertTrue(scheduler.cancel("running"));
+        assertTrue(running.isCancelled());
+        Thread.sleep(100);
+        assertFalse(runningStopped.isDone());
+
+        release.countDown();
+        runningStopped.get(5, TimeUnit.SECONDS);
+        assertTrue(scheduler.whenStopped("running").isDone());
+    }
+
+    /**
+     * Occupies the only runner until the returned latch is opened
+     */
+    private CountDownLatch block(String clientId) throws InterruptedException {
+        CountDownLatch gate = new CountDownLatch(1);
+        scheduler.submit("blocker", clientId, 0, () -> {
+            gate.await();
+            return null;
+        });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (scheduler.getRunningJobs() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, scheduler.getRunningJobs());
+        return gate;
+    }
+
+    private void awaitAll(List<CompletableFuture<?>> futures) throws Exception {
+        for (CompletableFuture<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private ConversionConfig config(int concurrentJobs, int maxQueued, int maxQueuedPerClient) {
+        ConversionConfig config = new ConversionConfig();
+        config.getJobQueue().setConcurrentJobs(concurrentJobs);
+        config.getJobQueue().setShortJobRunners(0);
+        config.getJobQueue().setMaxQueuedJobs(maxQueued);
+        config.getJobQueue().setMaxQueuedJobsPerClient(maxQueuedPerClient);
+        return config;
+    }
+}
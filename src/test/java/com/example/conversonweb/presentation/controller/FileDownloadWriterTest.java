@@ -0,0 +1,287 @@
+package com.example.conversonweb.presentation.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileDownloadWriterTest {
+
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private final FileDownloadWriter writer = new FileDownloadWriter();
+    private byte[] content;
+    private File file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        content = new byte[100];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = Files.write(tempDir.resolve("document.pdf"), content).toFile();
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(LAST_MODIFIED));
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = get(request());
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(100, response.getContentLengthLong());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals(etag(), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(LAST_MODIFIED, response.getDateHeader(HttpHeaders.LAST_MODIFIED));
+        assertEquals("attachment; filename=\"document.pdf\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+    }
+
+    @Test
+    void answersNotModifiedForCurrentCopy() throws Exception {
+        MockHttpServletRequest byEtag = request();
+        byEtag.addHeader(HttpHeaders.IF_NONE_MATCH, etag());
+        MockHttpServletResponse response = get(byEtag);
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+
+        MockHttpServletRequest byDate = request();
+        byDate.addHeader(HttpHeaders.IF_MODIFIED_SINCE, LAST_MODIFIED);
+        assertEquals(304, get(byDate).getStatus());
+    }
+
+    @Test
+    void servesWholeFileOnceChanged() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag());
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(LAST_MODIFIED + 60_000));
+
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void servesSingleRange() throws Exception {
+        assertPartial("bytes=10-19", 10, 19);
+    }
+
+    @Test
+    void servesOpenEndedAndSuffixRanges() throws Exception {
+        assertPartial("bytes=90-", 90, 99);
+        assertPartial("bytes=-10", 90, 99);
+        // A suffix longer than the file is the whole file
+        assertPartial("bytes=-500", 0, 99);
+        // A range running past the end is cut at the end
+        assertPartial("bytes=95-500", 95, 99);
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws Exception {
+        MockHttpServletResponse response = get(ranged("bytes=100-"));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */100", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void servesWholeFileForMalformedRanges() throws Exception {
+        for (String range : new String[] {"bytes=abc", "bytes=20-10", "bytes=", "items=0-10", "bytes=--5"}) {
+            MockHttpServletResponse response = get(ranged(range));
+
+            assertEquals(200, response.getStatus(), range);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+            assertArrayEquals(content, response.getContentAsByteArray(), range);
+        }
+    }
+
+    @Test
+    void servesWholeFileForMultipleRanges() throws Exception {
+        MockHttpServletResponse response = get(ranged("bytes=0-9,20-29"));
+
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void honoursIfRangeEtag() throws Exception {
+        MockHttpServletRequest matching = ranged("bytes=0-9");
+        matching.addHeader(HttpHeaders.IF_RANGE, etag());
+        assertEquals(206, get(matching).getStatus());
+
+        MockHttpServletRequest stale = ranged("bytes=0-9");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"0-0\"");
+        MockHttpServletResponse response = get(stale);
+        assertEquals(200, response.getStatus());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void honoursIfRangeDate() throws Exception {
+        MockHttpServletRequest matching = ranged("bytes=0-9");
+        matching.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED);
+        assertEquals(206, get(matching).getStatus());
+
+        MockHttpServletRequest stale = ranged("bytes=0-9");
+        stale.addHeader(HttpHeaders.IF_RANGE, LAST_MODIFIED - 60_000);
+        assertEquals(200, get(stale).getStatus());
+
+        MockHttpServletRequest garbage = ranged("bytes=0-9");
+        garbage.addHeader(HttpHeaders.IF_RANGE, "yesterday");
+        assertEquals(200, get(garbage).getStatus());
+    }
+
+    @Test
+    void sendsOnlyHeadersForHead() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/download");
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(200, response.getStatus());
+        assertEquals(100, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void handsLargeFilesToSendfile() throws Exception {
+        byte[] large = new byte[256 * 1024];
+        File largeFile = Files.write(tempDir.resolve("large.pdf"), large).toFile();
+        MockHttpServletRequest request = ranged("bytes=1024-");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.write(largeFile, MediaType.APPLICATION_PDF, "large.pdf", request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals(largeFile.getAbsolutePath(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(1024L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals((long) large.length, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void encodesNonAsciiDownloadNames() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, MediaType.APPLICATION_PDF, "informe_año.pdf", request(), response);
+
+        String disposition = response.getHeader(HttpHeaders.CONTENT_DISPOSITION);
+        assertNotNull(disposition);
+        assertTrue(disposition.contains("filename*=UTF-8''informe_a%C3%B1o.pdf"), disposition);
+    }
+
+    @Test
+    void streamsStoredArchive() throws Exception {
+        byte[] large = new byte[200 * 1024];
+        new Random(42).nextBytes(large);
+        File second = Files.write(tempDir.resolve("second.pdf"), large).toFile();
+        File empty = Files.write(tempDir.resolve("empty.pdf"), new byte[0]).toFile();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeArchive(List.of(file, second, empty), "job.zip", request(), response);
+
+        assertEquals("application/zip", response.getContentType());
+        assertEquals("attachment; filename=\"job.zip\"", response.getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        byte[] archive = response.getContentAsByteArray();
+
+        // Read as a stream, the way the local headers are checked
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            assertStoredEntry(zip, "document.pdf", content);
+            assertStoredEntry(zip, "second.pdf", large);
+            assertStoredEntry(zip, "empty.pdf", new byte[0]);
+            assertNull(zip.getNextEntry());
+        }
+
+        // And through the central directory, as most unzip tools do
+        File saved = Files.write(tempDir.resolve("job.zip"), archive).toFile();
+        try (ZipFile zip = new ZipFile(saved)) {
+            assertEquals(3, zip.size());
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals(entry.getSize(), entry.getCompressedSize());
+                assertArrayEquals(Files.readAllBytes(tempDir.resolve(entry.getName())),
+                        zip.getInputStream(entry).readAllBytes());
+            }
+        }
+    }
+
+    @Test
+    void sendsNoArchiveForHead() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        writer.writeArchive(List.of(file), "job.zip", new MockHttpServletRequest("HEAD", "/download"), response);
+
+        assertEquals("application/zip", response.getContentType());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private static void assertStoredEntry(ZipInputStream zip, String name, byte[] expected) throws Exception {
+        ZipEntry entry = zip.getNextEntry();
+        assertNotNull(entry, name);
+        assertEquals(name, entry.getName());
+        assertEquals(ZipEntry.STORED, entry.getMethod(), name);
+        assertEquals(expected.length, entry.getSize(), name);
+
+        CRC32 crc = new CRC32();
+        crc.update(expected);
+        assertEquals(crc.getValue(), entry.getCrc(), name);
+        // ZipInputStream checks the data against the CRC of the entry as it reads it
+        assertArrayEquals(expected, zip.readAllBytes(), name);
+    }
+
+    private void assertPartial(String range, int start, int end) throws Exception {
+        MockHttpServletResponse response = get(ranged(range));
+
+        assertEquals(206, response.getStatus(), range);
+        assertEquals("bytes " + start + "-" + end + "/100", response.getHeader(HttpHeaders.CONTENT_RANGE), range);
+        assertEquals(end - start + 1, response.getContentLengthLong(), range);
+        assertArrayEquals(Arrays.copyOfRange(content, start, end + 1), response.getContentAsByteArray(), range);
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, MediaType.APPLICATION_PDF, "document.pdf", request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/download");
+    }
+
+    private static MockHttpServletRequest ranged(String range) {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+
+    private static String etag() {
+        return "\"" + Long.toHexString(LAST_MODIFIED) + "-" + Long.toHexString(100) + "\"";
+    }
+}
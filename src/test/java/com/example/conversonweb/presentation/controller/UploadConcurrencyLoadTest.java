@@ -0,0 +1,157 @@
+package com.example.conversonweb.presentation.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test: how many slow uploads the server holds open while still answering
+ * other requests. Each upload trickles its body a byte at a time, the way a poor
+ * mobile connection does, and keeps its request thread busy until it ends.
+ *
+ * Skipped unless -Dloadtest=true. Run it once per mode and compare:
+ *   mvn test -Dtest=UploadConcurrencyLoadTest -Dloadtest=true
+ *   mvn -Pjava21 test -Dtest=UploadConcurrencyLoadTest -Dloadtest=true -Dspring.threads.virtual.enabled=true
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + UploadConcurrencyLoadTest.PLATFORM_THREADS,
+        "app.conversion.word-engine.warm-up-on-startup=false",
+        "app.conversion.fonts.scan-on-startup=false"
+})
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@Slf4j
+class UploadConcurrencyLoadTest {
+
+    static final int PLATFORM_THREADS = 40;
+    private static final int MAX_UPLOADS = 200;
+    private static final int STEP = 10;
+    private static final int PROBE_TIMEOUT_MS = 2000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${server.tomcat.threads.max}")
+    private int tomcatThreads;
+
+    private final List<Socket> uploads = new ArrayList<>();
+    private final ScheduledExecutorService trickle = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void tearDown() {
+        trickle.shutdownNow();
+        synchronized (uploads) {
+            for (Socket upload : uploads) {
+                try {
+                    upload.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    @Test
+    void holdsSlowUploadsWhileServingRequests() throws Exception {
+        boolean virtual = Threading.VIRTUAL.isActive(environment);
+
+        // Keep every upload under the connection timeout by sending a byte per second
+        trickle.scheduleWithFixedDelay(this::sendByteToEachUpload, 1, 1, TimeUnit.SECONDS);
+
+        int maxConcurrentUploads = 0;
+        while (maxConcurrentUploads < MAX_UPLOADS) {
+            for (int i = 0; i < STEP; i++) {
+                startSlowUpload();
+            }
+            Thread.sleep(300);
+            if (!probe()) {
+                break;
+            }
+            maxConcurrentUploads += STEP;
+        }
+
+        log.info("Upload load test: {} threads, max concurrent uploads {} (of {} tried, {} Tomcat threads)",
+                virtual ? "virtual" : "platform", maxConcurrentUploads, MAX_UPLOADS, tomcatThreads);
+
+        if (virtual) {
+            assertEquals(MAX_UPLOADS, maxConcurrentUploads);
+        } else {
+            assertTrue(maxConcurrentUploads < tomcatThreads);
+        }
+    }
+
+    /**
+     * Opens an upload whose body never finishes within the test
+     */
+    private void startSlowUpload() throws IOException {
+        String boundary = "loadtest";
+        String partHeader = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"slow.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n";
+        String request = "POST /api/files/upload HTTP/1.1\r\n"
+                + "Host: localhost:" + port + "\r\n"
+                + "Content-Type: multipart/form-data; boundary=" + boundary + "\r\n"
+                + "Content-Length: " + (partHeader.length() + 10_000_000) + "\r\n\r\n"
+                + partHeader;
+
+        Socket socket = new Socket("localhost", port);
+        socket.getOutputStream().write(request.getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().flush();
+        synchronized (uploads) {
+            uploads.add(socket);
+        }
+    }
+
+    private void sendByteToEachUpload() {
+        synchronized (uploads) {
+            for (Socket upload : uploads) {
+                try {
+                    OutputStream out = upload.getOutputStream();
+                    out.write(0);
+                    out.flush();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if a quick request is answered while the uploads are in progress
+     */
+    private boolean probe() throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setSoTimeout(PROBE_TIMEOUT_MS);
+            socket.getOutputStream().write(("GET /api/files/stats HTTP/1.1\r\n"
+                    + "Host: localhost:" + port + "\r\n"
+                    + "Connection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            InputStream in = socket.getInputStream();
+            byte[] statusLine = in.readNBytes(12);
+            return new String(statusLine, StandardCharsets.US_ASCII).startsWith("HTTP/1.1 200");
+        } catch (SocketTimeoutException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.conversonweb.presentation.multipart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----formboundary7MA4YWxk";
+
+    @Test
+    void skipsPreambleAndEpilogue() throws IOException {
+        String body = "This is the preamble, to be ignored\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"title\"\r\n"
+                + "\r\n"
+                + "hello\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"files\"; filename=\"photo.png\"\r\n"
+                + "Content-Type: image/png\r\n"
+                + "\r\n"
+                + "PNGDATA\r\n"
+                + "--" + BOUNDARY + "--\r\n"
+                + "This is the epilogue, also ignored\r\n";
+        MultipartStreamReader reader = reader(body, Integer.MAX_VALUE, 1024);
+
+        MultipartStreamReader.Part field = reader.nextPart();
+        assertEquals("title", field.name());
+        assertFalse(field.isFile());
+        assertEquals("hello", read(field));
+
+        MultipartStreamReader.Part file = reader.nextPart();
+        assertEquals("files", file.name());
+        assertEquals("photo.png", file.filename());
+        assertEquals("image/png", file.contentType());
+        assertEquals("PNGDATA", read(file));
+
+        assertNull(reader.nextPart());
+        assertNull(reader.nextPart());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 7, 13, 27})
+    void findsDelimitersSplitAcrossReads(int chunkSize) throws IOException {
+        // Almost-delimiters inside the body must stay part of it; 27 is one byte short of a whole delimiter
+        String first = "line one\r\n--" + BOUNDARY.substring(0, 10) + "\r\n-\r\n--x";
+        String second = "x".repeat(5000) + "\r\n";
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.docx\"\r\n"
+                + "\r\n"
+                + first + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"b\"; filename=\"b.docx\"\r\n"
+                + "\r\n"
+                + second + "\r\n"
+                + "--" + BOUNDARY + "--";
+        MultipartStreamReader reader = reader(body, chunkSize, 1024 * 1024);
+
+        assertEquals(first, read(reader.nextPart()));
+        assertEquals(second, read(reader.nextPart()));
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void skipsUnreadRestOfPart() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.png\"\r\n"
+                + "\r\n"
+                + "y".repeat(200_000) + "\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"b\"; filename=\"b.png\"\r\n"
+                + "\r\n"
+                + "second\r\n"
+                + "--" + BOUNDARY + "--";
+        MultipartStreamReader reader = reader(body, 4096, Long.MAX_VALUE);
+
+        MultipartStreamReader.Part first = reader.nextPart();
+        assertEquals('y', first.body().read());
+
+        MultipartStreamReader.Part second = reader.nextPart();
+        assertEquals("b.png", second.filename());
+        assertEquals("second", read(second));
+    }
+
+    @Test
+    void acceptsPartOfExactlyTheLimit() throws IOException {
+        MultipartStreamReader reader = reader(singleFile("0123456789"), Integer.MAX_VALUE, 10);
+
+        assertEquals("0123456789", read(reader.nextPart()));
+    }
+
+    @Test
+    void rejectsPartOverTheLimit() throws IOException {
+        MultipartStreamReader reader = reader(singleFile("0123456789A"), 3, 10);
+        MultipartStreamReader.Part part = reader.nextPart();
+
+        assertThrows(MultipartStreamReader.PartTooLargeException.class, () -> part.body().readAllBytes());
+    }
+
+    @Test
+    void rejectsHeadersOverTheLimit() {
+        StringBuilder headers = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            headers.append("X-Padding-").append(i).append(": ").append("p".repeat(100)).append("\r\n");
+        }
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.png\"\r\n"
+                + headers
+                + "\r\n"
+                + "data\r\n"
+                + "--" + BOUNDARY + "--";
+
+        IOException e = assertThrows(IOException.class, () -> reader(body, Integer.MAX_VALUE, 1024).nextPart());
+        assertFalse(e instanceof EOFException);
+    }
+
+    @Test
+    void rejectsHeaderLineOverTheLimit() {
+        // Arrives in small reads, so the line is refused before its end is seen
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"" + "n".repeat(20_000) + ".png\"\r\n"
+                + "\r\n"
+                + "data\r\n"
+                + "--" + BOUNDARY + "--";
+
+        IOException e = assertThrows(IOException.class, () -> reader(body, 512, 1024).nextPart());
+        assertFalse(e instanceof EOFException);
+    }
+
+    @Test
+    void failsOnTruncatedBody() throws IOException {
+        String body = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.png\"\r\n"
+                + "\r\n"
+                + "cut short";
+        MultipartStreamReader reader = reader(body, Integer.MAX_VALUE, 1024);
+        MultipartStreamReader.Part part = reader.nextPart();
+
+        assertThrows(EOFException.class, () -> part.body().readAllBytes());
+    }
+
+    @Test
+    void parsesQuotedBoundary() {
+        assertEquals("abc def", MultipartStreamReader.boundary("multipart/form-data; boundary=\"abc def\""));
+        assertEquals(BOUNDARY, MultipartStreamReader.boundary("multipart/form-data; boundary=" + BOUNDARY));
+    }
+
+    @Test
+    void rejectsContentTypeWithoutBoundary() {
+        assertThrows(IllegalArgumentException.class, () -> MultipartStreamReader.boundary("multipart/form-data"));
+        assertThrows(IllegalArgumentException.class, () -> MultipartStreamReader.boundary("application/json"));
+        assertThrows(IllegalArgumentException.class, () -> MultipartStreamReader.boundary(null));
+    }
+
+    @Test
+    void keepsBinaryBodyIntact() throws IOException {
+        byte[] data = new byte[70_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.bmp\"\r\n\r\n")
+                .getBytes(StandardCharsets.ISO_8859_1);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = new byte[head.length + data.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(data, 0, body, head.length, data.length);
+        System.arraycopy(tail, 0, body, head.length + data.length, tail.length);
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ChunkedInputStream(body, 999), BOUNDARY,
+                data.length);
+        MultipartStreamReader.Part part = reader.nextPart();
+
+        assertArrayEquals(data, part.body().readAllBytes());
+        assertNull(reader.nextPart());
+    }
+
+    private static String singleFile(String content) {
+        return "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"a\"; filename=\"a.png\"\r\n"
+                + "\r\n"
+                + content + "\r\n"
+                + "--" + BOUNDARY + "--";
+    }
+
+    private static MultipartStreamReader reader(String body, int chunkSize, long maxPartBytes) {
+        return new MultipartStreamReader(new ChunkedInputStream(body.getBytes(StandardCharsets.UTF_8), chunkSize),
+                BOUNDARY, maxPartBytes);
+    }
+
+    private static String read(MultipartStreamReader.Part part) throws IOException {
+        return new String(part.body().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hands out at most chunkSize bytes per read, like a socket delivering a body in pieces
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final ByteArrayInputStream in;
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            this.in = new ByteArrayInputStream(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            return in.read(target, offset, Math.min(length, chunkSize));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.conversonweb.presentation.websocket;
+
+import com.example.conversonweb.application.service.ConversionService;
+import com.example.conversonweb.config.ConversionConfig;
+import com.example.conversonweb.domain.model.ConversionJob;
+import com.example.conversonweb.domain.model.ConversionType;
+import com.example.conversonweb.domain.model.JobStatus;
+import com.example.conversonweb.domain.repository.ConversionJobRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JobSubscriptionTrackerTest {
+
+    private ConversionService conversionService;
+    private ConversionJobRepository jobRepository;
+    private ConversionConfig config;
+    private JobSubscriptionTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        conversionService = mock(ConversionService.class);
+        when(conversionService.cancelJob(anyString())).thenReturn(true);
+        jobRepository = mock(ConversionJobRepository.class);
+        when(jobRepository.findById("job"))
+                .thenReturn(Optional.of(ConversionJob.started("job", ConversionType.WORD_TO_PDF, 1)));
+        config = new ConversionConfig();
+        config.getJobQueue().setDisconnectGraceSeconds(0);
+        tracker = new JobSubscriptionTracker(conversionService, jobRepository, config);
+    }
+
+    @Test
+    void cancelsJobOnceItsLastWatcherDisconnected() {
+        tracker.onSubscribe(subscribe("session", "sub", "job"));
+        tracker.onDisconnect(disconnect("session"));
+
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService).cancelJob("job");
+        ArgumentCaptor<ConversionJob> saved = ArgumentCaptor.forClass(ConversionJob.class);
+        verify(jobRepository).save(saved.capture());
+        assertEquals(JobStatus.CANCELLED, saved.getValue().getStatus());
+    }
+
+    @Test
+    void waitsForTheGracePeriod() {
+        config.getJobQueue().setDisconnectGraceSeconds(60);
+        tracker.onSubscribe(subscribe("session", "sub", "job"));
+        tracker.onDisconnect(disconnect("session"));
+
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService, never()).cancelJob(anyString());
+    }
+
+    @Test
+    void keepsJobWhoseWatcherCameBack() {
+        // A page reload: the old session drops, a new one subscribes again
+        tracker.onSubscribe(subscribe("old", "sub", "job"));
+        tracker.onDisconnect(disconnect("old"));
+        tracker.onSubscribe(subscribe("new", "sub", "job"));
+
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService, never()).cancelJob(anyString());
+    }
+
+    @Test
+    void keepsJobStillWatchedElsewhere() {
+        tracker.onSubscribe(subscribe("first", "sub", "job"));
+        tracker.onSubscribe(subscribe("second", "sub", "job"));
+        tracker.onDisconnect(disconnect("first"));
+
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService, never()).cancelJob(anyString());
+    }
+
+    @Test
+    void keepsJobAfterAnUnsubscribe() {
+        // The client is done with the job, e.g. it switched to polling the status
+        tracker.onSubscribe(subscribe("session", "sub", "job"));
+        tracker.onUnsubscribe(unsubscribe("session", "sub"));
+        tracker.onDisconnect(disconnect("session"));
+
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService, never()).cancelJob(anyString());
+    }
+
+    @Test
+    void keepsFinishedJobsAndHonoursTheSwitch() {
+        when(jobRepository.findById("done")).thenReturn(Optional.of(
+                ConversionJob.started("done", ConversionType.WORD_TO_PDF, 1).failed("error")));
+        tracker.onSubscribe(subscribe("session", "sub", "done"));
+        tracker.onDisconnect(disconnect("session"));
+        tracker.cancelOrphanedJobs();
+
+        config.getJobQueue().setCancelOnDisconnect(false);
+        tracker.onSubscribe(subscribe("session", "sub", "job"));
+        tracker.onDisconnect(disconnect("session"));
+        tracker.cancelOrphanedJobs();
+
+        verify(conversionService, never()).cancelJob(anyString());
+        verify(jobRepository, never()).save(any());
+    }
+
+    private SessionSubscribeEvent subscribe(String sessionId, String subscriptionId, String jobId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        headers.setDestination("/topic/progress/" + jobId);
+        return new SessionSubscribeEvent(this, message(headers));
+    }
+
+    private SessionUnsubscribeEvent unsubscribe(String sessionId, String subscriptionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.UNSUBSCRIBE);
+        headers.setSessionId(sessionId);
+        headers.setSubscriptionId(subscriptionId);
+        return new SessionUnsubscribeEvent(this, message(headers));
+    }
+
+    private SessionDisconnectEvent disconnect(String sessionId) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        headers.setSessionId(sessionId);
+        return new SessionDisconnectEvent(this, message(headers), sessionId, CloseStatus.GOING_AWAY);
+    }
+
+    private static Message<byte[]> message(StompHeaderAccessor headers) {
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}